@@ -9,7 +9,8 @@ import android.util.Log;
 import android.view.MotionEvent;
 import android.view.ScaleGestureDetector;
 
-import com.jacoboaks.wandermobile.game.SaveData;
+import com.jacoboaks.wandermobile.game.AreaManager;
+import com.jacoboaks.wandermobile.game.SaveSlotIndex;
 import com.jacoboaks.wandermobile.game.gamelogic.DeleteSlotLogic;
 import com.jacoboaks.wandermobile.game.gamelogic.GameLogic;
 import com.jacoboaks.wandermobile.game.gamelogic.LogicChangeData;
@@ -18,6 +19,7 @@ import com.jacoboaks.wandermobile.game.gamelogic.NewGameLogic;
 import com.jacoboaks.wandermobile.game.gamelogic.SaveSlotChoiceLogic;
 import com.jacoboaks.wandermobile.game.gamelogic.WorldLogic;
 import com.jacoboaks.wandermobile.graphics.GameRenderer;
+import com.jacoboaks.wandermobile.util.Journal;
 import com.jacoboaks.wandermobile.util.Node;
 import com.jacoboaks.wandermobile.util.Util;
 
@@ -25,6 +27,11 @@ import java.io.File;
 import java.util.HashMap;
 import java.util.Map;
 
+import javax.microedition.khronos.egl.EGL10;
+import javax.microedition.khronos.egl.EGLConfig;
+import javax.microedition.khronos.egl.EGLContext;
+import javax.microedition.khronos.egl.EGLDisplay;
+
 /**
  * Serves as the main Activity for Wander.
  */
@@ -39,8 +46,10 @@ public class MainActivity extends AppCompatActivity {
     //Public Static Data
     public static File appDir; //reference to the file directory of the app
     public static GameLogic currentLogic; //reference to current running logic
-    public static boolean[] saveSlots; //which save slots are in use
-    public static boolean changeLogic = false; //flag for changing logic
+    public static SaveSlotIndex saveSlotIndex; //which save slots are in use and what is in them
+    public static AreaManager areaManager; //keeps recently used areas loaded
+    public static volatile boolean changeLogic = false; //flag for changing logic
+    public static volatile boolean logicChangeReady = false; //flag for the current logic having finished its transition out
 
     //Private Static Data
     private static LogicChangeData logicChangeData; //saved static data for logic changing
@@ -48,6 +57,7 @@ public class MainActivity extends AppCompatActivity {
     private static Resources resources; //reference to resources for resource loading
     private static Bundle savedBundle; //saved data from when app is paused
     private static Map<String, Bundle> savedLogics; //data from saved previous logic instances
+    private static boolean journalsRecovered = false; //whether interrupted saves have been recovered
 
     //Instance Data
     private GameView view; //view
@@ -67,6 +77,9 @@ public class MainActivity extends AppCompatActivity {
         //set context reference
         if (MainActivity.resources == null) MainActivity.resources = this.getResources();
 
+        //create area manager
+        if (MainActivity.areaManager == null) MainActivity.areaManager = new AreaManager(AreaManager.DEFAULT_BUDGET);
+
         //create saved logic map
         if (MainActivity.savedLogics == null) MainActivity.savedLogics = new HashMap<>();
 
@@ -124,6 +137,7 @@ public class MainActivity extends AppCompatActivity {
     protected void onPause() {
         super.onPause();
         if (this.view != null) this.view.onPause();
+        Journal.awaitCommits(); //the app may be killed while paused
     }
 
     /**
@@ -166,12 +180,21 @@ public class MainActivity extends AppCompatActivity {
     }
 
     /**
-     * Sets the data for a logic change to be read by the GameRenderer.
+     * Sets the data for a logic change to be read by the GameRenderer, which starts loading the next
+     * logic right away. The current logic keeps running until it calls readyLogicChange().
      */
     public static void initLogicChange(LogicChangeData logicChangeData, Node transferData) {
-        MainActivity.changeLogic = true;
         MainActivity.logicChangeData = logicChangeData;
         MainActivity.logicTransferData = transferData;
+        MainActivity.changeLogic = true; //set last so the data is visible to whoever sees the flag
+    }
+
+    /**
+     * Flags that the current logic has finished its transition out (usually a fade out), so that the
+     * GameRenderer switches logic as soon as the next logic is loaded.
+     */
+    public static void readyLogicChange() {
+        MainActivity.logicChangeReady = true;
     }
 
     /**
@@ -179,17 +202,16 @@ public class MainActivity extends AppCompatActivity {
      */
     public static void logicChangeProcessed() {
         MainActivity.changeLogic = false;
+        MainActivity.logicChangeReady = false;
     }
 
     /**
-     * Sees which save slots are in use
+     * Sees which save slots are in use. Any save that was interrupted the last time the app ran is
+     * completed or rolled back first.
      */
     private void checkSaveSlots() {
-        MainActivity.saveSlots = new boolean[] { false, false, false };
-        for (int i = 0; i < 3; i++) {
-            File savefile = new File(MainActivity.appDir, "data/saves/saveslot" + i + "/savedata.wdr");
-            MainActivity.saveSlots[i] = savefile.exists();
-        }
+        MainActivity.saveSlotIndex = new SaveSlotIndex(!MainActivity.journalsRecovered);
+        MainActivity.journalsRecovered = true;
     }
 
     //Static Accessors
@@ -215,8 +237,9 @@ public class MainActivity extends AppCompatActivity {
             //setup scale detector
             this.scaleDetector = new ScaleGestureDetector(context, new ScaleListener());
 
-            //create an OpenGL ES 2.0 context
+            //create an OpenGL ES 3.0 context where possible so shader binaries can be cached, otherwise 2.0
             setEGLContextClientVersion(2);
+            setEGLContextFactory(new ContextFactory());
 
             //enabled preserving context on pause
             setPreserveEGLContextOnPause(true);
@@ -242,6 +265,35 @@ public class MainActivity extends AppCompatActivity {
             return (scaleDetector || baseInput);
         }
 
+        /**
+         * ContextFactory Inner Class
+         * Creates an OpenGL ES 3.0 context, falling back to an OpenGL ES 2.0 context if the device
+         * can't create one. Everything is drawn through GLES20, which works in either.
+         */
+        private class ContextFactory implements GLSurfaceView.EGLContextFactory {
+
+            //Static Data
+            private static final int EGL_CONTEXT_CLIENT_VERSION = 0x3098;
+
+            @Override
+            public EGLContext createContext(EGL10 egl, EGLDisplay display, EGLConfig config) {
+                int[] attributes = { EGL_CONTEXT_CLIENT_VERSION, 3, EGL10.EGL_NONE };
+                EGLContext context = egl.eglCreateContext(display, config, EGL10.EGL_NO_CONTEXT, attributes);
+                if (context == null || context == EGL10.EGL_NO_CONTEXT) {
+                    if (Util.DEBUG) Log.i(Util.getLogTag("MainActivity.java", "createContext(EGL10, EGLDisplay, EGLConfig)"),
+                            "unable to create an OpenGL ES 3.0 context, falling back to 2.0");
+                    attributes[1] = 2;
+                    context = egl.eglCreateContext(display, config, EGL10.EGL_NO_CONTEXT, attributes);
+                }
+                return context;
+            }
+
+            @Override
+            public void destroyContext(EGL10 egl, EGLDisplay display, EGLContext context) {
+                egl.eglDestroyContext(display, context);
+            }
+        }
+
         /**
          * ScaleListener Inner Class
          * Listens for scale gestures.
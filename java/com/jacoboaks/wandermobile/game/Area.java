@@ -1,32 +1,61 @@
 package com.jacoboaks.wandermobile.game;
 
+import android.content.res.Resources;
 import android.util.Log;
 
+import com.jacoboaks.wandermobile.MainActivity;
+import com.jacoboaks.wandermobile.game.gameitem.ActivityScheduler;
 import com.jacoboaks.wandermobile.game.gameitem.Entity;
+import com.jacoboaks.wandermobile.game.gameitem.FollowFlowBehaviour;
 import com.jacoboaks.wandermobile.game.gameitem.StaticTile;
 import com.jacoboaks.wandermobile.game.gameitem.Tile;
+import com.jacoboaks.wandermobile.game.generation.ChunkGenerator;
+import com.jacoboaks.wandermobile.game.generation.ChunkStreamer;
+import com.jacoboaks.wandermobile.game.navigation.FlowField;
 import com.jacoboaks.wandermobile.graphics.Font;
+import com.jacoboaks.wandermobile.graphics.Model;
 import com.jacoboaks.wandermobile.graphics.ShaderProgram;
+import com.jacoboaks.wandermobile.graphics.Texture;
+import com.jacoboaks.wandermobile.tools.AreaCompiler;
+import com.jacoboaks.wandermobile.util.Color;
 import com.jacoboaks.wandermobile.util.Coord;
 import com.jacoboaks.wandermobile.util.Node;
 import com.jacoboaks.wandermobile.util.Util;
 
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Represent a single area composed of StaticTiles and Entities.
  */
 public class Area {
 
+    //Static Data
+    private static final int BYTES_PER_ENTITY = 256; //rough size of an entity, not counting its model
+
     //Data
     private List<Entity> entities;
-    private List<StaticTile> staticTiles;
+    private TileStore staticTiles; //static tiles packed into parallel arrays
+    private AreaGrid grid; //which cells block movement or are occupied
+    private ActivityScheduler scheduler; //updates the tiles which have something to do
+    private EntityUpdater entityUpdater; //has entities with a behaviour decide and make their moves
     private String name;
     private String filename;
     private Coord spawn;
+    private Map<Character, Tile> key; //tiles placed by symbol when chunks are generated (null if not generated)
+    private ChunkStreamer streamer; //generates chunks around the camera (null if not generated)
+    private FlowField followField; //guides entities which follow the player (null while none do)
+    private FollowFlowBehaviour followBehaviour; //behaviour given to entities which follow followField
+    private int followerCount; //how many entities follow followField
 
     /**
      * Constructs this Area with only a name.
@@ -47,40 +76,221 @@ public class Area {
     public Area(String name, String filename, List<StaticTile> staticTiles, List<Entity> entities, Coord spawn) {
         this.name = name;
         this.filename = filename;
-        this.staticTiles = staticTiles;
+        this.staticTiles = new TileStore(staticTiles);
         this.entities = entities;
         this.spawn = spawn;
+        this.buildGrid();
+        this.buildScheduler();
+    }
+
+    /**
+     * Constructs this Area as one whose tiles are generated chunk by chunk as the camera nears
+     * them. The player spawns at the origin, which the generator always leaves open.
+     * @param name the name of the zone
+     * @param filename the filename of the zone
+     * @param key the tiles to place for each symbol the generator emits
+     * @param generator the generator of the zone's chunks
+     */
+    public Area(String name, String filename, Map<Character, Tile> key, ChunkGenerator generator) {
+        this(name, filename);
+        this.key = key;
+        this.streamer = new ChunkStreamer(generator, this);
+        this.grid.setUnloadedBlocked(true);
     }
 
     //Node Constructor
     public Area(Node node, Font font) {
         this.name = node.getChild("name").getValue();
+        this.filename = node.getChild("filename").getValue();
         this.spawn = new Coord(node.getChild("spawn"));
-        this.staticTiles = new ArrayList<>();
-        for (Node st : node.getChild("statictiles").getChildren()) {
-            this.staticTiles.add(StaticTile.nodeToStaticTile(st, font));
+        List<StaticTile> staticTiles = new ArrayList<>();
+        Node staticTilesNode = node.getChild("statictiles");
+        if (staticTilesNode.hasChildren()) {
+            for (Node st : staticTilesNode.getChildren()) staticTiles.add(StaticTile.nodeToStaticTile(st, font));
         }
+        this.staticTiles = new TileStore(staticTiles);
         this.entities = new ArrayList<>();
-        for (Node e : node.getChild("entities").getChildren()) {
-            this.entities.add(Entity.nodeToEntity(e, font));
+        Node entitiesNode = node.getChild("entities");
+        if (entitiesNode != null && entitiesNode.hasChildren()) {
+            for (Node e : entitiesNode.getChildren()) this.entities.add(Entity.nodeToEntity(e, font));
+        }
+        this.buildGrid();
+        this.buildScheduler();
+
+        //resume generation if generated
+        Node generator = node.getChild("generator");
+        if (generator != null) {
+            this.key = Area.loadKey(node.getChild("key"), font);
+            this.streamer = new ChunkStreamer(new ChunkGenerator(generator), this);
+            this.grid.setUnloadedBlocked(true);
+        }
+        Node explored = node.getChild("explored");
+        if (explored != null) this.grid.loadExplored(explored);
+    }
+
+    /**
+     * Builds this Area's grid from its static tiles and has its entities move across it.
+     */
+    private void buildGrid() {
+        this.grid = new AreaGrid();
+        for (int i = 0; i < this.staticTiles.getCount(); i++) this.addToGrid(i);
+        for (Entity entity : this.entities) {
+            entity.setGrid(this.grid);
+            this.addFollower(entity);
+        }
+    }
+
+    /**
+     * Marks the cell of a stored static tile as blocking movement and sight if the tile does.
+     * @param i the index of the tile in the store
+     */
+    private void addToGrid(int i) {
+        if (this.staticTiles.blocksMovement(i)) {
+            this.grid.setBlocked(this.staticTiles.getGridX(i), this.staticTiles.getGridY(i), true);
+        }
+        if (this.staticTiles.blocksSight(i)) {
+            this.grid.setOpaque(this.staticTiles.getGridX(i), this.staticTiles.getGridY(i), true);
+        }
+    }
+
+    /**
+     * Hands this Area's entities to a new scheduler, so that only those with something to do are
+     * updated, and has those with a behaviour schedule their first decision. Static tiles are updated
+     * by their store.
+     */
+    private void buildScheduler() {
+        this.scheduler = new ActivityScheduler();
+        this.entityUpdater = new EntityUpdater(this.grid, this.scheduler, this.name.hashCode());
+        for (Entity entity : this.entities) {
+            this.scheduler.add(entity);
+            this.entityUpdater.add(entity);
         }
     }
 
     //Update Method
     public void update(float dt) {
-        for (StaticTile staticTile : this.staticTiles) staticTile.update(dt);
-        for (Entity entity : this.entities) entity.update(dt);
+        this.entityUpdater.update(dt);
+        this.staticTiles.update(dt);
+        this.scheduler.update(dt);
+    }
+
+    /**
+     * Generates and unloads chunks around the given position if this Area is generated. Must be
+     * called on the GL thread.
+     * @param gx the grid x to load chunks around
+     * @param gy the grid y to load chunks around
+     */
+    public void stream(int gx, int gy) {
+        if (this.streamer != null) this.streamer.update(gx, gy);
+    }
+
+    /**
+     * Places the tiles of a generated chunk and marks it as loaded in the grid. Tiles which would
+     * block movement are left out of cells something already occupies.
+     * @param cx the chunk x
+     * @param cy the chunk y
+     * @param symbols the symbol of each cell of the chunk, as given by ChunkGenerator.generate()
+     */
+    public void loadChunk(int cx, int cy, char[] symbols) {
+        List<StaticTile> st = new ArrayList<>();
+        List<Entity> e = new ArrayList<>();
+        for (int i = 0; i < symbols.length; i++) {
+            if (symbols[i] == ChunkGenerator.EMPTY) continue;
+            Area.placeTile(this.key, symbols[i], (cx << AreaGrid.CHUNK_SHIFT) | (i & AreaGrid.CHUNK_MASK),
+                    (cy << AreaGrid.CHUNK_SHIFT) | (i >> AreaGrid.CHUNK_SHIFT), st, e);
+        }
+        for (StaticTile staticTile : st) {
+            if (staticTile.blocksMovement() && this.grid.isOccupied(staticTile.getGridX(), staticTile.getGridY())) continue;
+            this.addToGrid(this.staticTiles.add(staticTile));
+        }
+        this.grid.loadChunk(cx, cy);
+        for (Entity entity : e) {
+            if (!this.grid.canEnter(entity.getGridX(), entity.getGridY())) continue; //something already stands there
+            entity.setGrid(this.grid);
+            this.entities.add(entity);
+            this.scheduler.add(entity);
+            this.addFollower(entity);
+            this.entityUpdater.add(entity);
+        }
+    }
+
+    /**
+     * Removes the entities occupying a chunk and its static tiles, then drops the chunk from the
+     * grid.
+     * @param cx the chunk x
+     * @param cy the chunk y
+     */
+    public void unloadChunk(int cx, int cy) {
+        for (int i = this.entities.size() - 1; i >= 0; i--) {
+            Entity entity = this.entities.get(i);
+            if (entity.getCellX() >> AreaGrid.CHUNK_SHIFT != cx || entity.getCellY() >> AreaGrid.CHUNK_SHIFT != cy) continue;
+            this.scheduler.remove(entity);
+            this.removeFollower(entity);
+            entity.setGrid(null);
+            this.entities.remove(i);
+        }
+        this.staticTiles.removeChunk(cx, cy);
+        this.grid.unloadChunk(cx, cy);
+    }
+
+    /**
+     * Has an entity joining this Area follow its follow field if the entity's behaviour is to follow,
+     * creating the field if the entity is the first to.
+     */
+    private void addFollower(Entity entity) {
+        if (!(entity.getBehaviour() instanceof FollowFlowBehaviour)) return;
+        if (this.followField == null) {
+            this.followField = new FlowField(this.grid, true);
+            this.followBehaviour = new FollowFlowBehaviour(this.followField);
+        }
+        entity.setBehaviour(this.followBehaviour);
+        this.followerCount++;
+    }
+
+    /**
+     * Stops counting an entity leaving this Area as a follower, dropping the follow field once
+     * nothing follows it.
+     */
+    private void removeFollower(Entity entity) {
+        if (!(entity.getBehaviour() instanceof FollowFlowBehaviour)) return;
+        if (--this.followerCount > 0) return;
+        this.followField = null;
+        this.followBehaviour = null;
+    }
+
+    /**
+     * Brings the field guiding this Area's followers up to date with the target's cell. Does
+     * nothing while no entity follows, so no field is computed that nothing reads.
+     * @param gx the grid x of the target
+     * @param gy the grid y of the target
+     */
+    public void guideFollowers(int gx, int gy) {
+        if (this.followField != null) this.followField.update(gx, gy);
     }
 
     //Render Method
+    /**
+     * Renders the explored part of this Area. Static tiles which have been explored but can't
+     * currently be seen are dimmed, and entities are only rendered where they can be seen. Anything
+     * unexplored is skipped entirely. Sets the visibility uniform of the given program, which is
+     * left at full visibility afterwards.
+     * @param shaderProgram the shader program to render with
+     */
     public void render(ShaderProgram shaderProgram) {
-        for (StaticTile staticTile : this.staticTiles) staticTile.render(shaderProgram);
-        for (Entity entity : this.entities) entity.render(shaderProgram);
+
+        //render explored static tiles
+        this.staticTiles.render(shaderProgram, this.grid);
+
+        //render visible entities
+        for (Entity entity : this.entities) {
+            if (this.grid.isVisible(entity.getGridX(), entity.getGridY())) entity.render(shaderProgram);
+        }
     }
 
     /**
      * @return the StaticTile (or Entity if there is one) at the given grid position. Will return
-     * null if there is none there
+     * null if there is none there. A returned StaticTile is a copy of the stored tile, so changing it
+     * has no effect on this Area
      */
     public Tile getTile(int gx, int gy) {
 
@@ -89,10 +299,8 @@ public class Area {
         Coord pos;
 
         //search static tiles
-        for (StaticTile st : this.staticTiles) {
-            pos = st.getGridPosition();
-            if ((int)pos.x == gx && (int)pos.y == gy) t = st;
-        }
+        int index = this.staticTiles.find(gx, gy);
+        if (index != -1) t = this.staticTiles.getTile(index);
 
         //search entities
         for (Entity e : this.entities) {
@@ -108,15 +316,57 @@ public class Area {
     public String getName() { return this.name; }
     public String getFilename() { return this.filename; }
     public Coord getSpawn() { return this.spawn; }
+    public AreaGrid getGrid() { return this.grid; }
+    public ActivityScheduler getScheduler() { return this.scheduler; }
+    public TileStore getStaticTiles() { return this.staticTiles; }
+    public EntityUpdater getEntityUpdater() { return this.entityUpdater; }
+    public List<Entity> getEntities() { return this.entities; }
+    public boolean isGenerated() { return this.streamer != null; }
+    public FlowField getFollowField() { return this.followField; }
+
+    /**
+     * @return a rough estimate of the memory this Area takes up, in bytes. Models and textures are
+     * counted once however many tiles share them - entities placed from a key share their
+     * template's, but those loaded from a saved area each have their own
+     */
+    public long getMemoryEstimate() {
+        Set<Object> counted = Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+        long total = this.staticTiles.getMemoryEstimate() + this.grid.getMemoryEstimate()
+                + (long)this.entities.size() * BYTES_PER_ENTITY;
+        for (StaticTile type : this.staticTiles.getTypes()) total += Area.estimateModel(type.getModel(), counted);
+        for (Entity entity : this.entities) total += Area.estimateModel(entity.getModel(), counted);
+        return total;
+    }
+
+    /**
+     * @return the estimated memory of a model and its texture, counting each only if it hasn't been
+     * counted already
+     */
+    private static long estimateModel(Model model, Set<Object> counted) {
+        long bytes = counted.add(model) ? model.getMemoryEstimate() : 0;
+        Texture texture = model.getMaterial().getTexture();
+        if (texture != null && counted.add(texture)) bytes += texture.getMemoryEstimate();
+        return bytes;
+    }
 
     /**
-     * Loads a brand new area from a given resource id
+     * Loads a brand new area from a given resource id. If the area has a precompiled version (see
+     * AreaCompiler), that version is loaded instead to avoid reading and parsing the text format.
+     * AreaCompiler checks at build time that every precompiled area is current; debug builds check
+     * again here and fall back to the source if it isn't.
      * @param resourceID the resource id of the area to load
      * @param font the font to use for symbol tiles
      * @return the loaded area
      */
     public static Area loadArea(int resourceID, Font font) {
 
+        //use precompiled area if there is one
+        int compiledID = Area.findCompiledArea(resourceID);
+        if (compiledID != 0) {
+            Area compiled = Area.loadCompiledArea(compiledID, resourceID, font);
+            if (compiled != null) return compiled;
+        }
+
         //load data and parse load type
         Node areaData = Node.readNode(resourceID);
         String loadTypes = areaData.getChild("loadType").getValue();
@@ -129,19 +379,7 @@ public class Area {
         if (loadTypes.equals("row listing")) {
 
             //load key
-            Node keyNode = areaData.getChild("key");
-            Map<Character, Tile> key = new HashMap<>();
-            for (Node child : keyNode.getChildren()) {
-
-                //check for type of tile and add accordingly
-                if (child.getName().equals("StaticTile")) {
-                    key.put(child.getValue().charAt(0), StaticTile.nodeToStaticTile(child, font));
-                } else if (child.getName().equals("Entity")) {
-                    key.put(child.getValue().charAt(0), Entity.nodeToEntity(child, font));
-                } else if (child.getName().equals("Tile")) {
-                    key.put(child.getValue().charAt(0), Tile.nodeToTile(child, font));
-                }
-            }
+            Map<Character, Tile> key = Area.loadKey(areaData.getChild("key"), font);
 
             //load layout
             boolean moreRows = false;
@@ -155,24 +393,7 @@ public class Area {
                 for (int x = 0; x < row.length(); x++) {
 
                     //ignore spaces
-                    if (row.charAt(x) != ' ') {
-                        Tile matchingTile = key.get(row.charAt(x));
-                        if (matchingTile == null) { //check if null
-                            if (Util.DEBUG) Log.i(Util.getLogTag("Area.java", "loadArea(int, Font)"),
-                                    "invalid character in map (not defined in key): " + row.charAt(x));
-
-                        //copy and add tile if not
-                        } else {
-                            matchingTile.setGridPosition(x, -(y - 1));
-                            if (matchingTile instanceof StaticTile) {
-                                st.add(new StaticTile((StaticTile)matchingTile));
-                            } else if (matchingTile instanceof Entity) {
-                                e.add(new Entity((Entity)matchingTile));
-                            } else { //all normal tiles are treated as StaticTiles with a maneuverability of 0
-                                st.add(new StaticTile(matchingTile, 0));
-                            }
-                        }
-                    }
+                    if (row.charAt(x) != ' ') Area.placeTile(key, row.charAt(x), x, -(y - 1), st, e);
                 }
 
                 //check if there is another row
@@ -182,12 +403,26 @@ public class Area {
 
         } else if (loadTypes.equals("tile listing")) {
 
-            //TODO: implement tile listing area loading
+            //load key and place each listed tile
+            Map<Character, Tile> key = Area.loadKey(areaData.getChild("key"), font);
+            Node tiles = areaData.getChild("tiles");
+            if (tiles != null && tiles.hasChildren()) {
+                for (Node tile : tiles.getChildren()) {
+                    String[] values = tile.getValue().split(" ");
+                    Area.placeTile(key, values[0].charAt(0), Integer.parseInt(values[1]),
+                            Integer.parseInt(values[2]), st, e);
+                }
+            }
+
+        //generated areas place their tiles chunk by chunk later on
+        } else if (loadTypes.equals("generated")) {
+            return new Area(areaData.getChild("name").getValue(), areaData.getChild("filename").getValue(),
+                    Area.loadKey(areaData.getChild("key"), font), new ChunkGenerator(areaData.getChild("generator")));
 
         //invalid load type given
         } else {
             throw Util.fatalError("Area.java", "loadArea(int)", "Unable to" +
-                    "load area with loadType: " + loadTypes + ". Options are: 'row listing' or 'tile listing'");
+                    "load area with loadType: " + loadTypes + ". Options are: 'row listing', 'tile listing' or 'generated'");
         }
 
         //get spawn
@@ -202,23 +437,241 @@ public class Area {
         return new Area(areaData.getChild("name").getValue(), areaData.getChild("filename").getValue(), st, e, spawn);
     }
 
+    /**
+     * Loads the key of an area, which maps each symbol used in the area's layout to the tile it
+     * represents.
+     * @param keyNode the key node of the area
+     * @param font the font to use for symbol tiles
+     * @return the map of symbols to tiles
+     */
+    private static Map<Character, Tile> loadKey(Node keyNode, Font font) {
+        Map<Character, Tile> key = new HashMap<>();
+        for (Node child : keyNode.getChildren()) {
+
+            //check for type of tile and add accordingly
+            if (child.getName().equals("StaticTile")) {
+                key.put(child.getValue().charAt(0), StaticTile.nodeToStaticTile(child, font));
+            } else if (child.getName().equals("Entity")) {
+                key.put(child.getValue().charAt(0), Entity.nodeToEntity(child, font));
+            } else if (child.getName().equals("Tile")) {
+                key.put(child.getValue().charAt(0), Tile.nodeToTile(child, font));
+            }
+        }
+        return key;
+    }
+
+    /**
+     * Places a copy of the tile represented by the given symbol at the given grid position.
+     * @param key the key of the area being loaded
+     * @param symbol the symbol of the tile to place
+     * @param gx the grid x to place the tile at
+     * @param gy the grid y to place the tile at
+     * @param st the list of static tiles to add static tiles to
+     * @param e the list of entities to add entities to
+     */
+    private static void placeTile(Map<Character, Tile> key, char symbol, int gx, int gy, List<StaticTile> st,
+                                  List<Entity> e) {
+
+        //check if symbol is defined
+        Tile matchingTile = key.get(symbol);
+        if (matchingTile == null) {
+            if (Util.DEBUG) Log.i(Util.getLogTag("Area.java", "placeTile(Map, char, int, int, List, List)"),
+                    "invalid character in map (not defined in key): " + symbol);
+            return;
+        }
+
+        //copy and add tile
+        matchingTile.setGridPosition(gx, gy);
+        if (matchingTile instanceof StaticTile) {
+            st.add(new StaticTile((StaticTile)matchingTile));
+        } else if (matchingTile instanceof Entity) {
+            e.add(new Entity((Entity)matchingTile));
+        } else { //all normal tiles are treated as StaticTiles with a maneuverability of 0
+            st.add(new StaticTile(matchingTile, 0));
+        }
+    }
+
+    /**
+     * Finds the precompiled version of an area resource. Precompiled areas are named after their
+     * source with the 'area_' prefix replaced by AreaCompiler.COMPILED_PREFIX.
+     * @param resourceID the resource id of the area's source
+     * @return the resource id of the precompiled area, or 0 if there is none
+     */
+    private static int findCompiledArea(int resourceID) {
+        Resources resources = MainActivity.getAppResources();
+        String name = resources.getResourceEntryName(resourceID);
+        if (!name.startsWith(AreaCompiler.SOURCE_PREFIX)) return 0;
+        return resources.getIdentifier(AreaCompiler.COMPILED_PREFIX + name.substring(AreaCompiler.SOURCE_PREFIX.length()),
+                "raw", resources.getResourcePackageName(resourceID));
+    }
+
+    /**
+     * Hashes the source of an area in the same way AreaCompiler does.
+     * @param resourceID the resource id of the area's source
+     * @return the hash of the source
+     */
+    private static long hashSource(int resourceID) {
+        InputStream in = MainActivity.getAppResources().openRawResource(resourceID);
+        try {
+            return AreaCompiler.hash(in);
+        } catch (IOException ex) {
+            throw Util.fatalError("Area.java", "hashSource(int)", ex.getMessage());
+        } finally {
+            try {
+                in.close();
+            } catch (IOException ex) {
+                if (Util.DEBUG) Log.i(Util.getLogTag("Area.java", "hashSource(int)"),
+                        "unable to close InputStream");
+            }
+        }
+    }
+
+    /**
+     * Loads an area that was precompiled by AreaCompiler. No text is parsed: the tile types are
+     * read from a table and then copied into place by walking the packed grid. The source is only
+     * read in debug builds, to check that the area was compiled from its current version.
+     * @param resourceID the resource id of the precompiled area
+     * @param sourceID the resource id of the area's source
+     * @param font the font to use for symbol tiles
+     * @return the loaded area, or null if it was compiled by a different version of AreaCompiler or
+     * (in debug builds) from a different version of the source
+     */
+    public static Area loadCompiledArea(int resourceID, int sourceID, Font font) {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(
+                MainActivity.getAppResources().openRawResource(resourceID)));
+        try {
+
+            //check header
+            if (in.readInt() != AreaCompiler.MAGIC) throw new IOException("not a compiled area");
+            if (in.readShort() != AreaCompiler.VERSION) {
+                if (Util.DEBUG) Log.i(Util.getLogTag("Area.java", "loadCompiledArea(int, int, Font)"),
+                        "compiled area is from another version of AreaCompiler - loading source instead");
+                return null;
+            }
+            long sourceHash = in.readLong();
+            if (Util.DEBUG && sourceHash != Area.hashSource(sourceID)) {
+                Log.i(Util.getLogTag("Area.java", "loadCompiledArea(int, int, Font)"),
+                        "compiled area is out of date with its source - loading source instead");
+                return null;
+            }
+
+            //read area info
+            String name = in.readUTF();
+            String filename = in.readUTF();
+            Coord spawn = new Coord(in.readInt(), in.readInt());
+
+            //read tile type table
+            Tile[] types = new Tile[in.readShort()];
+            for (int i = 0; i < types.length; i++) types[i] = Area.readCompiledTileType(in, font);
+
+            //read grid of static tiles
+            int originX = in.readInt(), originY = in.readInt();
+            int width = in.readInt(), height = in.readInt();
+            List<StaticTile> st = new ArrayList<>();
+            for (int row = 0; row < height; row++) {
+                for (int column = 0; column < width; column++) {
+                    int type = in.readShort();
+                    if (type != 0) {
+                        StaticTile template = (StaticTile)types[type - 1];
+                        template.setGridPosition(originX + column, originY - row);
+                        st.add(new StaticTile(template));
+                    }
+                }
+            }
+
+            //read entities
+            int entityCount = in.readInt();
+            List<Entity> e = new ArrayList<>(entityCount);
+            for (int i = 0; i < entityCount; i++) {
+                Entity template = (Entity)types[in.readShort()];
+                template.setGridPosition(in.readInt(), in.readInt());
+                e.add(new Entity(template));
+            }
+
+            //create and return area
+            return new Area(name, filename, st, e, spawn);
+
+            //catch errors
+        } catch (Exception ex) {
+            throw Util.fatalError("Area.java", "loadCompiledArea(int, int, Font)", ex.getMessage());
+        } finally {
+            try {
+                in.close();
+            } catch (IOException ex) {
+                if (Util.DEBUG) Log.i(Util.getLogTag("Area.java", "loadCompiledArea(int, int, Font)"),
+                        "unable to close InputStream");
+            }
+        }
+    }
+
+    /**
+     * Reads a single entry of a precompiled area's tile type table.
+     * @param in the stream to read from
+     * @param font the font to use for symbol tiles
+     * @return the template tile for the entry
+     */
+    private static Tile readCompiledTileType(DataInputStream in, Font font) throws IOException {
+
+        //read common info
+        byte kind = in.readByte();
+        String name = in.readUTF();
+        boolean symbolTile = in.readBoolean();
+        char symbol = 0;
+        Color color = null;
+        Texture texture = null;
+        if (symbolTile) {
+            symbol = in.readChar();
+            color = new Color(in.readFloat(), in.readFloat(), in.readFloat(), in.readFloat());
+        } else texture = new Texture(in.readInt());
+
+        //create tile of appropriate kind
+        if (kind == AreaCompiler.KIND_ENTITY) {
+            Entity entity = symbolTile ? new Entity(name, font, symbol, color, 0, 0) : new Entity(name, texture, 0, 0);
+            int health = in.readInt(), maxHealth = in.readInt(), level = in.readInt();
+            entity.setEntityInto(health, maxHealth, level);
+            int behaviourFields = in.readShort();
+            if (behaviourFields > 0) {
+                Node behaviour = new Node("behaviour");
+                for (int i = 0; i < behaviourFields; i++) behaviour.addChild(in.readUTF(), in.readUTF());
+                entity.setBehaviour(Entity.nodeToBehaviour(behaviour));
+            }
+            return entity;
+        }
+        int maneuverability = in.readInt();
+        StaticTile staticTile = symbolTile ? new StaticTile(name, font, symbol, color, 0, 0, maneuverability)
+                : new StaticTile(name, texture, 0, 0, maneuverability);
+        staticTile.setBlocksSight(in.readBoolean());
+        return staticTile;
+    }
+
     //Node Converter
     public Node toNode() {
         Node node = new Node("area");
         node.addChild("name", this.name);
         node.addChild("filename", this.filename);
-        Node layout = new Node("statictiles");
-        for (StaticTile t : this.staticTiles) {
-            layout.addChild(t.toNode());
-        }
-        node.addChild(layout);
         Node entities = new Node("entities");
-        for (Entity e : this.entities) {
-            entities.addChild(e.toNode());
+        if (this.streamer == null) {
+            node.addChild(this.staticTiles.toNode());
+            for (Entity e : this.entities) {
+                entities.addChild(e.toNode());
+            }
+        } else { //generated areas save how to generate them rather than their tiles
+            node.addChild(new Node("statictiles"));
+            node.addChild(this.streamer.getGenerator().toNode());
+            Node key = new Node("key");
+            for (Map.Entry<Character, Tile> entry : this.key.entrySet()) {
+                Node tile = entry.getValue().toNode();
+                if (!(entry.getValue() instanceof StaticTile || entry.getValue() instanceof Entity)) tile.setName("Tile");
+                tile.setValue(Character.toString(entry.getKey()));
+                key.addChild(tile);
+            }
+            node.addChild(key);
         }
+        node.addChild(entities);
         Node spawn = this.spawn.toNode();
         spawn.setName("spawn");
         node.addChild(spawn);
+        node.addChild(this.grid.exploredToNode());
         return node;
     }
 }
@@ -0,0 +1,602 @@
+package com.jacoboaks.wandermobile.game;
+
+import com.jacoboaks.wandermobile.game.gameitem.Tile;
+import com.jacoboaks.wandermobile.util.Node;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Holds per-cell information about an Area's grid as bits in fixed size square chunks, so that
+ * questions such as whether a cell can be walked through are answered without searching the Area's
+ * tiles. Layers are kept for which cells block movement because of their StaticTile, which cells
+ * are occupied by Tiles moving across the grid (such as entities, counted per cell so that Tiles
+ * sharing a cell don't free it for each other, and listed per chunk so that the Tiles in a chunk
+ * can be found without searching the Area), which cells block sight, and
+ * which cells the player has explored and can currently see. Only chunks which contain
+ * something are created. Chunks are found through a dense array
+ * covering the bounds of all chunks, so looking a cell up never allocates. Chunks created only
+ * to record what the player has seen are left out of the bounds given to pathfinding and don't
+ * change this grid's version. A grid may have chunks loaded and unloaded as its Area streams them
+ * (see setUnloadedBlocked()). Unloaded chunks are dropped, keeping only which of their cells were
+ * explored, so the grid stays the size of what is loaded however far the player travels. A
+ * Listener may be set to be told which cells change.
+ */
+public class AreaGrid {
+
+    //Static Data
+    public static final int CHUNK_SHIFT = 4;
+    public static final int CHUNK_SIZE = 1 << CHUNK_SHIFT; //cells along each side of a chunk
+    public static final int CHUNK_MASK = CHUNK_SIZE - 1;
+    public static final int WORDS_PER_LAYER = CHUNK_SIZE * CHUNK_SIZE / 64; //longs holding one bit per cell of a chunk
+    private static final int BYTES_PER_CHUNK = 5 * (WORDS_PER_LAYER * 8 + 16) + CHUNK_SIZE * CHUNK_SIZE + 56; //rough size of a chunk with its layers
+    private static final int BYTES_PER_UNLOADED_CHUNK = WORDS_PER_LAYER * 8 + 16 + 64; //rough size of an unloaded chunk's explored bits and map entry
+
+    //Data
+    private Chunk[] lookup; //chunks by chunk position relative to the chunk bounds (null if not created)
+    private List<Chunk> chunks; //every created chunk
+    private int lookupMinX, lookupMinY, lookupWidth, lookupHeight; //bounds of the lookup array in chunks
+    private int chunkMinX, chunkMinY, chunkWidth, chunkHeight; //bounds of the chunks holding passability in chunks
+    private int version; //incremented whenever passability changes
+    private int sightVersion; //incremented whenever which cells block sight changes
+    private boolean unloadedBlocked; //whether cells of chunks which aren't loaded block movement and sight
+    private Map<Long, long[]> unloadedExplored; //explored bits of unloaded chunks by chunk key
+    private Listener listener; //told about changed cells (null if nothing is listening)
+
+    /**
+     * Constructs this AreaGrid with no chunks.
+     */
+    public AreaGrid() {
+        this.lookup = new Chunk[0];
+        this.chunks = new ArrayList<>();
+        this.unloadedExplored = new HashMap<>();
+        this.lookupWidth = this.lookupHeight = 0;
+        this.chunkWidth = this.chunkHeight = 0;
+        this.version = this.sightVersion = 0;
+    }
+
+    /**
+     * @return whether the cell at the given grid position blocks movement. Cells without a chunk
+     * are open, unless unloaded cells are blocked
+     */
+    public boolean isBlocked(int gx, int gy) {
+        Chunk chunk = this.getChunkAt(gx, gy);
+        if (this.isUnloaded(chunk)) return true;
+        return chunk != null && chunk.get(chunk.blocked, gx, gy);
+    }
+
+    /**
+     * Sets whether the cell at the given grid position blocks movement.
+     * @param gx the grid x of the cell
+     * @param gy the grid y of the cell
+     * @param blocked whether the cell blocks movement
+     */
+    public void setBlocked(int gx, int gy, boolean blocked) {
+        Chunk chunk = blocked ? this.getOrCreateChunkAt(gx, gy) : this.getChunkAt(gx, gy);
+        if (chunk != null && chunk.set(chunk.blocked, gx, gy, blocked)) {
+            chunk.version = ++this.version;
+            if (this.listener != null) this.listener.cellChanged(gx, gy);
+        }
+    }
+
+    /**
+     * @return whether the cell at the given grid position blocks sight
+     */
+    public boolean isOpaque(int gx, int gy) {
+        Chunk chunk = this.getChunkAt(gx, gy);
+        if (this.isUnloaded(chunk)) return true;
+        return chunk != null && chunk.get(chunk.opaque, gx, gy);
+    }
+
+    /**
+     * Sets whether the cell at the given grid position blocks sight.
+     * @param gx the grid x of the cell
+     * @param gy the grid y of the cell
+     * @param opaque whether the cell blocks sight
+     */
+    public void setOpaque(int gx, int gy, boolean opaque) {
+        Chunk chunk = opaque ? this.getOrCreateChunkAt(gx, gy) : this.getChunkAt(gx, gy);
+        if (chunk != null && chunk.set(chunk.opaque, gx, gy, opaque)) {
+            this.sightVersion++;
+            if (this.listener != null) this.listener.cellChanged(gx, gy);
+        }
+    }
+
+    /**
+     * Marks a chunk as loaded once the tiles in it have been added, so that its cells can be
+     * entered and seen through even if unloaded cells are blocked.
+     * @param cx the chunk x
+     * @param cy the chunk y
+     */
+    public void loadChunk(int cx, int cy) {
+        Chunk chunk = this.getOrCreateChunkAt(cx << CHUNK_SHIFT, cy << CHUNK_SHIFT);
+        chunk.loaded = true;
+        chunk.version = ++this.version;
+        this.sightVersion++;
+        this.chunkChanged(chunk);
+    }
+
+    /**
+     * Drops a chunk once the tiles in it have been removed, keeping only which of its cells have
+     * been explored. The bounds shrink if the chunk was at their edge. Anything still occupying the
+     * chunk should be removed first.
+     * @param cx the chunk x
+     * @param cy the chunk y
+     */
+    public void unloadChunk(int cx, int cy) {
+        Chunk chunk = this.getChunk(cx, cy);
+        if (chunk == null) return;
+
+        //keep explored bits
+        long any = 0;
+        for (long word : chunk.explored) any |= word;
+        if (any != 0) this.unloadedExplored.put(AreaGrid.chunkKey(cx, cy), chunk.explored.clone());
+
+        //drop chunk and shrink bounds
+        this.lookup[(cy - this.lookupMinY) * this.lookupWidth + (cx - this.lookupMinX)] = null;
+        this.chunks.remove(chunk);
+        this.fitBounds();
+        this.version++;
+        this.sightVersion++;
+        this.chunkChanged(chunk);
+    }
+
+    /**
+     * @return whether the player has ever seen the cell at the given grid position
+     */
+    public boolean isExplored(int gx, int gy) {
+        Chunk chunk = this.getChunkAt(gx, gy);
+        if (chunk != null) return chunk.get(chunk.explored, gx, gy);
+        if (this.unloadedExplored.isEmpty()) return false;
+        long[] explored = this.unloadedExplored.get(AreaGrid.chunkKey(gx >> CHUNK_SHIFT, gy >> CHUNK_SHIFT));
+        int i = Chunk.index(gx, gy);
+        return explored != null && (explored[i >> 6] & (1L << i)) != 0;
+    }
+
+    /**
+     * @return whether the player can currently see the cell at the given grid position
+     */
+    public boolean isVisible(int gx, int gy) {
+        Chunk chunk = this.getChunkAt(gx, gy);
+        return chunk != null && chunk.get(chunk.visible, gx, gy);
+    }
+
+    /**
+     * Copies which cells of a chunk block movement, so that many cells of the same chunk can be
+     * checked without looking the chunk up for each.
+     * @param cx the chunk x
+     * @param cy the chunk y
+     * @param out the array of at least WORDS_PER_LAYER longs to copy into. Bit i is set if the cell
+     * at (i & CHUNK_MASK, i >> CHUNK_SHIFT) within the chunk blocks movement. If the chunk isn't
+     * loaded and unloaded cells are blocked, every bit is set. Otherwise, if there is no chunk at the
+     * given position, every bit is cleared
+     */
+    public void getBlockedBits(int cx, int cy, long[] out) {
+        Chunk chunk = this.getChunk(cx, cy);
+        if (this.isUnloaded(chunk)) Arrays.fill(out, 0, WORDS_PER_LAYER, -1L);
+        else if (chunk == null) Arrays.fill(out, 0, WORDS_PER_LAYER, 0L);
+        else System.arraycopy(chunk.blocked, 0, out, 0, WORDS_PER_LAYER);
+    }
+
+    /**
+     * @return whether the cell at the given grid position is occupied by a Tile that moves across
+     * this grid
+     */
+    public boolean isOccupied(int gx, int gy) {
+        Chunk chunk = this.getChunkAt(gx, gy);
+        return chunk != null && chunk.get(chunk.occupied, gx, gy);
+    }
+
+    /**
+     * Adds an occupant to the cell at the given grid position. Each cell counts its occupants, so a
+     * cell shared by two Tiles stays occupied until both have left it. Occupancy changes constantly
+     * as entities move, so it only changes this grid's version if the bounds have to grow for it.
+     * @param tile the occupant
+     * @param gx the grid x of the cell
+     * @param gy the grid y of the cell
+     */
+    public void addOccupant(Tile tile, int gx, int gy) {
+        Chunk chunk = this.getOrCreateChunkAt(gx, gy);
+        chunk.addOccupant(tile);
+        int i = Chunk.index(gx, gy);
+        if (chunk.occupants[i]++ == 0 && chunk.set(chunk.occupied, gx, gy, true) && this.listener != null) {
+            this.listener.cellChanged(gx, gy);
+        }
+    }
+
+    /**
+     * Removes an occupant from the cell at the given grid position. The cell is only free once its
+     * last occupant has been removed.
+     * @param tile the occupant
+     * @param gx the grid x of the cell
+     * @param gy the grid y of the cell
+     */
+    public void removeOccupant(Tile tile, int gx, int gy) {
+        Chunk chunk = this.getChunkAt(gx, gy);
+        if (chunk == null) return;
+        chunk.removeOccupant(tile);
+        int i = Chunk.index(gx, gy);
+        if (chunk.occupants[i] == 0) return;
+        if (--chunk.occupants[i] == 0 && chunk.set(chunk.occupied, gx, gy, false) && this.listener != null) {
+            this.listener.cellChanged(gx, gy);
+        }
+    }
+
+    /**
+     * Tells the listener that many cells of a chunk may have changed at once, as when what the
+     * player can see of it is recomputed.
+     * @param chunk the chunk which changed
+     */
+    void chunkChanged(Chunk chunk) {
+        if (this.listener != null) this.listener.chunkChanged(chunk);
+    }
+
+    /**
+     * @return whether a Tile can move into the cell at the given grid position - that is, whether
+     * it neither blocks movement nor is occupied
+     */
+    public boolean canEnter(int gx, int gy) {
+        Chunk chunk = this.getChunkAt(gx, gy);
+        if (this.isUnloaded(chunk)) return false;
+        return chunk == null || !(chunk.get(chunk.blocked, gx, gy) || chunk.get(chunk.occupied, gx, gy));
+    }
+
+    /**
+     * @return whether the given chunk (null if there is none) counts as unloaded and so blocks
+     * movement and sight
+     */
+    boolean isUnloaded(Chunk chunk) {
+        return this.unloadedBlocked && (chunk == null || !chunk.loaded);
+    }
+
+    /**
+     * @return the chunk containing the given grid position, or null if there is none
+     */
+    public Chunk getChunkAt(int gx, int gy) {
+        return this.getChunk(gx >> CHUNK_SHIFT, gy >> CHUNK_SHIFT);
+    }
+
+    /**
+     * @return the chunk at the given chunk position, or null if there is none
+     */
+    public Chunk getChunk(int cx, int cy) {
+        int lx = cx - this.lookupMinX, ly = cy - this.lookupMinY;
+        if (lx < 0 || ly < 0 || lx >= this.lookupWidth || ly >= this.lookupHeight) return null;
+        return this.lookup[ly * this.lookupWidth + lx];
+    }
+
+    /**
+     * @return the chunk containing the given grid position, creating it if there is none. The chunk
+     * is included in the bounds given to pathfinding
+     */
+    public Chunk getOrCreateChunkAt(int gx, int gy) {
+        Chunk chunk = this.getOrCreateSightChunkAt(gx, gy);
+        if (!chunk.passable) this.addPassability(chunk);
+        return chunk;
+    }
+
+    /**
+     * Finds the chunk containing the given grid position, creating it if there is none, for
+     * recording what the player has seen. A chunk created this way only holds which cells have been
+     * explored or are visible, so it is left out of the bounds given to pathfinding and doesn't
+     * change this grid's version.
+     * @return the chunk containing the given grid position
+     */
+    Chunk getOrCreateSightChunkAt(int gx, int gy) {
+        int cx = gx >> CHUNK_SHIFT, cy = gy >> CHUNK_SHIFT;
+        Chunk chunk = this.getChunk(cx, cy);
+        if (chunk == null) {
+            chunk = new Chunk(cx, cy);
+            long[] explored = this.unloadedExplored.isEmpty() ? null
+                    : this.unloadedExplored.remove(AreaGrid.chunkKey(cx, cy));
+            if (explored != null) System.arraycopy(explored, 0, chunk.explored, 0, WORDS_PER_LAYER);
+            this.addChunk(chunk);
+        }
+        return chunk;
+    }
+
+    /**
+     * Adds a chunk, growing the lookup array to include it.
+     * @param chunk the chunk to add - there must not already be a chunk at its position
+     */
+    private void addChunk(Chunk chunk) {
+
+        //grow lookup array if chunk is out of bounds
+        if (this.lookupWidth == 0) {
+            this.lookupMinX = chunk.cx;
+            this.lookupMinY = chunk.cy;
+            this.lookupWidth = this.lookupHeight = 1;
+            this.lookup = new Chunk[1];
+        } else if (chunk.cx < this.lookupMinX || chunk.cy < this.lookupMinY
+                || chunk.cx >= this.lookupMinX + this.lookupWidth || chunk.cy >= this.lookupMinY + this.lookupHeight) {
+            int minX = Math.min(this.lookupMinX, chunk.cx), minY = Math.min(this.lookupMinY, chunk.cy);
+            int width = Math.max(this.lookupMinX + this.lookupWidth, chunk.cx + 1) - minX;
+            int height = Math.max(this.lookupMinY + this.lookupHeight, chunk.cy + 1) - minY;
+            Chunk[] lookup = new Chunk[width * height];
+            for (Chunk c : this.chunks) lookup[(c.cy - minY) * width + (c.cx - minX)] = c;
+            this.lookup = lookup;
+            this.lookupMinX = minX;
+            this.lookupMinY = minY;
+            this.lookupWidth = width;
+            this.lookupHeight = height;
+        }
+
+        //add chunk
+        this.lookup[(chunk.cy - this.lookupMinY) * this.lookupWidth + (chunk.cx - this.lookupMinX)] = chunk;
+        this.chunks.add(chunk);
+    }
+
+    /**
+     * Shrinks the lookup array and the bounds given to pathfinding to fit the remaining chunks.
+     */
+    private void fitBounds() {
+
+        //find bounds of every chunk and of those holding passability
+        int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE, maxX = Integer.MIN_VALUE, maxY = Integer.MIN_VALUE;
+        int pMinX = Integer.MAX_VALUE, pMinY = Integer.MAX_VALUE, pMaxX = Integer.MIN_VALUE, pMaxY = Integer.MIN_VALUE;
+        for (Chunk chunk : this.chunks) {
+            minX = Math.min(minX, chunk.cx);
+            minY = Math.min(minY, chunk.cy);
+            maxX = Math.max(maxX, chunk.cx);
+            maxY = Math.max(maxY, chunk.cy);
+            if (!chunk.passable) continue;
+            pMinX = Math.min(pMinX, chunk.cx);
+            pMinY = Math.min(pMinY, chunk.cy);
+            pMaxX = Math.max(pMaxX, chunk.cx);
+            pMaxY = Math.max(pMaxY, chunk.cy);
+        }
+
+        //rebuild lookup array if it shrank
+        if (this.chunks.isEmpty()) {
+            this.lookup = new Chunk[0];
+            this.lookupWidth = this.lookupHeight = 0;
+        } else if (minX != this.lookupMinX || minY != this.lookupMinY || maxX - minX + 1 != this.lookupWidth
+                || maxY - minY + 1 != this.lookupHeight) {
+            this.lookupMinX = minX;
+            this.lookupMinY = minY;
+            this.lookupWidth = maxX - minX + 1;
+            this.lookupHeight = maxY - minY + 1;
+            this.lookup = new Chunk[this.lookupWidth * this.lookupHeight];
+            for (Chunk c : this.chunks) this.lookup[(c.cy - minY) * this.lookupWidth + (c.cx - minX)] = c;
+        }
+
+        //set bounds given to pathfinding
+        if (pMaxX < pMinX) {
+            this.chunkWidth = this.chunkHeight = 0;
+        } else {
+            this.chunkMinX = pMinX;
+            this.chunkMinY = pMinY;
+            this.chunkWidth = pMaxX - pMinX + 1;
+            this.chunkHeight = pMaxY - pMinY + 1;
+        }
+    }
+
+    /**
+     * @return a key identifying the chunk at the given chunk position
+     */
+    private static long chunkKey(int cx, int cy) {
+        return ((long)cx << 32) | (cy & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Marks a chunk as holding passability, growing the bounds given to pathfinding to include it.
+     * This grid's version only changes if the bounds do.
+     * @param chunk the chunk to mark
+     */
+    private void addPassability(Chunk chunk) {
+        chunk.passable = true;
+        if (this.chunkWidth == 0) {
+            this.chunkMinX = chunk.cx;
+            this.chunkMinY = chunk.cy;
+            this.chunkWidth = this.chunkHeight = 1;
+            this.version++;
+        } else if (chunk.cx < this.chunkMinX || chunk.cy < this.chunkMinY
+                || chunk.cx >= this.chunkMinX + this.chunkWidth || chunk.cy >= this.chunkMinY + this.chunkHeight) {
+            int minX = Math.min(this.chunkMinX, chunk.cx), minY = Math.min(this.chunkMinY, chunk.cy);
+            this.chunkWidth = Math.max(this.chunkMinX + this.chunkWidth, chunk.cx + 1) - minX;
+            this.chunkHeight = Math.max(this.chunkMinY + this.chunkHeight, chunk.cy + 1) - minY;
+            this.chunkMinX = minX;
+            this.chunkMinY = minY;
+            this.version++;
+        }
+    }
+
+    //Node Converter
+    /**
+     * @return a node holding which cells have been explored, loaded or not, with one child for each
+     * chunk that has any explored cells holding its chunk position followed by its explored bits
+     */
+    public Node exploredToNode() {
+        Node node = new Node("explored");
+        for (Chunk chunk : this.chunks) {
+            long any = 0;
+            for (long word : chunk.explored) any |= word;
+            if (any != 0) node.addChild(AreaGrid.exploredToNode(chunk.cx, chunk.cy, chunk.explored));
+        }
+        for (Map.Entry<Long, long[]> entry : this.unloadedExplored.entrySet()) {
+            long key = entry.getKey();
+            node.addChild(AreaGrid.exploredToNode((int)(key >> 32), (int)key, entry.getValue()));
+        }
+        return node;
+    }
+
+    /**
+     * @return a node holding the explored bits of one chunk
+     */
+    private static Node exploredToNode(int cx, int cy, long[] explored) {
+        StringBuilder value = new StringBuilder().append(cx).append(' ').append(cy);
+        for (long word : explored) value.append(' ').append(word);
+        return new Node("chunk", value.toString());
+    }
+
+    /**
+     * Marks the cells recorded in a node made by exploredToNode() as explored. If unloaded cells are
+     * blocked, the bits of chunks which aren't present are kept aside until their chunk is loaded.
+     * @param node the node to read
+     */
+    public void loadExplored(Node node) {
+        if (!node.hasChildren()) return;
+        for (Node child : node.getChildren()) {
+            String[] values = child.getValue().split(" ");
+            int cx = Integer.parseInt(values[0]), cy = Integer.parseInt(values[1]);
+            long[] explored = new long[WORDS_PER_LAYER];
+            for (int i = 0; i < WORDS_PER_LAYER; i++) explored[i] = Long.parseLong(values[i + 2]);
+            Chunk chunk = this.unloadedBlocked ? this.getChunk(cx, cy)
+                    : this.getOrCreateSightChunkAt(cx << CHUNK_SHIFT, cy << CHUNK_SHIFT);
+            if (chunk == null) {
+                this.unloadedExplored.put(AreaGrid.chunkKey(cx, cy), explored);
+                continue;
+            }
+            for (int i = 0; i < WORDS_PER_LAYER; i++) chunk.explored[i] |= explored[i];
+            this.chunkChanged(chunk);
+        }
+    }
+
+    //Accessors
+    public int getVersion() { return this.version; }
+    public int getSightVersion() { return this.sightVersion; }
+    public long getMemoryEstimate() {
+        return (long)this.chunks.size() * BYTES_PER_CHUNK + this.lookup.length * 4L
+                + (long)this.unloadedExplored.size() * BYTES_PER_UNLOADED_CHUNK;
+    }
+    public List<Chunk> getChunks() { return this.chunks; }
+    public int getMinX() { return this.chunkMinX << CHUNK_SHIFT; }
+    public int getMinY() { return this.chunkMinY << CHUNK_SHIFT; }
+    public int getWidth() { return this.chunkWidth << CHUNK_SHIFT; }
+    public int getHeight() { return this.chunkHeight << CHUNK_SHIFT; }
+
+    //Mutators
+    public void setListener(Listener listener) { this.listener = listener; }
+
+    /**
+     * Sets whether cells of chunks which haven't been loaded with loadChunk() block movement and
+     * sight, as in an Area whose chunks are generated as the player nears them.
+     * @param unloadedBlocked whether unloaded cells are blocked
+     */
+    public void setUnloadedBlocked(boolean unloadedBlocked) {
+        this.unloadedBlocked = unloadedBlocked;
+        this.version++;
+        this.sightVersion++;
+    }
+
+    /**
+     * Told about cells of an AreaGrid whose contents change, so that something drawn from the grid
+     * can be kept up to date without checking every cell each frame.
+     */
+    public interface Listener {
+
+        /**
+         * Called when whether a cell blocks movement, blocks sight or is occupied changes.
+         * @param gx the grid x of the cell
+         * @param gy the grid y of the cell
+         */
+        void cellChanged(int gx, int gy);
+
+        /**
+         * Called when any of the cells of a chunk may have changed, including which of them have
+         * been explored or can be seen.
+         * @param chunk the chunk which changed
+         */
+        void chunkChanged(Chunk chunk);
+    }
+
+    /**
+     * Holds the bits of each layer for one square of the grid.
+     */
+    public static class Chunk {
+
+        //Data
+        public final int cx, cy; //position of this chunk in chunks
+        final long[] blocked; //cells which block movement
+        final long[] occupied; //cells occupied by a moving Tile
+        final byte[] occupants; //how many moving Tiles occupy each cell
+        private Tile[] occupantTiles; //the moving Tiles occupying cells of this chunk (null until one does)
+        private int occupantCount; //how many moving Tiles occupy cells of this chunk
+        final long[] opaque; //cells which block sight
+        final long[] explored; //cells the player has ever seen
+        final long[] visible; //cells the player can currently see
+        int visibleStamp; //the field of view pass which last made a cell of this chunk visible
+        boolean passable; //whether this chunk holds passability, rather than only what the player has seen
+        boolean loaded; //whether the tiles of this chunk have been loaded (see AreaGrid.loadChunk())
+        private int version; //the grid's version when passability within this chunk last changed
+
+        /**
+         * Constructs this Chunk with every cell clear.
+         * @param cx the chunk x
+         * @param cy the chunk y
+         */
+        Chunk(int cx, int cy) {
+            this.cx = cx;
+            this.cy = cy;
+            this.blocked = new long[WORDS_PER_LAYER];
+            this.occupied = new long[WORDS_PER_LAYER];
+            this.occupants = new byte[CHUNK_SIZE * CHUNK_SIZE];
+            this.opaque = new long[WORDS_PER_LAYER];
+            this.explored = new long[WORDS_PER_LAYER];
+            this.visible = new long[WORDS_PER_LAYER];
+        }
+
+        /**
+         * @return the index within a chunk of the cell at the given grid position
+         */
+        static int index(int gx, int gy) {
+            return ((gy & CHUNK_MASK) << CHUNK_SHIFT) | (gx & CHUNK_MASK);
+        }
+
+        /**
+         * @return the bit of the given layer for the cell at the given grid position
+         */
+        boolean get(long[] layer, int gx, int gy) {
+            int i = Chunk.index(gx, gy);
+            return (layer[i >> 6] & (1L << i)) != 0;
+        }
+
+        /**
+         * Sets the bit of the given layer for the cell at the given grid position.
+         * @return whether the bit changed
+         */
+        boolean set(long[] layer, int gx, int gy, boolean value) {
+            int i = Chunk.index(gx, gy);
+            long word = layer[i >> 6];
+            long updated = value ? word | (1L << i) : word & ~(1L << i);
+            layer[i >> 6] = updated;
+            return updated != word;
+        }
+
+        /**
+         * Lists a Tile as occupying a cell of this chunk.
+         */
+        void addOccupant(Tile tile) {
+            if (this.occupantTiles == null) this.occupantTiles = new Tile[4];
+            else if (this.occupantCount == this.occupantTiles.length) {
+                this.occupantTiles = Arrays.copyOf(this.occupantTiles, this.occupantCount * 2);
+            }
+            this.occupantTiles[this.occupantCount++] = tile;
+        }
+
+        /**
+         * Stops listing a Tile as occupying a cell of this chunk by moving the last listed Tile into
+         * its place.
+         */
+        void removeOccupant(Tile tile) {
+            for (int k = 0; k < this.occupantCount; k++) {
+                if (this.occupantTiles[k] != tile) continue;
+                this.occupantTiles[k] = this.occupantTiles[--this.occupantCount];
+                this.occupantTiles[this.occupantCount] = null;
+                return;
+            }
+        }
+
+        //Accessors
+        public int getOccupantCount() { return this.occupantCount; }
+        public Tile getOccupant(int k) { return this.occupantTiles[k]; }
+        public int getMinX() { return this.cx << CHUNK_SHIFT; }
+        public int getMinY() { return this.cy << CHUNK_SHIFT; }
+        public int getVersion() { return this.version; }
+        public boolean isExplored(int gx, int gy) { return this.get(this.explored, gx, gy); }
+        public boolean isVisible(int gx, int gy) { return this.get(this.visible, gx, gy); }
+    }
+}
@@ -0,0 +1,172 @@
+package com.jacoboaks.wandermobile.game;
+
+import android.util.Log;
+
+import com.jacoboaks.wandermobile.MainActivity;
+import com.jacoboaks.wandermobile.graphics.Font;
+import com.jacoboaks.wandermobile.util.Journal;
+import com.jacoboaks.wandermobile.util.Node;
+import com.jacoboaks.wandermobile.util.Util;
+
+import java.io.File;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Keeps recently used Areas loaded so that entering them again doesn't mean loading them again.
+ * Areas are kept in order of use, and whenever the estimated memory of the kept Areas goes over the
+ * budget, the least recently used ones are written to their save slot's area directory and dropped.
+ * They are written through the slot's Journal, so the writes happen off the calling thread and in
+ * order with the slot's saves. An Area which isn't kept is loaded from its save slot's area directory
+ * if it has been written there before, so it comes back as it was left, and from its resource
+ * otherwise. The textures of kept Areas belong to the GL context they were loaded in, so every kept
+ * Area is dropped without being written whenever a new context is created. Areas may be requested
+ * from the logic loading thread, so every method is synchronized.
+ */
+public class AreaManager {
+
+    //Static Data
+    public static final long DEFAULT_BUDGET = 8 * 1024 * 1024; //default memory budget, in bytes
+
+    //Data
+    private final LinkedHashMap<String, Entry> areas; //kept areas by slot and filename, least recently used first
+    private long budget; //most estimated memory the kept areas may take up, in bytes
+
+    /**
+     * Constructs this AreaManager.
+     * @param budget the most estimated memory the kept areas may take up, in bytes
+     */
+    public AreaManager(long budget) {
+        this.areas = new LinkedHashMap<>(16, 0.75f, true);
+        this.budget = budget;
+    }
+
+    /**
+     * Finds the Area with the given resource for the given save slot, loading it if it isn't kept.
+     * @param slot the save slot the area belongs to
+     * @param resourceID the resource id of the area
+     * @param font the font to use for symbol tiles if the area has to be loaded
+     * @return the area
+     */
+    public synchronized Area getArea(int slot, int resourceID, Font font) {
+
+        //return kept area if there is one
+        String filename = MainActivity.getAppResources().getResourceEntryName(resourceID);
+        String key = AreaManager.key(slot, filename);
+        Entry entry = this.areas.get(key);
+        if (entry != null) return entry.area;
+
+        //load area, preferring the state it was last written with
+        Area area;
+        String path = SaveData.getSaveSlotSlotAreaDir(slot, filename);
+        Journal.awaitCommits();
+        if (new File(MainActivity.appDir, path).exists()) area = new Area(Node.readNode(path), font);
+        else area = Area.loadArea(resourceID, font);
+
+        //keep area and make room for it
+        this.areas.put(key, new Entry(slot, area));
+        this.trim(area);
+        return area;
+    }
+
+    /**
+     * Writes the least recently used areas to their save slots and drops them until the kept areas
+     * fit within the budget. The given area is never dropped.
+     * @param keep the area to keep regardless
+     */
+    private void trim(Area keep) {
+        long total = 0;
+        for (Entry entry : this.areas.values()) total += entry.area.getMemoryEstimate();
+        Iterator<Entry> it = this.areas.values().iterator();
+        while (total > this.budget && it.hasNext()) {
+            Entry entry = it.next();
+            if (entry.area == keep) continue;
+            total -= entry.area.getMemoryEstimate();
+            this.write(entry);
+            it.remove();
+        }
+    }
+
+    /**
+     * Writes a kept area to its save slot's area directory through the slot's journal.
+     */
+    private void write(Entry entry) {
+        Journal journal = new Journal(SaveData.getSaveSlotJournalDir(entry.slot));
+        journal.add(entry.area.toNode(), SaveData.getSaveSlotSlotAreaDir(entry.slot, entry.area.getFilename()));
+        journal.commit();
+        if (Util.DEBUG) Log.i(Util.getLogTag("AreaManager.java", "write(Entry)"),
+                "evicted area " + entry.area.getFilename() + " of slot " + entry.slot);
+    }
+
+    /**
+     * Drops every kept area of a save slot without writing it, as when the slot is deleted.
+     * @param slot the save slot whose areas to drop
+     */
+    public synchronized void forgetSlot(int slot) {
+        Iterator<Entry> it = this.areas.values().iterator();
+        while (it.hasNext()) if (it.next().slot == slot) it.remove();
+    }
+
+    /**
+     * Writes every kept area to its save slot and drops it.
+     */
+    public synchronized void clear() {
+        for (Entry entry : this.areas.values()) this.write(entry);
+        this.areas.clear();
+    }
+
+    /**
+     * Drops every kept area without writing it, so that it is loaded again with textures of the new
+     * context when next used. Is called on the GL thread when a new GL context is created, as the
+     * textures of the kept areas went away with the previous one (and their images were let go once
+     * uploaded). Nothing is written, so the slot's files stay as they were last saved.
+     */
+    public synchronized void contextLost() {
+        if (Util.DEBUG && !this.areas.isEmpty()) Log.i(Util.getLogTag("AreaManager.java", "contextLost()"),
+                "dropping " + this.areas.size() + " kept areas loaded in the previous context");
+        this.areas.clear();
+    }
+
+    /**
+     * @return the key of an area in the kept areas
+     */
+    private static String key(int slot, String filename) {
+        return slot + "/" + filename;
+    }
+
+    //Accessors
+    public synchronized long getBudget() { return this.budget; }
+    public synchronized int getAreaCount() { return this.areas.size(); }
+    public synchronized long getMemoryEstimate() {
+        long total = 0;
+        for (Entry entry : this.areas.values()) total += entry.area.getMemoryEstimate();
+        return total;
+    }
+
+    //Mutators
+    public synchronized void setBudget(long budget) {
+        this.budget = budget;
+        Map.Entry<String, Entry> newest = null;
+        for (Map.Entry<String, Entry> entry : this.areas.entrySet()) newest = entry;
+        this.trim(newest == null ? null : newest.getValue().area);
+    }
+
+    /**
+     * A kept area and the save slot it belongs to.
+     */
+    private static class Entry {
+
+        //Data
+        final int slot; //the save slot the area belongs to
+        final Area area; //the area
+
+        /**
+         * Constructs this Entry.
+         */
+        Entry(int slot, Area area) {
+            this.slot = slot;
+            this.area = area;
+        }
+    }
+}
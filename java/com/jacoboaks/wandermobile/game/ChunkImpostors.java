@@ -0,0 +1,276 @@
+package com.jacoboaks.wandermobile.game;
+
+import android.opengl.GLES20;
+
+import com.jacoboaks.wandermobile.game.gameitem.Entity;
+import com.jacoboaks.wandermobile.game.gameitem.Player;
+import com.jacoboaks.wandermobile.game.gameitem.Tile;
+import com.jacoboaks.wandermobile.graphics.Camera;
+import com.jacoboaks.wandermobile.graphics.GameRenderer;
+import com.jacoboaks.wandermobile.graphics.Material;
+import com.jacoboaks.wandermobile.graphics.Model;
+import com.jacoboaks.wandermobile.graphics.ShaderProgram;
+import com.jacoboaks.wandermobile.graphics.Texture;
+import com.jacoboaks.wandermobile.graphics.Transformation;
+import com.jacoboaks.wandermobile.util.Color;
+import com.jacoboaks.wandermobile.util.Coord;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Draws an Area cheaply when the camera is zoomed far out. Each chunk in view is drawn as a single
+ * textured square - an impostor - holding an image of the chunk's static tiles, which is rendered
+ * once through a framebuffer and only rendered again when the chunk's passability or what the
+ * player has seen of it changes. Entities are drawn as small untextured markers, found through the
+ * occupants of each chunk in view. Only chunks in view are visited, so the cost of a frame depends
+ * on the size of the view and not of the Area.
+ */
+public class ChunkImpostors {
+
+    //Static Data
+    public static final float LOD_ZOOM = 0.15f; //camera zoom below which impostors are drawn
+    private static final int PIXELS_PER_CELL = 8; //resolution of impostor images
+    private static final int IMAGE_SIZE = AreaGrid.CHUNK_SIZE * PIXELS_PER_CELL; //impostor image width and height in pixels
+    private static final float CHUNK_WORLD_SIZE = AreaGrid.CHUNK_SIZE * Model.STD_SQUARE_SIZE; //chunk width in world units
+    private static final int MAX_RENDERS_PER_FRAME = 4; //most impostor images rendered each frame
+    private static final int MAX_IMPOSTORS = 96; //most impostors kept before those out of view are deleted
+    private static final float MARKER_SIZE = Model.STD_SQUARE_SIZE * 0.6f; //width of entity markers in world units
+
+    //Data
+    private Area area; //the area to draw
+    private Map<Long, Impostor> impostors; //impostors by chunk position
+    private int[] framebuffer; //framebuffer impostor images are rendered through (null until needed)
+    private int[] savedViewport = new int[4]; //viewport to restore after rendering through the framebuffer
+    private int[] savedFramebuffer = new int[1]; //framebuffer to restore after rendering through the framebuffer
+    private float[] savedClearColor = new float[4]; //clear color to restore after rendering through the framebuffer
+    private Model marker; //untextured square drawn for each entity
+    private int frame; //counts calls to update(), to find impostors out of view
+    private int minCX, minCY, maxCX, maxCY; //chunks in view during the last update
+    private Coord viewMin = new Coord(), viewMax = new Coord(); //corners of the view, reused each update
+
+    /**
+     * Constructs this ChunkImpostors. No GL objects are created until the first update.
+     * @param area the area to draw
+     */
+    public ChunkImpostors(Area area) {
+        this.area = area;
+        this.impostors = new HashMap<>();
+        this.marker = new Model(Model.getRectangleModelCoords(MARKER_SIZE, MARKER_SIZE), Model.STD_SQUARE_TEX_COORDS(),
+                Model.STD_SQUARE_DRAW_ORDER(), new Material(new Color()));
+    }
+
+    /**
+     * @return whether the camera is zoomed out far enough to draw impostors
+     */
+    public static boolean isInUse(Camera camera) {
+        return camera.getZoom() < ChunkImpostors.LOD_ZOOM;
+    }
+
+    //Update Method
+    /**
+     * Finds the chunks in view and renders the images of any whose impostors are missing or out of
+     * date, a few per frame. Sets the camera, position and visibility uniforms of the given program,
+     * so must be called before those are set for the frame.
+     * @param shaderProgram the bound world shader program
+     * @param camera the camera of the world
+     */
+    public void update(ShaderProgram shaderProgram, Camera camera) {
+        this.frame++;
+
+        //find chunks in view
+        Coord min = this.viewMin, max = this.viewMax;
+        min.x = 0;
+        min.y = GameRenderer.surfaceHeight;
+        max.x = GameRenderer.surfaceWidth;
+        max.y = 0;
+        Transformation.screenToWorld(min, camera);
+        Transformation.screenToWorld(max, camera);
+        float half = Model.STD_SQUARE_SIZE / 2;
+        this.minCX = Transformation.worldToGrid(min.x - half) >> AreaGrid.CHUNK_SHIFT;
+        this.minCY = Transformation.worldToGrid(min.y - half) >> AreaGrid.CHUNK_SHIFT;
+        this.maxCX = Transformation.worldToGrid(max.x + half) >> AreaGrid.CHUNK_SHIFT;
+        this.maxCY = Transformation.worldToGrid(max.y + half) >> AreaGrid.CHUNK_SHIFT;
+
+        //render out of date impostors in view
+        AreaGrid grid = this.area.getGrid();
+        int renders = 0;
+        for (int cy = this.minCY; cy <= this.maxCY; cy++) {
+            for (int cx = this.minCX; cx <= this.maxCX; cx++) {
+                AreaGrid.Chunk chunk = grid.getChunk(cx, cy);
+                if (chunk == null) continue;
+                Long key = ((long)cx << 32) | (cy & 0xFFFFFFFFL);
+                Impostor impostor = this.impostors.get(key);
+                if (impostor == null) {
+                    if (renders == MAX_RENDERS_PER_FRAME) continue;
+                    impostor = new Impostor(chunk);
+                    this.impostors.put(key, impostor);
+                }
+                impostor.lastFrame = this.frame;
+                if (renders < MAX_RENDERS_PER_FRAME && !impostor.isCurrent(chunk)) {
+                    if (renders == 0) this.beginRendering(shaderProgram);
+                    impostor.render(shaderProgram, chunk);
+                    renders++;
+                }
+            }
+        }
+        if (renders > 0) this.endRendering();
+
+        //delete impostors out of view once there are too many
+        if (this.impostors.size() > MAX_IMPOSTORS) {
+            Iterator<Impostor> it = this.impostors.values().iterator();
+            while (it.hasNext()) {
+                Impostor impostor = it.next();
+                if (impostor.lastFrame == this.frame) continue;
+                impostor.texture.delete();
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * Binds the framebuffer and sets up the shader program to render impostor images.
+     */
+    private void beginRendering(ShaderProgram shaderProgram) {
+        if (this.framebuffer == null) {
+            this.framebuffer = new int[1];
+            GLES20.glGenFramebuffers(1, this.framebuffer, 0);
+        }
+        GLES20.glGetIntegerv(GLES20.GL_VIEWPORT, this.savedViewport, 0);
+        GLES20.glGetIntegerv(GLES20.GL_FRAMEBUFFER_BINDING, this.savedFramebuffer, 0);
+        GLES20.glGetFloatv(GLES20.GL_COLOR_CLEAR_VALUE, this.savedClearColor, 0);
+        GLES20.glClearColor(0f, 0f, 0f, 0f);
+        GLES20.glBindFramebuffer(GLES20.GL_FRAMEBUFFER, this.framebuffer[0]);
+        GLES20.glViewport(0, 0, IMAGE_SIZE, IMAGE_SIZE);
+
+        //fit a chunk exactly into the image
+        GLES20.glUniform1f(shaderProgram.getUniformIndex("aspectRatio"), 1f);
+        GLES20.glUniform1i(shaderProgram.getUniformIndex("aspectRatioAction"), 0);
+        GLES20.glUniform1f(shaderProgram.getUniformIndex("camzoom"), 2f / CHUNK_WORLD_SIZE);
+    }
+
+    /**
+     * Restores the framebuffer, viewport and clear color used before rendering impostor images.
+     */
+    private void endRendering() {
+        GLES20.glBindFramebuffer(GLES20.GL_FRAMEBUFFER, this.savedFramebuffer[0]);
+        GLES20.glViewport(this.savedViewport[0], this.savedViewport[1], this.savedViewport[2], this.savedViewport[3]);
+        GLES20.glClearColor(this.savedClearColor[0], this.savedClearColor[1], this.savedClearColor[2], this.savedClearColor[3]);
+    }
+
+    //Render Method
+    /**
+     * Renders the impostors of the chunks in view and a marker for each visible entity. Expects the
+     * camera uniforms of the given program to be set for the frame.
+     * @param shaderProgram the bound world shader program
+     */
+    public void render(ShaderProgram shaderProgram) {
+
+        //render impostors
+        int xUniform = shaderProgram.getUniformIndex("x"), yUniform = shaderProgram.getUniformIndex("y");
+        GLES20.glUniform1f(shaderProgram.getUniformIndex("visibility"), 1f);
+        for (int cy = this.minCY; cy <= this.maxCY; cy++) {
+            for (int cx = this.minCX; cx <= this.maxCX; cx++) {
+                Impostor impostor = this.impostors.get(((long)cx << 32) | (cy & 0xFFFFFFFFL));
+                if (impostor == null || !impostor.rendered) continue;
+                GLES20.glUniform1f(xUniform, impostor.centerX);
+                GLES20.glUniform1f(yUniform, impostor.centerY);
+                impostor.model.render(shaderProgram);
+            }
+        }
+
+        //render markers for the entities occupying chunks in view (the player is rendered by the world)
+        AreaGrid grid = this.area.getGrid();
+        Material material = this.marker.getMaterial();
+        for (int cy = this.minCY; cy <= this.maxCY; cy++) {
+            for (int cx = this.minCX; cx <= this.maxCX; cx++) {
+                AreaGrid.Chunk chunk = grid.getChunk(cx, cy);
+                if (chunk == null) continue;
+                for (int k = 0; k < chunk.getOccupantCount(); k++) {
+                    Tile tile = chunk.getOccupant(k);
+                    if (!(tile instanceof Entity) || tile instanceof Player) continue;
+                    if (!grid.isVisible(tile.getGridX(), tile.getGridY())) continue;
+                    material.setColor(tile.getModel().getMaterial().getColor());
+                    GLES20.glUniform1f(xUniform, tile.getX());
+                    GLES20.glUniform1f(yUniform, tile.getY());
+                    this.marker.render(shaderProgram);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return a hash of which cells of a chunk are explored and visible
+     */
+    private static long sightHash(AreaGrid.Chunk chunk) {
+        long hash = 17;
+        for (int i = 0; i < AreaGrid.WORDS_PER_LAYER; i++) {
+            hash = hash * 31 + chunk.explored[i];
+            hash = hash * 31 + chunk.visible[i];
+        }
+        return hash;
+    }
+
+    /**
+     * Deletes every impostor and the framebuffer. Must be called on the GL thread.
+     */
+    public void cleanup() {
+        for (Impostor impostor : this.impostors.values()) impostor.texture.delete();
+        this.impostors.clear();
+        if (this.framebuffer != null) {
+            GLES20.glDeleteFramebuffers(1, this.framebuffer, 0);
+            this.framebuffer = null;
+        }
+    }
+
+    /**
+     * The image of a single chunk along with what it was rendered from.
+     */
+    private class Impostor {
+
+        //Data
+        final Texture texture; //the image of the chunk
+        final Model model; //square the size of the chunk showing the image
+        final float centerX, centerY; //world position of the chunk's center
+        boolean rendered = false; //whether the image has been rendered
+        int version; //passability version of the chunk when rendered
+        long sightHash; //hash of the chunk's explored and visible cells when rendered
+        int lastFrame; //the last update in which the chunk was in view
+
+        /**
+         * Constructs this Impostor, creating its image without rendering it.
+         * @param chunk the chunk to make an impostor of
+         */
+        Impostor(AreaGrid.Chunk chunk) {
+            this.texture = new Texture(IMAGE_SIZE, IMAGE_SIZE);
+            this.model = new Model(Model.getRectangleModelCoords(CHUNK_WORLD_SIZE, CHUNK_WORLD_SIZE),
+                    new float[] { 0f, 0f, 0f, 1f, 1f, 0f, 1f, 1f }, //framebuffer images are bottom up
+                    Model.STD_SQUARE_DRAW_ORDER(), new Material(this.texture));
+            this.centerX = (chunk.getMinX() + (AreaGrid.CHUNK_SIZE - 1) / 2f) * Model.STD_SQUARE_SIZE;
+            this.centerY = (chunk.getMinY() + (AreaGrid.CHUNK_SIZE - 1) / 2f) * Model.STD_SQUARE_SIZE;
+        }
+
+        /**
+         * @return whether the image still shows the given chunk as it is
+         */
+        boolean isCurrent(AreaGrid.Chunk chunk) {
+            return this.rendered && this.version == chunk.getVersion() && this.sightHash == ChunkImpostors.sightHash(chunk);
+        }
+
+        /**
+         * Renders the chunk's static tiles into the image. The framebuffer must be bound.
+         */
+        void render(ShaderProgram shaderProgram, AreaGrid.Chunk chunk) {
+            GLES20.glFramebufferTexture2D(GLES20.GL_FRAMEBUFFER, GLES20.GL_COLOR_ATTACHMENT0, GLES20.GL_TEXTURE_2D,
+                    this.texture.getID(), 0);
+            GLES20.glClear(GLES20.GL_COLOR_BUFFER_BIT);
+            GLES20.glUniform1f(shaderProgram.getUniformIndex("camx"), this.centerX);
+            GLES20.glUniform1f(shaderProgram.getUniformIndex("camy"), this.centerY);
+            ChunkImpostors.this.area.getStaticTiles().renderChunk(shaderProgram, ChunkImpostors.this.area.getGrid(), chunk);
+            this.rendered = true;
+            this.version = chunk.getVersion();
+            this.sightHash = ChunkImpostors.sightHash(chunk);
+        }
+    }
+}
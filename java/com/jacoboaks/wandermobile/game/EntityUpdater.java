@@ -0,0 +1,289 @@
+package com.jacoboaks.wandermobile.game;
+
+import android.util.Log;
+
+import com.jacoboaks.wandermobile.game.gameitem.ActivityScheduler;
+import com.jacoboaks.wandermobile.game.gameitem.Behaviour;
+import com.jacoboaks.wandermobile.game.gameitem.Entity;
+import com.jacoboaks.wandermobile.game.gameitem.Tile;
+import com.jacoboaks.wandermobile.game.navigation.FlowField;
+import com.jacoboaks.wandermobile.util.Util;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Has the Entities of an Area decide and make their moves. Decisions are made in rounds at a fixed
+ * interval, and after each decision an Entity's Behaviour says how many rounds to wait until its
+ * next one. The wait is registered with the Area's ActivityScheduler, so each round visits only the
+ * Entities whose decision is due rather than every Entity. A round has two phases. First every due
+ * Entity decides where it wants to go, reading only its own position (copied beforehand) and the
+ * grid - when there are many of them, this is split by chunk across a bounded fork-join pool. Then
+ * the moves are made one at a time in the order the Entities came due, so when two Entities want
+ * the same cell the first one gets it. Each decision draws from a Random seeded by the seed, the
+ * round and the Entity's place in the round, so the result is the same whether or not decisions are
+ * made in parallel, and however they are split between threads. While working on a Behaviour this
+ * can be checked with setChecking(), which has every round decided in parallel also be decided
+ * serially and logs any difference.
+ */
+public class EntityUpdater {
+
+    //Static Data
+    public static final float THINK_INTERVAL = 250f; //time between decisions, in milliseconds
+    private static final int PARALLEL_THRESHOLD = 256; //fewest deciding entities worth splitting across threads
+    private static final int TASK_SIZE = 64; //most entities decided by one task before it is split
+    private static final int MAX_THREADS = 4; //most threads to decide on
+    private static ForkJoinPool pool; //decides in parallel
+
+    //Data
+    private final AreaGrid grid; //the grid the entities move across
+    private final ActivityScheduler scheduler; //holds when each entity next decides
+    private long seed; //seeds every decision
+    private long tick; //how many rounds of decisions have been made
+    private float timeToThink; //time until the next round of decisions, in milliseconds
+    private boolean parallel; //whether decisions may be made in parallel
+    private int parallelThreshold; //fewest deciders decided in parallel
+    private int taskSize; //most deciders decided by one task before it is split
+    private Entity[] deciders; //entities deciding this round
+    private int[] gridX, gridY; //grid position of each decider when the round began
+    private byte[] intents; //direction each decider decided on
+    private int[] waits; //rounds until each decider's next decision (0 for never)
+    private long[] order; //chunk then decider index of each decider, sorted to group deciders by chunk
+    private int deciderCount; //how many entities are deciding this round
+    private int added; //how many entities have been added, to seed their first waits
+    private boolean checking; //whether parallel rounds are decided again serially and compared
+    private byte[] checkIntents; //intents decided in parallel, kept while checking them
+    private int[] checkWaits; //waits decided in parallel, kept while checking them
+
+    /**
+     * Constructs this EntityUpdater.
+     * @param grid the grid the entities move across
+     * @param scheduler the scheduler of the entities, which holds when each entity next decides
+     * @param seed the seed of every decision
+     */
+    public EntityUpdater(AreaGrid grid, ActivityScheduler scheduler, long seed) {
+        this.grid = grid;
+        this.scheduler = scheduler;
+        this.seed = seed;
+        this.tick = 0;
+        this.timeToThink = THINK_INTERVAL;
+        this.parallel = true;
+        this.parallelThreshold = PARALLEL_THRESHOLD;
+        this.taskSize = TASK_SIZE;
+        this.resize(16);
+    }
+
+    /**
+     * Starts having an Entity decide its moves, if it has a Behaviour. The Entity must already be
+     * scheduled by this EntityUpdater's scheduler.
+     * @param entity the entity to add
+     */
+    public void add(Entity entity) {
+        if (entity.getBehaviour() == null) return;
+        Random random = new Random(EntityUpdater.mix(this.seed, this.tick, --this.added));
+        int wait = entity.getBehaviour().nextDecision(random);
+        if (wait > 0) this.scheduler.wakeAt(entity, this.tick + wait);
+    }
+
+    //Update Method
+    /**
+     * Makes a round of decisions and moves if one is due.
+     * @param dt the time since the last update, in milliseconds
+     */
+    public void update(float dt) {
+        this.timeToThink -= dt;
+        if (this.timeToThink > 0) return;
+        this.timeToThink = Math.max(this.timeToThink + THINK_INTERVAL, 0f); //don't try to catch up on missed rounds
+        this.tick++;
+
+        //copy positions of the entities due to decide, putting off those still moving
+        this.deciderCount = 0;
+        Tile tile;
+        while ((tile = this.scheduler.pollDue(this.tick)) != null) {
+            if (!(tile instanceof Entity)) continue;
+            Entity entity = (Entity)tile;
+            if (entity.getBehaviour() == null) continue;
+            if (entity.isMoving() || entity.hasImpendingMovement()) {
+                this.scheduler.wakeAt(entity, this.tick + 1);
+                continue;
+            }
+            if (this.deciderCount == this.deciders.length) this.resize(this.deciderCount * 2);
+            int d = this.deciderCount++;
+            this.deciders[d] = entity;
+            this.gridX[d] = entity.getGridX();
+            this.gridY[d] = entity.getGridY();
+            this.order[d] = EntityUpdater.chunkKey(this.gridX[d] >> AreaGrid.CHUNK_SHIFT,
+                    this.gridY[d] >> AreaGrid.CHUNK_SHIFT) << 32 | d;
+        }
+        if (this.deciderCount == 0) return;
+
+        //decide, splitting by chunk if there are enough deciders
+        Arrays.sort(this.order, 0, this.deciderCount);
+        if (this.parallel && this.deciderCount >= this.parallelThreshold) {
+            EntityUpdater.getPool().invoke(new DecideTask(0, this.deciderCount));
+            if (this.checking) this.check();
+        } else this.decide(0, this.deciderCount);
+
+        //make the moves in the order the entities came due, and schedule their next decisions
+        for (int d = 0; d < this.deciderCount; d++) {
+            byte intent = this.intents[d];
+            if (intent != FlowField.NONE && intent != FlowField.TARGET) {
+                this.deciders[d].moveGridPos(FlowField.getStepX(intent), FlowField.getStepY(intent));
+            }
+            if (this.waits[d] > 0) this.scheduler.wakeAt(this.deciders[d], this.tick + this.waits[d]);
+            this.deciders[d] = null;
+        }
+    }
+
+    /**
+     * Decides for the deciders at the given range of sorted order. Only reads shared state and
+     * writes each decider's own intent, so ranges may be decided on different threads.
+     */
+    private void decide(int from, int to) {
+        Random random = new Random();
+        for (int k = from; k < to; k++) {
+            int d = (int)this.order[k];
+            random.setSeed(EntityUpdater.mix(this.seed, this.tick, d));
+            Entity entity = this.deciders[d];
+            Behaviour behaviour = entity.getBehaviour();
+            this.intents[d] = behaviour.decide(entity, this.gridX[d], this.gridY[d], this.grid, random);
+            this.waits[d] = behaviour.nextDecision(random);
+        }
+    }
+
+    /**
+     * Decides this round again serially and logs whether it matches the decisions made in parallel.
+     */
+    private void check() {
+        if (this.checkIntents == null || this.checkIntents.length < this.deciders.length) {
+            this.checkIntents = new byte[this.deciders.length];
+            this.checkWaits = new int[this.deciders.length];
+        }
+        System.arraycopy(this.intents, 0, this.checkIntents, 0, this.deciderCount);
+        System.arraycopy(this.waits, 0, this.checkWaits, 0, this.deciderCount);
+        this.decide(0, this.deciderCount);
+        int mismatches = 0;
+        for (int d = 0; d < this.deciderCount; d++) {
+            if (this.intents[d] != this.checkIntents[d] || this.waits[d] != this.checkWaits[d]) mismatches++;
+        }
+        if (mismatches > 0) Log.i(Util.getLogTag("EntityUpdater.java", "check()"), mismatches + " of "
+                + this.deciderCount + " decisions differed when made in parallel in round " + this.tick);
+    }
+
+    /**
+     * Sizes the per decider arrays to hold the given number of deciders, keeping their contents.
+     */
+    private void resize(int capacity) {
+        this.deciders = this.deciders == null ? new Entity[capacity] : Arrays.copyOf(this.deciders, capacity);
+        this.gridX = this.gridX == null ? new int[capacity] : Arrays.copyOf(this.gridX, capacity);
+        this.gridY = this.gridY == null ? new int[capacity] : Arrays.copyOf(this.gridY, capacity);
+        this.intents = this.intents == null ? new byte[capacity] : Arrays.copyOf(this.intents, capacity);
+        this.waits = this.waits == null ? new int[capacity] : Arrays.copyOf(this.waits, capacity);
+        this.order = this.order == null ? new long[capacity] : Arrays.copyOf(this.order, capacity);
+    }
+
+    /**
+     * @return a key for a chunk which sorts by chunk y, then chunk x, and fits in 32 bits
+     */
+    private static long chunkKey(int cx, int cy) {
+        return ((long)(cy + 0x8000) & 0xFFFFL) << 16 | ((long)(cx + 0x8000) & 0xFFFFL);
+    }
+
+    /**
+     * Mixes the seed, round and decider index into the seed of a single decision
+     * (SplitMix64 finalizer).
+     */
+    private static long mix(long seed, long tick, int id) {
+        long z = seed + tick * 0x9E3779B97F4A7C15L + id * 0xC2B2AE3D27D4EB4FL;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * @return the pool decisions are made on, creating it if it doesn't exist yet
+     */
+    private static synchronized ForkJoinPool getPool() {
+        if (EntityUpdater.pool == null) {
+            int threads = Math.min(MAX_THREADS, Runtime.getRuntime().availableProcessors() - 1);
+            EntityUpdater.pool = new ForkJoinPool(Math.max(threads, 1));
+        }
+        return EntityUpdater.pool;
+    }
+
+    //Accessors
+    public long getSeed() { return this.seed; }
+    public long getTick() { return this.tick; }
+    public boolean isParallel() { return this.parallel; }
+    public boolean isChecking() { return this.checking; }
+
+    //Mutators
+    public void setSeed(long seed) { this.seed = seed; }
+    public void setParallel(boolean parallel) { this.parallel = parallel; }
+
+    /**
+     * Sets whether every round decided in parallel is also decided serially, logging any decisions
+     * which differ. Doubles the cost of deciding, so it is only meant for debugging.
+     * @param checking whether to check parallel rounds
+     */
+    public void setChecking(boolean checking) {
+        this.checking = checking;
+        if (!checking) {
+            this.checkIntents = null;
+            this.checkWaits = null;
+        }
+    }
+
+    /**
+     * Sets how readily decisions are split across threads, so that splitting can be checked (see
+     * setChecking()) with only a few entities.
+     * @param parallelThreshold the fewest deciders to decide in parallel
+     * @param taskSize the most deciders one task decides before it is split
+     */
+    void setSplitting(int parallelThreshold, int taskSize) {
+        this.parallelThreshold = parallelThreshold;
+        this.taskSize = taskSize;
+    }
+
+    /**
+     * Decides for a range of the sorted order, splitting it in two at a chunk boundary while it
+     * holds more than taskSize deciders.
+     */
+    private class DecideTask extends RecursiveAction {
+
+        //Data
+        private final int from, to; //range of sorted order to decide
+
+        /**
+         * Constructs this DecideTask.
+         * @param from the first index of sorted order to decide
+         * @param to one past the last index of sorted order to decide
+         */
+        DecideTask(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+
+            //find a chunk boundary near the middle
+            long[] order = EntityUpdater.this.order;
+            int half = (this.from + this.to) >>> 1, middle = half;
+            while (middle < this.to && (order[middle] >>> 32) == (order[middle - 1] >>> 32)) middle++;
+            if (middle == this.to) {
+                middle = half;
+                while (middle > this.from && (order[middle] >>> 32) == (order[middle - 1] >>> 32)) middle--;
+            }
+
+            //decide directly if small enough or a single chunk
+            if (this.to - this.from <= EntityUpdater.this.taskSize || middle == this.from || middle == this.to) {
+                EntityUpdater.this.decide(this.from, this.to);
+                return;
+            }
+            RecursiveAction.invokeAll(new DecideTask(this.from, middle), new DecideTask(middle, this.to));
+        }
+    }
+}
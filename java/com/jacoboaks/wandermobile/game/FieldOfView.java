@@ -0,0 +1,152 @@
+package com.jacoboaks.wandermobile.game;
+
+import java.util.Arrays;
+
+/**
+ * Works out which cells of an AreaGrid can be seen from a position using recursive shadowcasting.
+ * Each of the eight octants around the viewer is scanned row by row outwards, and cells which block
+ * sight narrow the range of slopes the rest of the octant is scanned over, so each visible cell is
+ * only visited about once. Results are written into the visible and explored layers of the grid's
+ * chunks. Only the chunks lit by the previous pass are cleared before the next, and a pass is only
+ * run when the viewer moves to another cell or sight blocking changes, so updating every step of the
+ * player is cheap and allocates nothing once the grid's chunks exist.
+ */
+public class FieldOfView {
+
+    //Static Data
+    public static final int DEFAULT_RADIUS = 8; //how far the player can see, in cells
+    private static final int[][] OCTANTS = { //transforms from octant to grid coordinates (xx, xy, yx, yy)
+            { 1, 0, 0, -1 }, { 0, 1, -1, 0 }, { 0, -1, -1, 0 }, { -1, 0, 0, -1 },
+            { -1, 0, 0, 1 }, { 0, -1, 1, 0 }, { 0, 1, 1, 0 }, { 1, 0, 0, 1 } };
+
+    //Data
+    private final AreaGrid grid; //the grid to see across
+    private int radius; //how far can be seen, in cells
+    private int originX, originY; //the cell seen from in the last pass
+    private int sightVersion = -1; //sight version of the grid during the last pass
+    private AreaGrid.Chunk[] lit; //chunks with visible cells from the last pass
+    private int litCount; //how many chunks are in lit
+    private AreaGrid.Chunk[] unlit; //chunks cleared at the start of the current pass
+    private int stamp; //identifies the current pass
+
+    /**
+     * Constructs this FieldOfView.
+     * @param grid the grid to see across
+     * @param radius how far can be seen, in cells
+     */
+    public FieldOfView(AreaGrid grid, int radius) {
+        this.grid = grid;
+        this.radius = radius;
+        this.lit = new AreaGrid.Chunk[16];
+        this.unlit = new AreaGrid.Chunk[16];
+        this.litCount = 0;
+        this.stamp = 0;
+    }
+
+    /**
+     * Recomputes what can be seen if the viewer is in another cell than in the last pass or the
+     * cells blocking sight have changed.
+     * @param gx the grid x of the viewer
+     * @param gy the grid y of the viewer
+     * @return whether a pass was run
+     */
+    public boolean update(int gx, int gy) {
+        if (this.sightVersion == this.grid.getSightVersion() && gx == this.originX && gy == this.originY) return false;
+        this.originX = gx;
+        this.originY = gy;
+        this.sightVersion = this.grid.getSightVersion();
+
+        //clear visibility from the last pass
+        if (this.unlit.length < this.litCount) this.unlit = new AreaGrid.Chunk[this.lit.length];
+        int unlitCount = this.litCount;
+        for (int i = 0; i < this.litCount; i++) {
+            Arrays.fill(this.lit[i].visible, 0L);
+            this.unlit[i] = this.lit[i];
+            this.lit[i] = null;
+        }
+        this.litCount = 0;
+        this.stamp++;
+
+        //scan each octant
+        this.reveal(gx, gy);
+        for (int[] octant : OCTANTS) this.castLight(1, 1.0f, 0.0f, octant[0], octant[1], octant[2], octant[3]);
+
+        //tell the grid about every chunk whose visibility may have changed
+        for (int i = 0; i < unlitCount; i++) {
+            if (this.unlit[i].visibleStamp != this.stamp) this.grid.chunkChanged(this.unlit[i]);
+            this.unlit[i] = null;
+        }
+        for (int i = 0; i < this.litCount; i++) this.grid.chunkChanged(this.lit[i]);
+        return true;
+    }
+
+    /**
+     * Scans one octant from the given row outwards, recursing whenever a run of sight blocking cells
+     * ends so that the slopes hidden behind it are skipped.
+     * @param row the distance from the viewer of the first row to scan
+     * @param start the slope the scan starts at (the steeper edge)
+     * @param end the slope the scan ends at
+     */
+    private void castLight(int row, float start, float end, int xx, int xy, int yx, int yy) {
+        if (start < end) return;
+        int radiusSquared = this.radius * this.radius;
+        float newStart = 0.0f;
+        for (int j = row; j <= this.radius; j++) {
+            boolean blocked = false;
+            for (int dx = -j, dy = -j; dx <= 0; dx++) {
+
+                //find the cell and the slopes of its edges
+                int gx = this.originX + dx * xx + dy * xy;
+                int gy = this.originY + dx * yx + dy * yy;
+                float leftSlope = (dx - 0.5f) / (dy + 0.5f);
+                float rightSlope = (dx + 0.5f) / (dy - 0.5f);
+                if (start < rightSlope) continue;
+                if (end > leftSlope) break;
+
+                //reveal the cell if it is within range
+                if (dx * dx + dy * dy < radiusSquared) this.reveal(gx, gy);
+
+                //narrow the scan around cells which block sight
+                boolean opaque = this.grid.isOpaque(gx, gy);
+                if (blocked) {
+                    if (opaque) newStart = rightSlope;
+                    else {
+                        blocked = false;
+                        start = newStart;
+                    }
+                } else if (opaque && j < this.radius) {
+                    blocked = true;
+                    this.castLight(j + 1, start, leftSlope, xx, xy, yx, yy);
+                    newStart = rightSlope;
+                }
+            }
+            if (blocked) break;
+        }
+    }
+
+    /**
+     * Marks a cell as visible and explored, unless it is in a chunk which counts as unloaded.
+     */
+    private void reveal(int gx, int gy) {
+        if (this.grid.isUnloaded(this.grid.getChunkAt(gx, gy))) return; //nothing to see until loaded
+        AreaGrid.Chunk chunk = this.grid.getOrCreateSightChunkAt(gx, gy);
+        chunk.set(chunk.visible, gx, gy, true);
+        chunk.set(chunk.explored, gx, gy, true);
+        if (chunk.visibleStamp != this.stamp) {
+            chunk.visibleStamp = this.stamp;
+            if (this.litCount == this.lit.length) this.lit = Arrays.copyOf(this.lit, this.litCount * 2);
+            this.lit[this.litCount++] = chunk;
+        }
+    }
+
+    //Accessors
+    public int getRadius() { return this.radius; }
+    public int getOriginX() { return this.originX; }
+    public int getOriginY() { return this.originY; }
+
+    //Mutators
+    public void setRadius(int radius) {
+        this.radius = radius;
+        this.sightVersion = -1;
+    }
+}
@@ -8,38 +8,77 @@ import com.jacoboaks.wandermobile.R;
 import com.jacoboaks.wandermobile.game.gameitem.ButtonTextItem;
 import com.jacoboaks.wandermobile.game.gameitem.GameItem;
 import com.jacoboaks.wandermobile.game.gameitem.Keyboard;
+import com.jacoboaks.wandermobile.game.gameitem.TextItem;
 import com.jacoboaks.wandermobile.graphics.GameRenderer;
 import com.jacoboaks.wandermobile.graphics.Material;
 import com.jacoboaks.wandermobile.graphics.Model;
+import com.jacoboaks.wandermobile.graphics.ScreenLayer;
+import com.jacoboaks.wandermobile.graphics.ShaderCache;
 import com.jacoboaks.wandermobile.graphics.ShaderProgram;
 import com.jacoboaks.wandermobile.graphics.Transformation;
 import com.jacoboaks.wandermobile.util.Color;
 import com.jacoboaks.wandermobile.util.Coord;
 import com.jacoboaks.wandermobile.util.Node;
+import com.jacoboaks.wandermobile.util.UniformGrid;
 import com.jacoboaks.wandermobile.util.Util;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
 /**
- * Holds many GameItems to be rendered over top of a World.
+ * Holds many GameItems to be rendered over top of a World. Items are drawn in order of their layer,
+ * and in the order they were added within a layer, so the draw order is always the same. Items
+ * whose tag starts with a capital Z go on the TOP_LAYER unless given another. Most items rarely
+ * change, so they are rendered into a screen-sized layer which is drawn as a single quad each frame,
+ * and only rendered again when one of them changes its text, visibility, color, texture or position.
+ * Items marked as dynamic, items whose changes can't be seen from outside (such as Keyboards), items
+ * above the lowest layer holding such an item and the fade box are rendered directly every frame.
+ * Interactive items (buttons and keyboards) are also kept in a uniform grid over aspected space, so a
+ * touch is only passed to the items under it and to those it touched last. A HUD makes no GL calls
+ * until it is first rendered, so it can be built during a logic's preload().
  */
 public class HUD {
 
+    //Static Data
+    public static final int DEFAULT_LAYER = 0; //layer of items not given one
+    public static final int TOP_LAYER = 100; //layer of items whose tag starts with a capital Z
+    private static final float HIT_CELL_SIZE = 0.25f; //size of the cells of the hit index in aspected space
+
     //Data
-    private Map<String, GameItem> gameItems;
+    private Map<String, Entry> gameItems; //items by tag
+    private List<Entry> drawList; //items in draw order
+    private boolean drawListSorted = true; //whether drawList is in order
+    private int added = 0; //how many items have been added, giving each its place within its layer
+    private UniformGrid<Entry> hitIndex; //interactive items by the area they cover
+    private boolean hitIndexStale = false; //whether hitIndex needs to be built again
+    private List<Entry> candidates; //items a touch is passed to
+    private List<Entry> touched; //items passed the last touch which may still be selected
     private GameItem fadeBox;
     private GameItem lastAdded;
     private FadeState fadeState;
     private ShaderProgram shaderProgram;
+    private Set<String> dynamicTags; //tags of the items marked to be rendered every frame
+    private ScreenLayer staticLayer; //the items which rarely change, rendered once
+    private long staticSignature; //signature of the items in the static layer when it was last rendered
+    private boolean staticRendered = false; //whether the static layer has been rendered
 
     /**
      * Constructs this HUD.
      */
     public HUD(boolean fadeIn) {
         this.gameItems = new HashMap<>();
-        this.initShaderProgram();
+        this.drawList = new ArrayList<>();
+        this.hitIndex = new UniformGrid<>(HIT_CELL_SIZE);
+        this.candidates = new ArrayList<>();
+        this.touched = new ArrayList<>();
+        this.dynamicTags = new HashSet<>();
+        this.staticLayer = new ScreenLayer();
         this.initFading(fadeIn);
     }
 
@@ -54,15 +93,13 @@ public class HUD {
     }
 
     /**
-     * Initializes the HUD's shader program.
+     * Initializes the HUD's shader program. This is left until the HUD is first rendered, so that a
+     * HUD may be built and filled away from the GL thread while a logic is preloading.
      */
     private void initShaderProgram() {
 
-        //create shader program, load shaders, and link them.
-        this.shaderProgram = new ShaderProgram();
-        this.shaderProgram.loadShader(R.raw.shader_hudvertex, GLES20.GL_VERTEX_SHADER);
-        this.shaderProgram.loadShader(R.raw.shader_hudfragment, GLES20.GL_FRAGMENT_SHADER);
-        this.shaderProgram.link();
+        //get shader program (compiled once per context and shared between logics)
+        this.shaderProgram = ShaderCache.getProgram(R.raw.shader_hudvertex, R.raw.shader_hudfragment);
 
         //register shader program uniforms
         this.shaderProgram.registerUniform("aspectRatio");
@@ -115,8 +152,7 @@ public class HUD {
      * @param item the item to add
      */
     public void addItem(String tag, GameItem item) {
-        this.gameItems.put(tag, item);
-        this.lastAdded = item;
+        this.putItem(tag, item);
     }
 
     /**
@@ -131,8 +167,7 @@ public class HUD {
         Transformation.normalizedToAspected(coord);
         item.setX(coord.x);
         item.setY(coord.y);
-        this.gameItems.put(tag, item);
-        this.lastAdded = item;
+        this.putItem(tag, item);
     }
 
     /**
@@ -212,10 +247,33 @@ public class HUD {
         item.setY(newPos.y);
 
         //add item
-        this.gameItems.put(tag, item);
+        this.putItem(tag, item);
+    }
+
+    /**
+     * Adds an item at the end of its layer, replacing any item with the same tag.
+     */
+    private void putItem(String tag, GameItem item) {
+        Entry entry = new Entry(tag, item, tag.charAt(0) == 'Z' ? TOP_LAYER : DEFAULT_LAYER, this.added++);
+        Entry replaced = this.gameItems.put(tag, entry);
+        if (replaced != null) {
+            this.drawList.remove(replaced);
+            this.touched.remove(replaced);
+        }
+        this.drawList.add(entry);
+        this.drawListSorted = false;
+        if (replaced != null || entry.isInteractive()) this.hitIndexStale = true;
         this.lastAdded = item;
     }
 
+    /**
+     * Builds the hit index again from the current bounds of the interactive items. Must be called
+     * after moving an interactive item once it has been added.
+     */
+    public void refreshHitIndex() {
+        this.hitIndexStale = true;
+    }
+
     /**
      * Loops through any ButtonTextItems in this HUD and updates their selections.
      * @param e the MotionEvent to consider
@@ -232,14 +290,22 @@ public class HUD {
         Transformation.screenToNormalized(touchPos);
         Transformation.normalizedToAspected(touchPos);
 
-        //loop through buttons
+        //find the items under the finger and those the last touch may have left selected
+        if (this.hitIndexStale) this.buildHitIndex();
+        this.candidates.clear();
+        this.hitIndex.query(touchPos, this.candidates);
+        for (Entry entry : this.touched) if (!this.candidates.contains(entry)) this.candidates.add(entry);
+        Collections.sort(this.candidates, Collections.reverseOrder(DRAW_ORDER)); //topmost first
+
+        //pass the touch on until an item is pressed
         int actionCode = -1;
-        for (String tag : this.gameItems.keySet()) {
-            if (actionCode == -1) {
-                GameItem item = this.gameItems.get(tag);
-                if (item instanceof ButtonTextItem) actionCode = ((ButtonTextItem)item).updateSelection(e, touchPos);
-                else if (item instanceof Keyboard) actionCode = ((Keyboard)item).updateSelections(e, touchPos);
-            } else return actionCode;
+        boolean released = e.getAction() == MotionEvent.ACTION_UP;
+        for (Entry entry : this.candidates) {
+            if (entry.item instanceof ButtonTextItem) actionCode = ((ButtonTextItem)entry.item).updateSelection(e, touchPos);
+            else actionCode = ((Keyboard)entry.item).updateSelections(e, touchPos);
+            if (released) this.touched.remove(entry); //items deselect themselves when released
+            else if (!this.touched.contains(entry)) this.touched.add(entry);
+            if (actionCode != -1) break;
         }
 
         //return the found action code
@@ -247,12 +313,23 @@ public class HUD {
     }
 
     /**
-     * Will render the GameItems in this HUD. If there is an object whose tag starts with a capital
+     * Builds the hit index from the bounds of every interactive item.
+     */
+    private void buildHitIndex() {
+        this.hitIndex.clear();
+        for (Entry entry : this.drawList) if (entry.isInteractive()) this.hitIndex.add(entry, entry.item.getBounds());
+        this.hitIndexStale = false;
+    }
+
+    /**
+     * Will render the GameItems in this HUD. Static items are drawn from the static layer, rendering
+     * it again first if any of them changed. If there is an object whose tag starts with a capital
      * Z, it will be rendered last.
      */
     public void render() {
 
         //draw shapes
+        if (this.shaderProgram == null) this.initShaderProgram();
         this.shaderProgram.bind();
 
         //update aspect ratio and aspect ratio action
@@ -261,13 +338,32 @@ public class HUD {
         GLES20.glUniform1iv(this.shaderProgram.getUniformIndex("aspectRatioAction"), 1,
                 new int[] { GameRenderer.surfaceAspectRatioAction ? 1 : 0 }, 0);
 
-        //draw game items
-        GameItem lastRender = null;
-        for (String tag: this.gameItems.keySet()) {
-            if (tag.charAt(0) == 'Z') lastRender = this.gameItems.get(tag);
-            else this.gameItems.get(tag).render(this.shaderProgram);
+        //sort items and find the lowest layer drawn live
+        if (!this.drawListSorted) {
+            Collections.sort(this.drawList, DRAW_ORDER);
+            this.drawListSorted = true;
+        }
+        int liveLayer = Integer.MAX_VALUE;
+        for (Entry entry : this.drawList) {
+            if (!this.isRetainable(entry)) {
+                liveLayer = entry.layer;
+                break;
+            }
+        }
+
+        //render static items into the static layer if any of them changed
+        long signature = this.staticSignature(liveLayer);
+        if (!this.staticRendered || signature != this.staticSignature) {
+            this.staticLayer.begin();
+            for (Entry entry : this.drawList) if (this.isStatic(entry, liveLayer)) entry.item.render(this.shaderProgram);
+            this.staticLayer.end();
+            this.staticSignature = signature;
+            this.staticRendered = true;
         }
-        if (lastRender != null) lastRender.render(this.shaderProgram);
+
+        //draw static layer, then the rest of the items in order
+        this.staticLayer.render(this.shaderProgram);
+        for (Entry entry : this.drawList) if (!this.isStatic(entry, liveLayer)) entry.item.render(this.shaderProgram);
 
         //render fadebox
         this.fadeBox.render(this.shaderProgram);
@@ -276,6 +372,48 @@ public class HUD {
         this.shaderProgram.unbind();
     }
 
+    /**
+     * @return whether an item could be drawn from the static layer. Only items whose changes show
+     * in their signature can, so plain GameItems and TextItems (including buttons) not marked dynamic
+     */
+    private boolean isRetainable(Entry entry) {
+        if (this.dynamicTags.contains(entry.tag)) return false;
+        return entry.item.getClass() == GameItem.class || entry.item instanceof TextItem;
+    }
+
+    /**
+     * @return whether an item is drawn from the static layer - that is, whether it could be and no
+     * item beneath it must be drawn live
+     */
+    private boolean isStatic(Entry entry, int liveLayer) {
+        return entry.layer <= liveLayer && this.isRetainable(entry);
+    }
+
+    /**
+     * @return a signature of everything about the static items which shows when they are rendered,
+     * and of the size of the surface, which changes whenever the static layer needs rendering again
+     */
+    private long staticSignature(int liveLayer) {
+        long signature = GameRenderer.surfaceWidth * 31L + GameRenderer.surfaceHeight;
+        for (Entry entry : this.drawList) {
+            if (!this.isStatic(entry, liveLayer)) continue;
+            GameItem item = entry.item;
+            Material material = item.getModel().getMaterial();
+            signature = signature * 31 + entry.tag.hashCode();
+            signature = signature * 31 + (item.isVisible() ? 1 : 0);
+            signature = signature * 31 + Float.floatToIntBits(item.getX());
+            signature = signature * 31 + Float.floatToIntBits(item.getY());
+            signature = signature * 31 + Float.floatToIntBits(item.getWidth());
+            signature = signature * 31 + Float.floatToIntBits(item.getHeight());
+            signature = signature * 31 + System.identityHashCode(item.getModel());
+            signature = signature * 31 + System.identityHashCode(material.getTexture());
+            for (float component : material.getColor().getAsArr()) signature = signature * 31 + Float.floatToIntBits(component);
+            if (item instanceof TextItem) signature = signature * 31 + ((TextItem)item).getText().hashCode();
+            if (item instanceof ButtonTextItem) signature = signature * 31 + (((ButtonTextItem)item).isSelected() ? 1 : 0);
+        }
+        return signature;
+    }
+
     /**
      * @return the coordinates of the last item added. Will return (0, 0) if there are no items
      * added yet
@@ -302,10 +440,38 @@ public class HUD {
     }
 
     //Accessors
-    public GameItem getItem(String tag) { return this.gameItems.get(tag); }
+    public GameItem getItem(String tag) {
+        Entry entry = this.gameItems.get(tag);
+        return entry == null ? null : entry.item;
+    }
+    public int getLayer(String tag) { return this.gameItems.get(tag).layer; }
     public boolean fading() { return this.fadeState.stage != 1; }
     public boolean fadingOut() { return this.fadeState.stage == 2; }
 
+    //Mutators
+    /**
+     * Sets whether the item with the given tag is rendered every frame instead of through the
+     * static layer. Items which change most frames, such as counters, should be dynamic.
+     * @param tag the tag of the item
+     * @param dynamic whether the item is rendered every frame
+     */
+    public void setDynamic(String tag, boolean dynamic) {
+        if (dynamic) this.dynamicTags.add(tag);
+        else this.dynamicTags.remove(tag);
+    }
+
+    /**
+     * Moves the item with the given tag to the end of another layer.
+     * @param tag the tag of the item
+     * @param layer the layer to draw the item in - items in higher layers are drawn over lower ones
+     */
+    public void setLayer(String tag, int layer) {
+        Entry entry = this.gameItems.get(tag);
+        entry.layer = layer;
+        entry.order = this.added++;
+        this.drawListSorted = false;
+    }
+
     //Data Requesting Method
     public Node requestData() {
         Node node = new Node("hud");
@@ -326,7 +492,48 @@ public class HUD {
 
     //Cleanup Method
     public void cleanup() {
-        this.shaderProgram.cleanup();
+        //the shader program belongs to the ShaderCache and is kept for the next logic
+        this.staticLayer.cleanup();
+    }
+
+    /**
+     * Orders items by layer, then by when they were added to it.
+     */
+    private static final Comparator<Entry> DRAW_ORDER = new Comparator<Entry>() {
+        @Override
+        public int compare(Entry a, Entry b) {
+            if (a.layer != b.layer) return a.layer < b.layer ? -1 : 1;
+            return a.order < b.order ? -1 : (a.order == b.order ? 0 : 1);
+        }
+    };
+
+    /**
+     * An item of the HUD with its tag and place in the draw order.
+     */
+    private static class Entry {
+
+        //Data
+        final String tag; //the tag of the item
+        final GameItem item; //the item
+        int layer; //the layer the item is drawn in
+        int order; //when the item was added to its layer
+
+        /**
+         * Constructs this Entry.
+         */
+        Entry(String tag, GameItem item, int layer, int order) {
+            this.tag = tag;
+            this.item = item;
+            this.layer = layer;
+            this.order = order;
+        }
+
+        /**
+         * @return whether the item responds to touches
+         */
+        boolean isInteractive() {
+            return this.item instanceof ButtonTextItem || this.item instanceof Keyboard;
+        }
     }
 
     /**
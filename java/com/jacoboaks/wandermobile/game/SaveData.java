@@ -1,20 +1,24 @@
 package com.jacoboaks.wandermobile.game;
 
-import com.jacoboaks.wandermobile.game.gameitem.Entity;
+import com.jacoboaks.wandermobile.MainActivity;
 import com.jacoboaks.wandermobile.game.gameitem.Player;
 import com.jacoboaks.wandermobile.graphics.Font;
+import com.jacoboaks.wandermobile.util.Journal;
 import com.jacoboaks.wandermobile.util.Node;
 
-import java.util.List;
-
 /**
  * Encompasses all useful data for game saving/loading.
  */
 public class SaveData {
 
+    //Static Data
+    public static final String SAVES_DIR = "data/saves";
+
     //Data
     private Player player;
+    private long playTime; //total time played in milliseconds
     private int saveSlot;
+    private String areaFilename; //filename of the area the save was made in (null if not yet saved or not recorded)
 
     /**
      * Constructs this SaveData with the given information.
@@ -34,6 +38,10 @@ public class SaveData {
     public SaveData(Node node, Font font) {
         this.saveSlot = Integer.parseInt(node.getChild("saveSlot").getValue());
         this.player = Player.nodeToPlayer(node.getChild("Player"), font);
+        Node playTime = node.getChild("playTime");
+        if (playTime != null) this.playTime = Long.parseLong(playTime.getValue());
+        Node areaFilename = node.getChild("currentAreaFile");
+        if (areaFilename != null) this.areaFilename = areaFilename.getValue();
     }
 
     /**
@@ -42,7 +50,17 @@ public class SaveData {
      * @param font the font to use for construction
      */
     public SaveData(int saveSlot, Font font) {
-        this(Node.readNode(SaveData.getSaveSlotDir(saveSlot)), font);
+        this(SaveData.readSaveData(saveSlot), font);
+    }
+
+    /**
+     * Reads the save data of the given slot once any save of it still being written is done.
+     * @param saveSlot the slot to read the data of
+     * @return the read save data
+     */
+    public static Node readSaveData(int saveSlot) {
+        Journal.awaitCommits();
+        return Node.readNode(SaveData.getSaveSlotDir(saveSlot));
     }
 
     /**
@@ -54,18 +72,35 @@ public class SaveData {
         data.addChild("saveSlot", Integer.toString(this.saveSlot));
         data.addChild(player.toNode());
         data.addChild("currentArea", currentArea.getName());
+        data.addChild("currentAreaFile", currentArea.getFilename());
+        data.addChild("playTime", Long.toString(this.playTime));
         return data;
     }
 
     /**
-     * Saves the data of this SaveData into the appropriate slot.
+     * Creates the header describing this SaveData for the save slot index.
+     * @param currentArea the current Area in use
+     * @return the created header
+     */
+    public SaveSlotHeader toHeader(Area currentArea) {
+        return new SaveSlotHeader(this.saveSlot, this.player.getName(), this.player.getLevel(), this.playTime,
+                currentArea.getName(), System.currentTimeMillis());
+    }
+
+    /**
+     * Saves the data of this SaveData into the appropriate slot. The save data and the area are
+     * committed together, so an interrupted save leaves the slot as it was before. The files are
+     * written on the journal's thread, so this returns without waiting on the disk.
      * @param currentArea the current Area in use
      */
     public void save(Area currentArea) {
-        Node node = this.toNode(currentArea);
-        Node.writeNode(node, SaveData.getSaveSlotDir(this.saveSlot));
-        Node currentAreaNode = currentArea.toNode();
-        Node.writeNode(currentAreaNode, SaveData.getSaveSlotSlotAreaDir(this.saveSlot, currentArea.getFilename()));
+        SaveSlotHeader header = this.toHeader(currentArea);
+        Journal journal = new Journal(SaveData.getSaveSlotJournalDir(this.saveSlot));
+        journal.add(this.toNode(currentArea), SaveData.getSaveSlotDir(this.saveSlot));
+        journal.add(currentArea.toNode(), SaveData.getSaveSlotSlotAreaDir(this.saveSlot, currentArea.getFilename()));
+        journal.add(header.toNode(), SaveData.getSaveSlotHeaderDir(this.saveSlot));
+        journal.commit();
+        MainActivity.saveSlotIndex.put(header);
     }
 
     /**
@@ -74,7 +109,19 @@ public class SaveData {
      */
     public void saveArea(Area area) {
         Node node = area.toNode();
-        Node.writeNode(node, SaveData.getSaveSlotDir(this.saveSlot));
+        Node.writeNode(node, SaveData.getSaveSlotSlotAreaDir(this.saveSlot, area.getFilename()));
+    }
+
+    /**
+     * Finds the resource of an area from its filename.
+     * @param filename the filename of the area, such as one recorded in save data (may be null)
+     * @return the resource id of the area, or MainActivity.STARTING_ZONE if there is no such area
+     */
+    public static int findArea(String filename) {
+        if (filename == null) return MainActivity.STARTING_ZONE;
+        int resourceID = MainActivity.getAppResources().getIdentifier(filename, "raw",
+                MainActivity.getAppResources().getResourcePackageName(MainActivity.STARTING_ZONE));
+        return resourceID == 0 ? MainActivity.STARTING_ZONE : resourceID;
     }
 
     /**
@@ -95,16 +142,37 @@ public class SaveData {
         return SaveData.getSaveSlotFolderDir(slot) + "/areas/" + areaFilename + ".wdr";
     }
 
+    /**
+     * Finds and returns the directory for the header of the given save slot.
+     * @param slot the slot whose header directory to retrieve
+     * @return the directory for the given save slot's header
+     */
+    public static String getSaveSlotHeaderDir(int slot) {
+        return SaveData.getSaveSlotFolderDir(slot) + "/header.wdr";
+    }
+
+    /**
+     * Finds and returns the directory for the save journal of the given save slot.
+     * @param slot the slot whose journal directory to retrieve
+     * @return the directory for the given save slot's journal
+     */
+    public static String getSaveSlotJournalDir(int slot) {
+        return SaveData.getSaveSlotFolderDir(slot) + "/journal.wdr";
+    }
+
     public static String getSaveSlotFolderDir(int slot) {
-        return "data/saves/saveslot" + slot;
+        return SaveData.SAVES_DIR + "/saveslot" + slot;
     }
 
     //Mutators
     public void updatePlayer(Player player) {
         this.player = player;
     }
+    public void addPlayTime(float dt) { this.playTime += (long)dt; }
 
     //Accessors
     public Player getPlayer() { return this.player; }
     public int getSaveSlot() { return this.saveSlot; }
+    public long getPlayTime() { return this.playTime; }
+    public String getAreaFilename() { return this.areaFilename; }
 }
@@ -0,0 +1,85 @@
+package com.jacoboaks.wandermobile.game;
+
+import com.jacoboaks.wandermobile.util.Node;
+
+/**
+ * Holds the small amount of information about a save slot needed to describe it (who is in it and
+ * how far along they are) without having to load the full SaveData.
+ */
+public class SaveSlotHeader {
+
+    //Data
+    private String playerName; //name of the slot's player
+    private String areaName; //name of the area the player was last in
+    private long playTime; //total time played in milliseconds
+    private long timestamp; //when the slot was last saved (milliseconds since epoch)
+    private int playerLevel; //level of the slot's player
+    private int saveSlot; //the slot this header describes
+
+    /**
+     * Constructs this SaveSlotHeader with the given information.
+     * @param saveSlot the slot this header describes
+     * @param playerName the name of the slot's player
+     * @param playerLevel the level of the slot's player
+     * @param playTime the total time played in milliseconds
+     * @param areaName the name of the area the player was last in
+     * @param timestamp when the slot was last saved
+     */
+    public SaveSlotHeader(int saveSlot, String playerName, int playerLevel, long playTime, String areaName,
+                          long timestamp) {
+        this.saveSlot = saveSlot;
+        this.playerName = playerName;
+        this.playerLevel = playerLevel;
+        this.playTime = playTime;
+        this.areaName = areaName;
+        this.timestamp = timestamp;
+    }
+
+    //Node Constructor
+    public SaveSlotHeader(Node node) {
+        this.saveSlot = Integer.parseInt(node.getChild("saveSlot").getValue());
+        this.playerName = node.getChild("playerName").getValue();
+        this.playerLevel = Integer.parseInt(node.getChild("playerLevel").getValue());
+        this.playTime = Long.parseLong(node.getChild("playTime").getValue());
+        this.areaName = node.getChild("areaName").getValue();
+        this.timestamp = Long.parseLong(node.getChild("timestamp").getValue());
+    }
+
+    /**
+     * Creates a SaveSlotHeader from the Node of a full save file. This reads just the needed values
+     * out of the Node rather than constructing the Player, and is used for saves written before
+     * headers existed.
+     * @param saveData the Node of the save file
+     * @param timestamp when the save file was written
+     * @return the created SaveSlotHeader
+     */
+    public static SaveSlotHeader fromSaveDataNode(Node saveData, long timestamp) {
+        Node player = saveData.getChild("Player");
+        Node playTime = saveData.getChild("playTime");
+        Node area = saveData.getChild("currentArea");
+        return new SaveSlotHeader(Integer.parseInt(saveData.getChild("saveSlot").getValue()),
+                player.getChild("name").getValue(), Integer.parseInt(player.getChild("level").getValue()),
+                playTime == null ? 0 : Long.parseLong(playTime.getValue()),
+                area == null ? "" : area.getValue(), timestamp);
+    }
+
+    //Accessors
+    public int getSaveSlot() { return this.saveSlot; }
+    public String getPlayerName() { return this.playerName; }
+    public int getPlayerLevel() { return this.playerLevel; }
+    public long getPlayTime() { return this.playTime; }
+    public String getAreaName() { return this.areaName; }
+    public long getTimestamp() { return this.timestamp; }
+
+    //Node Converter
+    public Node toNode() {
+        Node node = new Node("header");
+        node.addChild("saveSlot", Integer.toString(this.saveSlot));
+        node.addChild("playerName", this.playerName);
+        node.addChild("playerLevel", Integer.toString(this.playerLevel));
+        node.addChild("playTime", Long.toString(this.playTime));
+        node.addChild("areaName", this.areaName);
+        node.addChild("timestamp", Long.toString(this.timestamp));
+        return node;
+    }
+}
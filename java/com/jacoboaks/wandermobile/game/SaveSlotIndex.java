@@ -0,0 +1,107 @@
+package com.jacoboaks.wandermobile.game;
+
+import android.util.Log;
+
+import com.jacoboaks.wandermobile.MainActivity;
+import com.jacoboaks.wandermobile.util.Journal;
+import com.jacoboaks.wandermobile.util.Node;
+import com.jacoboaks.wandermobile.util.Util;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Keeps track of which save slots are in use and the header of each one. The index is built by
+ * listing the saves directory once and reading each slot's small header file, so no full save file
+ * needs to be parsed to describe the slots, and any number of slots is supported.
+ */
+public class SaveSlotIndex {
+
+    //Static Data
+    public static final int DISPLAYED_SLOTS = 3; //the amount of slots shown to choose from
+    private static final String SLOT_FOLDER_PREFIX = "saveslot";
+
+    //Data
+    private Map<Integer, SaveSlotHeader> headers; //the header of each slot in use
+
+    /**
+     * Constructs this SaveSlotIndex by reading the header of every slot in the saves directory. Any
+     * save which was interrupted the last time the app ran is recovered first if requested.
+     * @param recoverJournals whether to recover interrupted saves before reading the headers
+     */
+    public SaveSlotIndex(boolean recoverJournals) {
+        this.headers = new TreeMap<>();
+        Journal.awaitCommits();
+        for (int slot : SaveSlotIndex.findSlotFolders()) {
+            if (recoverJournals) Journal.recover(SaveData.getSaveSlotJournalDir(slot), SaveData.getSaveSlotFolderDir(slot));
+            SaveSlotHeader header = SaveSlotIndex.readHeader(slot);
+            if (header != null) this.headers.put(slot, header);
+        }
+    }
+
+    /**
+     * @return the numbers of every slot which has a folder in the saves directory
+     */
+    private static List<Integer> findSlotFolders() {
+        List<Integer> slots = new ArrayList<>();
+        File[] folders = new File(MainActivity.appDir, SaveData.SAVES_DIR).listFiles();
+        if (folders == null) return slots;
+        for (File folder : folders) {
+            String name = folder.getName();
+            if (folder.isDirectory() && name.startsWith(SaveSlotIndex.SLOT_FOLDER_PREFIX)) {
+                try {
+                    slots.add(Integer.parseInt(name.substring(SaveSlotIndex.SLOT_FOLDER_PREFIX.length())));
+                } catch (NumberFormatException e) {
+                    if (Util.DEBUG) Log.i(Util.getLogTag("SaveSlotIndex.java", "findSlotFolders()"),
+                            "ignoring unrecognized save folder: " + name);
+                }
+            }
+        }
+        return slots;
+    }
+
+    /**
+     * Reads the header of the given slot. If the slot has save data but no header (it was saved
+     * before headers existed), the header is created from the save data once and written out.
+     * @param slot the slot whose header to read
+     * @return the header of the slot, or null if the slot is not in use
+     */
+    private static SaveSlotHeader readHeader(int slot) {
+
+        //read header if there is one
+        if (new File(MainActivity.appDir, SaveData.getSaveSlotHeaderDir(slot)).exists())
+            return new SaveSlotHeader(Node.readNode(SaveData.getSaveSlotHeaderDir(slot)));
+
+        //otherwise create one from the save data
+        File saveFile = new File(MainActivity.appDir, SaveData.getSaveSlotDir(slot));
+        if (!saveFile.exists()) return null;
+        SaveSlotHeader header = SaveSlotHeader.fromSaveDataNode(Node.readNode(SaveData.getSaveSlotDir(slot)),
+                saveFile.lastModified());
+        Node.writeNode(header.toNode(), SaveData.getSaveSlotHeaderDir(slot));
+        return header;
+    }
+
+    /**
+     * Records the header of a slot which was just saved.
+     * @param header the header of the saved slot
+     */
+    public void put(SaveSlotHeader header) {
+        this.headers.put(header.getSaveSlot(), header);
+    }
+
+    /**
+     * Records that the given slot is no longer in use.
+     * @param slot the slot which was deleted
+     */
+    public void remove(int slot) {
+        this.headers.remove(slot);
+    }
+
+    //Accessors
+    public boolean isInUse(int slot) { return this.headers.containsKey(slot); }
+    public SaveSlotHeader getHeader(int slot) { return this.headers.get(slot); }
+    public int getSlotsInUse() { return this.headers.size(); }
+}
@@ -0,0 +1,426 @@
+package com.jacoboaks.wandermobile.game;
+
+import android.opengl.GLES20;
+
+import com.jacoboaks.wandermobile.game.gameitem.StaticTile;
+import com.jacoboaks.wandermobile.graphics.Material;
+import com.jacoboaks.wandermobile.graphics.ShaderProgram;
+import com.jacoboaks.wandermobile.graphics.Transformation;
+import com.jacoboaks.wandermobile.util.Color;
+import com.jacoboaks.wandermobile.util.Node;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Stores an Area's StaticTiles as parallel arrays instead of one object per tile. Tiles with the
+ * same name, look, maneuverability and sight blocking are the same kind of tile, so each distinct
+ * kind is kept once as a type and each tile only holds its position, velocity, type index and
+ * flags. Kinds are compared by value rather than by model, since tiles loaded from a saved Area
+ * each have their own model. The indices of the tiles in each chunk are listed as well, so finding
+ * the tile at a cell only looks through one chunk. A Listener may be set to be told which cells'
+ * tiles change. Update and render passes are linear sweeps over these arrays. Callers which need an
+ * actual StaticTile can get one as a view of a stored tile with getTile().
+ */
+public class TileStore {
+
+    //Static Data
+    public static final byte FLAG_BLOCKS_MOVEMENT = 1;
+    public static final byte FLAG_BLOCKS_SIGHT = 2;
+    public static final byte FLAG_INVISIBLE = 4;
+    private static final float EXPLORED_VISIBILITY = 0.35f; //brightness of explored cells which can't currently be seen
+    private static final int BYTES_PER_TILE = 4 * 4 + 2 + 1 + 4; //size of one tile across every array and its chunk's list
+    private static final int BYTES_PER_CHUNK = 96; //rough size of the list of a chunk's tiles, not counting its tiles
+
+    //Data
+    private List<StaticTile> types; //one template for each distinct kind of tile
+    private Map<String, Integer> typeIndices; //index into types of each kind of tile, by its key
+    private float[] x, y; //world position of each tile
+    private float[] vx, vy; //velocity of each tile
+    private short[] type; //index into types of each tile
+    private byte[] flags; //flags of each tile
+    private int count; //how many tiles are stored
+    private int movingCount; //how many tiles have a velocity
+    private int version; //incremented whenever a tile is added, removed or placed
+    private Map<Long, ChunkTiles> chunkTiles; //the tiles within each chunk, by chunk key
+    private Listener listener; //told about cells whose tile changes (null if nothing is listening)
+    private int[] chunkOrder = new int[16]; //indices of a chunk's tiles in stored order, reused by renderChunk()
+
+    /**
+     * Constructs this TileStore from a list of tiles.
+     * @param tiles the tiles to store
+     */
+    public TileStore(List<StaticTile> tiles) {
+        this.types = new ArrayList<>();
+        this.typeIndices = new HashMap<>();
+        this.chunkTiles = new HashMap<>();
+        int capacity = Math.max(tiles.size(), 16);
+        this.x = new float[capacity];
+        this.y = new float[capacity];
+        this.vx = new float[capacity];
+        this.vy = new float[capacity];
+        this.type = new short[capacity];
+        this.flags = new byte[capacity];
+        this.count = this.movingCount = 0;
+        for (StaticTile tile : tiles) this.add(tile);
+    }
+
+    /**
+     * Adds a tile, storing its kind as a new type if no stored type matches it.
+     * @param tile the tile to add
+     * @return the index of the added tile
+     */
+    public int add(StaticTile tile) {
+
+        //grow arrays if full
+        if (this.count == this.x.length) {
+            int capacity = this.count * 2;
+            this.x = Arrays.copyOf(this.x, capacity);
+            this.y = Arrays.copyOf(this.y, capacity);
+            this.vx = Arrays.copyOf(this.vx, capacity);
+            this.vy = Arrays.copyOf(this.vy, capacity);
+            this.type = Arrays.copyOf(this.type, capacity);
+            this.flags = Arrays.copyOf(this.flags, capacity);
+        }
+
+        //store tile
+        int i = this.count++;
+        this.x[i] = tile.getX();
+        this.y[i] = tile.getY();
+        this.type[i] = (short)this.findType(tile);
+        this.flags[i] = (byte)((tile.blocksMovement() ? FLAG_BLOCKS_MOVEMENT : 0)
+                | (tile.blocksSight() ? FLAG_BLOCKS_SIGHT : 0) | (tile.isVisible() ? 0 : FLAG_INVISIBLE));
+        this.setVelocity(i, tile.getVx(), tile.getVy());
+        this.getChunkTiles(this.getGridX(i), this.getGridY(i), true).add(i);
+        this.version++;
+        this.tileChanged(this.getGridX(i), this.getGridY(i));
+        return i;
+    }
+
+    /**
+     * Removes a tile by moving the last stored tile into its place.
+     * @param i the index of the tile to remove
+     */
+    public void remove(int i) {
+        int gx = this.getGridX(i), gy = this.getGridY(i);
+        int last = this.count - 1, lastX = this.getGridX(last), lastY = this.getGridY(last);
+        this.removeFromChunk(i, gx, gy);
+        if (i != last) this.getChunkTiles(lastX, lastY, false).replace(last, i);
+        this.setVelocity(i, 0f, 0f);
+        this.count--;
+        this.x[i] = this.x[last];
+        this.y[i] = this.y[last];
+        this.vx[i] = this.vx[last];
+        this.vy[i] = this.vy[last];
+        this.type[i] = this.type[last];
+        this.flags[i] = this.flags[last];
+        this.vx[last] = this.vy[last] = 0f; //so the next tile stored there doesn't look like it was moving
+        this.version++;
+        this.tileChanged(gx, gy);
+        if (i != last) this.tileChanged(lastX, lastY); //its index changed
+    }
+
+    /**
+     * Removes every tile within the given chunk.
+     * @param cx the chunk x
+     * @param cy the chunk y
+     */
+    public void removeChunk(int cx, int cy) {
+        ChunkTiles chunk = this.chunkTiles.get(TileStore.chunkKey(cx, cy));
+        if (chunk == null) return;
+
+        //remove from the highest index down, so no tile left to remove is moved by a removal
+        int[] tiles = Arrays.copyOf(chunk.tiles, chunk.count);
+        Arrays.sort(tiles);
+        for (int k = tiles.length - 1; k >= 0; k--) this.remove(tiles[k]);
+    }
+
+    /**
+     * @return the list of tiles within the chunk containing the given grid position, or null if
+     * there is none and it isn't to be created
+     */
+    private ChunkTiles getChunkTiles(int gx, int gy, boolean create) {
+        Long key = TileStore.chunkKey(gx >> AreaGrid.CHUNK_SHIFT, gy >> AreaGrid.CHUNK_SHIFT);
+        ChunkTiles chunk = this.chunkTiles.get(key);
+        if (chunk == null && create) {
+            chunk = new ChunkTiles();
+            this.chunkTiles.put(key, chunk);
+        }
+        return chunk;
+    }
+
+    /**
+     * Removes a tile from the list of its chunk, dropping the list once it is empty.
+     */
+    private void removeFromChunk(int i, int gx, int gy) {
+        ChunkTiles chunk = this.getChunkTiles(gx, gy, false);
+        chunk.remove(i);
+        if (chunk.count == 0) this.chunkTiles.remove(TileStore.chunkKey(gx >> AreaGrid.CHUNK_SHIFT, gy >> AreaGrid.CHUNK_SHIFT));
+    }
+
+    /**
+     * Updates the list of a tile's chunk and tells the listener after the tile has moved.
+     * @param i the index of the tile
+     * @param gx the grid x of the tile before it moved
+     * @param gy the grid y of the tile before it moved
+     */
+    private void moved(int i, int gx, int gy) {
+        int nx = this.getGridX(i), ny = this.getGridY(i);
+        if (nx == gx && ny == gy) return;
+        if (nx >> AreaGrid.CHUNK_SHIFT != gx >> AreaGrid.CHUNK_SHIFT || ny >> AreaGrid.CHUNK_SHIFT != gy >> AreaGrid.CHUNK_SHIFT) {
+            this.removeFromChunk(i, gx, gy);
+            this.getChunkTiles(nx, ny, true).add(i);
+        }
+        this.tileChanged(gx, gy);
+        this.tileChanged(nx, ny);
+    }
+
+    /**
+     * Tells the listener (if any) that the tile at a cell may have changed.
+     */
+    private void tileChanged(int gx, int gy) {
+        if (this.listener != null) this.listener.tileChanged(gx, gy);
+    }
+
+    /**
+     * @return a key identifying the chunk at the given chunk position
+     */
+    private static long chunkKey(int cx, int cy) {
+        return ((long)cx << 32) | (cy & 0xFFFFFFFFL);
+    }
+
+    /**
+     * @return the index of the stored type matching the given tile, adding the tile as a new type
+     * if there is none
+     */
+    private int findType(StaticTile tile) {
+        String key = TileStore.typeKey(tile);
+        Integer t = this.typeIndices.get(key);
+        if (t != null) return t;
+        if (this.types.size() > Short.MAX_VALUE) {
+            throw new IllegalStateException("too many tile types in one area");
+        }
+        this.types.add(new StaticTile(tile));
+        this.typeIndices.put(key, this.types.size() - 1);
+        return this.types.size() - 1;
+    }
+
+    /**
+     * @return a key which is the same for two tiles exactly when they are the same kind of tile -
+     * that is, when they have the same name, symbol and color (or texture), maneuverability and
+     * sight blocking
+     */
+    private static String typeKey(StaticTile tile) {
+        StringBuilder key = new StringBuilder(tile.getName()).append('|');
+        Material material = tile.getModel().getMaterial();
+        if (tile.isSymbolTile()) {
+            Color color = material.getColor();
+            key.append('s').append(tile.getSymbol()).append('|').append(color.getR()).append(',')
+                    .append(color.getG()).append(',').append(color.getB()).append(',').append(color.getA());
+        } else key.append('t').append(material.getTexture().getResourceID());
+        return key.append('|').append(tile.getManeuverability()).append('|').append(tile.blocksSight()).toString();
+    }
+
+    //Update Method
+    public void update(float dt) {
+        if (this.movingCount == 0) return;
+        for (int i = 0; i < this.count; i++) {
+            if (this.vx[i] == 0 && this.vy[i] == 0) continue;
+            int gx = this.getGridX(i), gy = this.getGridY(i);
+            this.x[i] += this.vx[i];
+            this.y[i] += this.vy[i];
+            this.moved(i, gx, gy);
+        }
+    }
+
+    //Render Method
+    /**
+     * Renders the explored tiles, dimming those which can't currently be seen. Sets the x, y and
+     * visibility uniforms of the given program, leaving visibility at full afterwards.
+     * @param shaderProgram the shader program to render with
+     * @param grid the grid holding which cells are explored and visible
+     */
+    public void render(ShaderProgram shaderProgram, AreaGrid grid) {
+        this.render(shaderProgram, grid, null, null, this.count);
+    }
+
+    /**
+     * Renders the explored tiles within a single chunk, dimming those which can't currently be
+     * seen, in the same way as render(ShaderProgram, AreaGrid). Only the chunk's own list of tiles
+     * is visited, in stored order so that overlapping tiles are drawn as they are in a full render.
+     * @param shaderProgram the shader program to render with
+     * @param grid the grid holding which cells are explored and visible
+     * @param chunk the chunk whose tiles to render
+     */
+    public void renderChunk(ShaderProgram shaderProgram, AreaGrid grid, AreaGrid.Chunk chunk) {
+        ChunkTiles tiles = this.getChunkTiles(chunk.getMinX(), chunk.getMinY(), false);
+        if (tiles == null) return;
+        if (tiles.count > this.chunkOrder.length) this.chunkOrder = new int[tiles.tiles.length];
+        System.arraycopy(tiles.tiles, 0, this.chunkOrder, 0, tiles.count);
+        Arrays.sort(this.chunkOrder, 0, tiles.count);
+        this.render(shaderProgram, grid, chunk, this.chunkOrder, tiles.count);
+    }
+
+    /**
+     * Renders the explored tiles with the given indices, all within the given chunk, or every
+     * explored tile if the indices are null.
+     */
+    private void render(ShaderProgram shaderProgram, AreaGrid grid, AreaGrid.Chunk only, int[] indices, int count) {
+        int xUniform = shaderProgram.getUniformIndex("x");
+        int yUniform = shaderProgram.getUniformIndex("y");
+        int visibilityUniform = shaderProgram.getUniformIndex("visibility");
+        float visibility = 1f;
+        GLES20.glUniform1f(visibilityUniform, visibility);
+        for (int k = 0; k < count; k++) {
+            int i = indices == null ? k : indices[k];
+
+            //skip invisible and unexplored tiles
+            if ((this.flags[i] & FLAG_INVISIBLE) != 0) continue;
+            int gx = Transformation.worldToGrid(this.x[i]), gy = Transformation.worldToGrid(this.y[i]);
+            AreaGrid.Chunk chunk = only != null ? only : grid.getChunkAt(gx, gy);
+            if (chunk == null || !chunk.isExplored(gx, gy)) continue;
+
+            //dim tiles which can't be seen
+            float tileVisibility = chunk.isVisible(gx, gy) ? 1f : EXPLORED_VISIBILITY;
+            if (tileVisibility != visibility) {
+                visibility = tileVisibility;
+                GLES20.glUniform1f(visibilityUniform, visibility);
+            }
+
+            //render tile's type at its position
+            GLES20.glUniform1f(xUniform, this.x[i]);
+            GLES20.glUniform1f(yUniform, this.y[i]);
+            this.types.get(this.type[i]).getModel().render(shaderProgram);
+        }
+        if (visibility != 1f) GLES20.glUniform1f(visibilityUniform, 1f);
+    }
+
+    /**
+     * Finds the tile at the given grid position, looking only through the tiles of its chunk.
+     * @return the index of the last stored tile at the position, or -1 if there is none
+     */
+    public int find(int gx, int gy) {
+        ChunkTiles chunk = this.getChunkTiles(gx, gy, false);
+        if (chunk == null) return -1;
+        int found = -1;
+        for (int k = 0; k < chunk.count; k++) {
+            int i = chunk.tiles[k];
+            if (i > found && this.getGridX(i) == gx && this.getGridY(i) == gy) found = i;
+        }
+        return found;
+    }
+
+    /**
+     * Creates a StaticTile with the type, position and velocity of a stored tile. Changes to the
+     * returned tile are not stored.
+     * @param i the index of the tile
+     * @return the view of the tile
+     */
+    public StaticTile getTile(int i) {
+        StaticTile tile = new StaticTile(this.types.get(this.type[i]));
+        tile.setX(this.x[i]);
+        tile.setY(this.y[i]);
+        tile.setVx(this.vx[i]);
+        tile.setVy(this.vy[i]);
+        tile.setVisibility((this.flags[i] & FLAG_INVISIBLE) == 0);
+        return tile;
+    }
+
+    //Node Converter
+    /**
+     * @return a node holding every stored tile
+     */
+    public Node toNode() {
+        Node node = new Node("statictiles");
+        for (int i = 0; i < this.count; i++) node.addChild(this.getTile(i).toNode());
+        return node;
+    }
+
+    //Accessors
+    public int getCount() { return this.count; }
+    public int getVersion() { return this.version; }
+    public long getMemoryEstimate() { return (long)this.x.length * BYTES_PER_TILE + (long)this.chunkTiles.size() * BYTES_PER_CHUNK; }
+    public float getX(int i) { return this.x[i]; }
+    public float getY(int i) { return this.y[i]; }
+    public int getGridX(int i) { return Transformation.worldToGrid(this.x[i]); }
+    public int getGridY(int i) { return Transformation.worldToGrid(this.y[i]); }
+    public StaticTile getType(int i) { return this.types.get(this.type[i]); }
+    public List<StaticTile> getTypes() { return this.types; }
+    public byte getFlags(int i) { return this.flags[i]; }
+    public boolean blocksMovement(int i) { return (this.flags[i] & FLAG_BLOCKS_MOVEMENT) != 0; }
+    public boolean blocksSight(int i) { return (this.flags[i] & FLAG_BLOCKS_SIGHT) != 0; }
+
+    //Mutators
+    public void setListener(Listener listener) { this.listener = listener; }
+    public void setPosition(int i, float x, float y) {
+        int gx = this.getGridX(i), gy = this.getGridY(i);
+        this.x[i] = x;
+        this.y[i] = y;
+        this.version++;
+        this.moved(i, gx, gy);
+    }
+    public void setVelocity(int i, float vx, float vy) {
+        boolean wasMoving = this.vx[i] != 0 || this.vy[i] != 0;
+        boolean moving = vx != 0 || vy != 0;
+        this.vx[i] = vx;
+        this.vy[i] = vy;
+        if (moving != wasMoving) this.movingCount += moving ? 1 : -1;
+    }
+
+    /**
+     * Told about cells whose stored tile may have changed - because a tile was added to, removed
+     * from or moved into or out of the cell, or because the index of its tile changed.
+     */
+    public interface Listener {
+
+        /**
+         * Called when the stored tile at a cell may have changed.
+         * @param gx the grid x of the cell
+         * @param gy the grid y of the cell
+         */
+        void tileChanged(int gx, int gy);
+    }
+
+    /**
+     * The indices of the tiles within one chunk, in no particular order.
+     */
+    private static class ChunkTiles {
+
+        //Data
+        int[] tiles = new int[16]; //index of each tile
+        int count = 0; //how many tiles are listed
+
+        /**
+         * Lists a tile.
+         */
+        void add(int i) {
+            if (this.count == this.tiles.length) this.tiles = Arrays.copyOf(this.tiles, this.count * 2);
+            this.tiles[this.count++] = i;
+        }
+
+        /**
+         * Stops listing a tile by moving the last listed tile into its place.
+         */
+        void remove(int i) {
+            for (int k = 0; k < this.count; k++) {
+                if (this.tiles[k] != i) continue;
+                this.tiles[k] = this.tiles[--this.count];
+                return;
+            }
+        }
+
+        /**
+         * Changes the index of a listed tile.
+         */
+        void replace(int from, int to) {
+            for (int k = 0; k < this.count; k++) {
+                if (this.tiles[k] != from) continue;
+                this.tiles[k] = to;
+                return;
+            }
+        }
+    }
+}
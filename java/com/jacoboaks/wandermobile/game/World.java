@@ -6,12 +6,16 @@ import android.os.Bundle;
 import com.jacoboaks.wandermobile.R;
 import com.jacoboaks.wandermobile.game.gameitem.Entity;
 import com.jacoboaks.wandermobile.game.gameitem.GameItem;
+import com.jacoboaks.wandermobile.game.gameitem.Minimap;
 import com.jacoboaks.wandermobile.game.gameitem.Player;
 import com.jacoboaks.wandermobile.game.gameitem.StaticTile;
 import com.jacoboaks.wandermobile.game.gameitem.TextItem;
 import com.jacoboaks.wandermobile.game.gameitem.Tile;
+import com.jacoboaks.wandermobile.game.navigation.HierarchicalPathfinder;
+import com.jacoboaks.wandermobile.game.navigation.Pathfinder;
 import com.jacoboaks.wandermobile.graphics.FollowingCamera;
 import com.jacoboaks.wandermobile.graphics.GameRenderer;
+import com.jacoboaks.wandermobile.graphics.ShaderCache;
 import com.jacoboaks.wandermobile.graphics.ShaderProgram;
 import com.jacoboaks.wandermobile.graphics.Texture;
 import com.jacoboaks.wandermobile.graphics.Transformation;
@@ -26,6 +30,11 @@ public class World {
     //Data
     private Area area;
     private FollowingCamera camera;
+    private Pathfinder pathfinder; //finds exact paths across the area
+    private HierarchicalPathfinder hierarchicalPathfinder; //finds long paths across the area quickly
+    private FieldOfView fieldOfView; //what the player can see of the area
+    private ChunkImpostors impostors; //draws the area when zoomed far out
+    private Minimap minimap; //shows the cells around the player in the hud
     private HUD hud;
     private Player player;
     private Tile selectionTile;
@@ -46,13 +55,22 @@ public class World {
 
         //set area and player references
         this.area = area;
+        this.pathfinder = new Pathfinder(area.getGrid());
+        this.hierarchicalPathfinder = new HierarchicalPathfinder(area.getGrid());
+        this.fieldOfView = new FieldOfView(area.getGrid(), FieldOfView.DEFAULT_RADIUS);
+        this.impostors = new ChunkImpostors(area);
         this.player = player;
+        this.player.setGrid(area.getGrid());
         this.selectionTile = new Tile("Selection", new Texture(R.drawable.texture_selected), 0, 0);
 
         //set hud reference, update area name in hud
         this.hud = hud;
         TextItem areaName = (TextItem)this.hud.getItem("AREA_NAME");
         areaName.setText(this.area.getName());
+
+        //add minimap to hud
+        this.minimap = new Minimap(this.area, this.player, 0.5f);
+        this.hud.addItem("MINIMAP", this.minimap, HUD.Placement.TOP_RIGHT, 0.04f);
     }
 
     /**
@@ -70,11 +88,8 @@ public class World {
      */
     private void initShaderProgram() {
 
-        //create shader program, load shaders, and link them.
-        this.shaderProgram = new ShaderProgram();
-        this.shaderProgram.loadShader(R.raw.shader_worldvertex, GLES20.GL_VERTEX_SHADER);
-        this.shaderProgram.loadShader(R.raw.shader_worldfragment, GLES20.GL_FRAGMENT_SHADER);
-        this.shaderProgram.link();
+        //get shader program (compiled once per context and shared between logics)
+        this.shaderProgram = ShaderCache.getProgram(R.raw.shader_worldvertex, R.raw.shader_worldfragment);
 
         //register shader program uniforms
         this.shaderProgram.registerUniform("aspectRatio");
@@ -88,6 +103,7 @@ public class World {
         this.shaderProgram.registerUniform("textureSampler");
         this.shaderProgram.registerUniform("colorOverride");
         this.shaderProgram.registerUniform("isTextured");
+        this.shaderProgram.registerUniform("visibility");
     }
 
     /**
@@ -101,14 +117,20 @@ public class World {
     public void update(float dt) {
         this.area.update(dt);
         this.player.update(dt);
+        this.area.guideFollowers(this.player.getGridX(), this.player.getGridY());
+        this.fieldOfView.update(this.player.getGridX(), this.player.getGridY());
         this.camera.update(dt);
+        this.area.stream(Transformation.worldToGrid(this.camera.getX()), Transformation.worldToGrid(this.camera.getY()));
+        this.minimap.update(dt);
     }
 
     //Render Method
     public void render() {
 
-        //bind shader program
+        //bind shader program and bring impostors up to date if zoomed far out
         this.shaderProgram.bind();
+        boolean zoomedOut = ChunkImpostors.isInUse(this.camera);
+        if (zoomedOut) this.impostors.update(this.shaderProgram, this.camera);
 
         //update aspect ratio and aspect ratio action
         GLES20.glUniform1fv(this.shaderProgram.getUniformIndex("aspectRatio"), 1,
@@ -125,7 +147,8 @@ public class World {
                 new float[] { this.camera.getZoom() }, 0);
 
         //render area and player
-        this.area.render(this.shaderProgram);
+        if (zoomedOut) this.impostors.render(this.shaderProgram);
+        else this.area.render(this.shaderProgram);
         this.player.render(this.shaderProgram);
 
         //render selection if tile texture_selected
@@ -209,6 +232,9 @@ public class World {
     public Player getPlayer() { return this.player; }
     public FollowingCamera getCamera() { return this.camera; }
     public Area getArea() { return this.area; }
+    public Pathfinder getPathfinder() { return this.pathfinder; }
+    public HierarchicalPathfinder getHierarchicalPathfinder() { return this.hierarchicalPathfinder; }
+    public FieldOfView getFieldOfView() { return this.fieldOfView; }
 
     //Data Requesting Method
     public void requestData(Node data) {
@@ -225,6 +251,11 @@ public class World {
 
     //Cleanup Method
     public void cleanup() {
-        this.shaderProgram.cleanup();
+        //the shader program belongs to the ShaderCache and is kept for the next logic
+
+        //the area may be kept by the AreaManager, so free the player's cell in it
+        this.player.setGrid(null);
+        this.impostors.cleanup();
+        this.minimap.cleanup();
     }
 }
@@ -24,9 +24,16 @@ public class WorldControl {
             defines the amount of screen coordinates a finger needs to move within one cycle
             in order for a substantial pan to be detected
         */
+    private static final int VELOCITY_WINDOW = 50; //how far back (in ms) to look when measuring drag velocity
+    private static final int MAX_FLING_IDLE = 100; //how long (in ms) a finger can rest before lifting and still fling
+    private static final float MIN_FLING_VELOCITY = 0.3f; //drag speed (screen coordinates per ms) needed to fling
 
     //Data
-    private Coord fingerPos; //the current finger position. set to null if the finger leaves the screen
+    private final Coord touchPos = new Coord(); //reused for checking touches against null input bounds
+    private float fingerX, fingerY; //the finger position as of the last move event
+    private float velocityX, velocityY; //the finger's velocity in screen coordinates per millisecond
+    private long fingerTime; //the time of the last move event
+    private boolean fingerDown; //whether a move has been received since the finger touched the screen
     private List<Bounds> nullInputBounds; //collection of bounds to ignore input for (for buttons) in aspected space
     private boolean currentlyScaling; //whether or not the user is currently scaling
     private boolean justScaledOrPanned; //whether or not the user has just scaled or panned
@@ -50,14 +57,19 @@ public class WorldControl {
     public boolean input(MotionEvent e, World world) {
 
         //check for null input bounds
-        Coord touchPosAspected = new Coord(e.getX(), e.getY());
-        Transformation.screenToNormalized(touchPosAspected);
-        Transformation.normalizedToAspected(touchPosAspected);
-        for (Bounds bounds : this.nullInputBounds) if (bounds.intersects(touchPosAspected)) return false;
+        this.touchPos.x = e.getX();
+        this.touchPos.y = e.getY();
+        Transformation.screenToNormalized(this.touchPos);
+        Transformation.normalizedToAspected(this.touchPos);
+        for (int i = 0; i < this.nullInputBounds.size(); i++)
+            if (this.nullInputBounds.get(i).intersects(this.touchPos)) return false;
 
         //handle touch
         if (e.getAction() == MotionEvent.ACTION_DOWN) {
 
+            //catch the camera if it is gliding
+            world.getCamera().stopFling();
+
             //get touch location
             float x = e.getX();
             float y = e.getY();
@@ -96,6 +108,11 @@ public class WorldControl {
                 world.registerTap(e.getX(), e.getY());
             }
 
+            //let the camera glide if the user let go mid-pan
+            if (this.substantialPanningDetected && e.getEventTime() - this.fingerTime < MAX_FLING_IDLE
+                    && Math.hypot(this.velocityX, this.velocityY) > MIN_FLING_VELOCITY)
+                world.getCamera().fling(this.velocityX, this.velocityY);
+
             //report finger lift
             this.fingerLifted(world.getPlayer());
             world.getCamera().fingerReleased();
@@ -110,8 +127,8 @@ public class WorldControl {
             if (this.currentlyScaling) this.listenForPanning = false;
 
             //if first touch
-            if (this.fingerPos == null) {
-                this.fingerPos = new Coord(e.getX(), e.getY()); //record first touch
+            if (!this.fingerDown) {
+                this.fingerDown = true;
                 this.listenForPanning = false; //don't listen for panning until second touch received
             }
 
@@ -119,14 +136,14 @@ public class WorldControl {
             if (!this.listenForPanning) {
                 this.listenForPanning = true; //set it to true for next cycle
                 this.substantialPanningDetected = false;
+                this.velocityX = this.velocityY = 0;
             }
 
-            //listen for pan
+            //listen for pan - moves are merged per frame, so this pans by the whole frame's drag at once
             else {
-                Coord previousPos = this.fingerPos;
-                this.fingerPos = new Coord(e.getX(), e.getY());
-                float dX = this.fingerPos.x - previousPos.x;
-                float dY = this.fingerPos.y - previousPos.y;
+                float dX = e.getX() - this.fingerX;
+                float dY = e.getY() - this.fingerY;
+                this.updateVelocity(e);
 
                 //check if a substantial pan is being made
                 if (!this.substantialPanningDetected) {
@@ -138,10 +155,15 @@ public class WorldControl {
                 if (this.substantialPanningDetected) {
                     this.justScaledOrPanned = true;
                     world.getPlayer().stopMoving();
-                    world.getCamera().pan(previousPos, this.fingerPos);
+                    world.getCamera().pan(dX, dY);
                 }
             }
 
+            //record finger position
+            this.fingerX = e.getX();
+            this.fingerY = e.getY();
+            this.fingerTime = e.getEventTime();
+
             //return that input was handled
             return true;
         }
@@ -150,6 +172,33 @@ public class WorldControl {
         return false;
     }
 
+    /**
+     * Measures the finger's velocity from the samples of a move event. The velocity is taken over
+     * the newest sample at least VELOCITY_WINDOW old, which smooths out jitter between samples. If
+     * the event's history doesn't reach back that far, the last sample of the previous move is used.
+     * @param e the move event
+     */
+    private void updateVelocity(MotionEvent e) {
+
+        //find the sample to measure from
+        long now = e.getEventTime();
+        float fromX = this.fingerX, fromY = this.fingerY;
+        long fromTime = this.fingerTime;
+        for (int h = 0; h < e.getHistorySize(); h++) {
+            long time = e.getHistoricalEventTime(h);
+            if (now - time < VELOCITY_WINDOW) break;
+            fromX = e.getHistoricalX(h);
+            fromY = e.getHistoricalY(h);
+            fromTime = time;
+        }
+
+        //calculate velocity
+        if (now > fromTime) {
+            this.velocityX = (e.getX() - fromX) / (now - fromTime);
+            this.velocityY = (e.getY() - fromY) / (now - fromTime);
+        }
+    }
+
     /**
      * Adds a given bounds to the list of null input bounds to avoid when detecting control input.
      * @param bounds the bounds to add
@@ -167,7 +216,7 @@ public class WorldControl {
         //stop moving
         player.stopMoving();
         listenForPanning = false;
-        this.fingerPos = null;
+        this.fingerDown = false;
         this.substantialPanningDetected = false;
 
         //update scaling fingers
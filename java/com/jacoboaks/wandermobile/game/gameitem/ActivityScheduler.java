@@ -0,0 +1,203 @@
+package com.jacoboaks.wandermobile.game.gameitem;
+
+import java.util.Arrays;
+
+/**
+ * Decides which Tiles are updated each frame, so that idle Tiles are never visited. A Tile is
+ * active while it is moving, has an impending movement or has a velocity, and Tiles wake
+ * themselves by starting any of those. Tiles can also be asked to be woken at a later time, for
+ * instance for an Entity's next decision - such requests are kept in a min-heap ordered by wake
+ * time (earliest request first among equal times), and whatever acts on them polls only those which
+ * are due. Wake times are whole numbers in whatever unit the requester polls with, such as
+ * EntityUpdater's rounds of decisions. Each update costs time in proportion to the number of active
+ * Tiles and due requests rather than the number of Tiles in an Area.
+ */
+public class ActivityScheduler {
+
+    //Data
+    private Tile[] active; //tiles updated every frame (null where a tile was removed during an update)
+    private int activeCount; //how many slots of active are in use
+    private boolean updating; //whether an update is in progress
+    private Tile[] sleepers; //tiles waiting to be woken, as a min-heap by wake time then request order
+    private long[] wakeTimes; //wake time of each request in sleepers
+    private long[] requestOrders; //order in which each request in sleepers was made
+    private int sleeperCount; //how many wake requests are waiting, including stale ones
+    private long requests; //how many wake requests have been made
+
+    /**
+     * Constructs this ActivityScheduler with no tiles.
+     */
+    public ActivityScheduler() {
+        this.active = new Tile[16];
+        this.activeCount = 0;
+        this.updating = false;
+        this.sleepers = new Tile[16];
+        this.wakeTimes = new long[16];
+        this.requestOrders = new long[16];
+        this.sleeperCount = 0;
+        this.requests = 0;
+    }
+
+    /**
+     * Starts scheduling a Tile, making it active straight away if it has something to do.
+     * @param tile the tile to schedule
+     */
+    public void add(Tile tile) {
+        tile.setScheduler(this);
+        if (tile.isActive()) this.wake(tile);
+    }
+
+    /**
+     * Stops scheduling a Tile. Its wake request (if any) is dropped once it comes due.
+     * @param tile the tile to stop scheduling
+     */
+    public void remove(Tile tile) {
+        if (tile.activeIndex != -1) this.removeActive(tile.activeIndex);
+        tile.wakeTime = -1;
+        tile.setScheduler(null);
+    }
+
+    /**
+     * Makes a Tile active so that it is updated from the next update onwards (or later this update
+     * if this update is in progress). Waking an active Tile does nothing.
+     * @param tile the tile to wake
+     */
+    public void wake(Tile tile) {
+        if (tile.activeIndex != -1 || tile.getScheduler() != this) return;
+        if (this.activeCount == this.active.length) this.active = Arrays.copyOf(this.active, this.activeCount * 2);
+        tile.activeIndex = this.activeCount;
+        this.active[this.activeCount++] = tile;
+    }
+
+    /**
+     * Asks for a Tile to be woken at the given time, replacing any request it already made. The Tile
+     * is handed out by pollDue() once the time has come.
+     * @param tile the tile to wake
+     * @param time the time to wake the tile at
+     */
+    public void wakeAt(Tile tile, long time) {
+        if (tile.getScheduler() != this || tile.wakeTime == time) return;
+        tile.wakeTime = time; //an earlier request for another time is now stale
+
+        //grow heap if full
+        if (this.sleeperCount == this.sleepers.length) {
+            this.sleepers = Arrays.copyOf(this.sleepers, this.sleeperCount * 2);
+            this.wakeTimes = Arrays.copyOf(this.wakeTimes, this.sleeperCount * 2);
+            this.requestOrders = Arrays.copyOf(this.requestOrders, this.sleeperCount * 2);
+        }
+
+        //sift request up
+        long order = this.requests++;
+        int i = this.sleeperCount++;
+        while (i > 0) {
+            int parent = (i - 1) >> 1;
+            if (!ActivityScheduler.before(time, order, this.wakeTimes[parent], this.requestOrders[parent])) break;
+            this.setSleeper(i, this.sleepers[parent], this.wakeTimes[parent], this.requestOrders[parent]);
+            i = parent;
+        }
+        this.setSleeper(i, tile, time, order);
+    }
+
+    /**
+     * Hands out the Tile with the earliest wake request which is due, skipping requests which were
+     * replaced or whose Tile is no longer scheduled.
+     * @param time the current time
+     * @return the woken tile, or null if no request is due
+     */
+    public Tile pollDue(long time) {
+        while (this.sleeperCount > 0 && this.wakeTimes[0] <= time) {
+            long wakeTime = this.wakeTimes[0];
+            Tile tile = this.popSleeper();
+            if (tile.wakeTime != wakeTime || tile.getScheduler() != this) continue; //stale
+            tile.wakeTime = -1;
+            return tile;
+        }
+        return null;
+    }
+
+    //Update Method
+    public void update(float dt) {
+
+        //update active tiles - tiles removed meanwhile leave a gap, so no tile is moved into a slot already passed
+        this.updating = true;
+        for (int i = 0; i < this.activeCount; i++) {
+            Tile tile = this.active[i];
+            if (tile == null) continue; //removed earlier this update
+            tile.update(dt);
+            if (tile.activeIndex == i && !tile.isActive()) this.removeActive(i);
+        }
+        this.updating = false;
+
+        //close the gaps, keeping the order of the remaining tiles
+        int count = 0;
+        for (int i = 0; i < this.activeCount; i++) {
+            Tile tile = this.active[i];
+            if (tile == null) continue;
+            tile.activeIndex = count;
+            this.active[count++] = tile;
+        }
+        Arrays.fill(this.active, count, this.activeCount, null);
+        this.activeCount = count;
+    }
+
+    /**
+     * Removes the active Tile at the given index. During an update its slot is left empty until the
+     * update finishes. Otherwise, the last active Tile is moved into its place.
+     */
+    private void removeActive(int index) {
+        this.active[index].activeIndex = -1;
+        if (this.updating) {
+            this.active[index] = null;
+            return;
+        }
+        int last = --this.activeCount;
+        if (index != last) {
+            this.active[index] = this.active[last];
+            this.active[index].activeIndex = index;
+        }
+        this.active[last] = null;
+    }
+
+    /**
+     * Removes and returns the Tile with the earliest wake request.
+     */
+    private Tile popSleeper() {
+        Tile top = this.sleepers[0];
+        int last = --this.sleeperCount;
+        Tile lastTile = this.sleepers[last];
+        long lastTime = this.wakeTimes[last], lastOrder = this.requestOrders[last];
+        this.sleepers[last] = null;
+        int i = 0;
+        while (true) {
+            int child = (i << 1) + 1;
+            if (child >= last) break;
+            if (child + 1 < last && ActivityScheduler.before(this.wakeTimes[child + 1], this.requestOrders[child + 1],
+                    this.wakeTimes[child], this.requestOrders[child])) child++;
+            if (!ActivityScheduler.before(this.wakeTimes[child], this.requestOrders[child], lastTime, lastOrder)) break;
+            this.setSleeper(i, this.sleepers[child], this.wakeTimes[child], this.requestOrders[child]);
+            i = child;
+        }
+        if (last > 0) this.setSleeper(i, lastTile, lastTime, lastOrder);
+        return top;
+    }
+
+    /**
+     * Places a wake request at the given index of the heap.
+     */
+    private void setSleeper(int i, Tile tile, long time, long order) {
+        this.sleepers[i] = tile;
+        this.wakeTimes[i] = time;
+        this.requestOrders[i] = order;
+    }
+
+    /**
+     * @return whether the first wake request comes before the second
+     */
+    private static boolean before(long time, long order, long otherTime, long otherOrder) {
+        return time < otherTime || (time == otherTime && order < otherOrder);
+    }
+
+    //Accessors
+    public int getActiveCount() { return this.activeCount; }
+    public int getWaitingCount() { return this.sleeperCount; }
+}
@@ -0,0 +1,43 @@
+package com.jacoboaks.wandermobile.game.gameitem;
+
+import com.jacoboaks.wandermobile.game.AreaGrid;
+import com.jacoboaks.wandermobile.util.Node;
+
+import java.util.Random;
+
+/**
+ * Decides where an Entity wants to move next, and when it next wants to decide. Decisions for many Entities may be made at the same
+ * time on different threads, so a Behaviour must only read the Entity and grid it is given, never
+ * change them or any state of its own, and must take all of its randomness from the given Random.
+ * The move is carried out afterwards, and only if the destination can still be entered.
+ * Behaviours which can be saved describe themselves as a node with a type child, which
+ * Entity.nodeToBehaviour() reads back - this is also how an area's key gives its Entities a
+ * Behaviour.
+ */
+public interface Behaviour {
+
+    /**
+     * Decides the next move of an Entity.
+     * @param entity the entity to decide for
+     * @param gx the grid x of the entity
+     * @param gy the grid y of the entity
+     * @param grid the grid the entity moves across
+     * @param random the source of randomness for this decision
+     * @return the direction to move in, as one of FlowField's direction constants (NONE to stay)
+     */
+    byte decide(Entity entity, int gx, int gy, AreaGrid grid, Random random);
+
+    /**
+     * Decides how long an Entity waits before its next decision, so that it isn't visited until then.
+     * Is called after each decision.
+     * @param random the source of randomness for this decision
+     * @return how many rounds of decisions to wait (at least 1), or 0 to never decide again
+     */
+    int nextDecision(Random random);
+
+    /**
+     * @return a node describing this Behaviour which Entity.nodeToBehaviour() can read back, or null
+     * if this Behaviour depends on something which isn't saved and so can't be saved itself
+     */
+    Node toNode();
+}
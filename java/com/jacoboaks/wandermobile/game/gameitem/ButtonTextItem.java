@@ -103,6 +103,13 @@ public class ButtonTextItem extends TextItem {
         super.scale(factor);
     }
 
+    /**
+     * @return whether this ButtonTextItem is selected
+     */
+    public boolean isSelected() {
+        return this.selected;
+    }
+
     /**
      * Sets the action code of this ButtonTextItem to the given code.
      * @param actionCode the action code to assign to this ButtonTextItem.
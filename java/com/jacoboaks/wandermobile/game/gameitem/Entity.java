@@ -4,6 +4,7 @@ import com.jacoboaks.wandermobile.graphics.Font;
 import com.jacoboaks.wandermobile.graphics.Texture;
 import com.jacoboaks.wandermobile.util.Color;
 import com.jacoboaks.wandermobile.util.Node;
+import com.jacoboaks.wandermobile.util.Util;
 
 /**
  * Represents a living Tile - one that can move, has a health value, and has a level.
@@ -13,6 +14,7 @@ public class Entity extends Tile {
     //Data
     private int health, maxHealth;
     private int level;
+    private Behaviour behaviour; //decides where this entity moves (null if it only moves when told to)
 
     /**
      * Constructs this StaticTile using a colored character.
@@ -49,6 +51,7 @@ public class Entity extends Tile {
         this.health = other.health;
         this.maxHealth = other.maxHealth;
         this.level = other.level;
+        this.behaviour = other.behaviour;
     }
 
     /**
@@ -62,6 +65,8 @@ public class Entity extends Tile {
         this.health = Integer.parseInt(data.getChild("health").getValue());
         this.maxHealth = Integer.parseInt(data.getChild("maxHealth").getValue());
         this.level = Integer.parseInt(data.getChild("level").getValue());
+        Node behaviour = data.getChild("behaviour");
+        if (behaviour != null) this.behaviour = Entity.nodeToBehaviour(behaviour);
     }
 
     /**
@@ -74,6 +79,8 @@ public class Entity extends Tile {
         this.health = Integer.parseInt(data.getChild("health").getValue());
         this.maxHealth = Integer.parseInt(data.getChild("maxHealth").getValue());
         this.level = Integer.parseInt(data.getChild("level").getValue());
+        Node behaviour = data.getChild("behaviour");
+        if (behaviour != null) this.behaviour = Entity.nodeToBehaviour(behaviour);
     }
 
     /**
@@ -90,6 +97,23 @@ public class Entity extends Tile {
         }
     }
 
+    /**
+     * Creates a Behaviour from a node made by Behaviour.toNode(), such as the behaviour child of an
+     * Entity in an area's key.
+     * @param data the node describing the behaviour
+     * @return the described behaviour
+     */
+    public static Behaviour nodeToBehaviour(Node data) {
+        String type = data.getChild("type").getValue();
+        if (type.equals(WanderBehaviour.TYPE)) {
+            return new WanderBehaviour(Float.parseFloat(data.getChild("chance").getValue()));
+        } else if (type.equals(FollowFlowBehaviour.TYPE)) {
+            return new FollowFlowBehaviour();
+        }
+        throw Util.fatalError("Entity.java", "nodeToBehaviour(Node)", "Unknown behaviour type: " + type
+                + ". Options are: '" + WanderBehaviour.TYPE + "', '" + FollowFlowBehaviour.TYPE + "'");
+    }
+
     /**
      * Sets the basic entity info.
      * @param health the health this entity has
@@ -122,6 +146,10 @@ public class Entity extends Tile {
     public int getHealth() { return this.health; }
     public int getMaxHealth() { return this.maxHealth; }
     public int getLevel() { return this.level; }
+    public Behaviour getBehaviour() { return this.behaviour; }
+
+    //Mutators
+    public void setBehaviour(Behaviour behaviour) { this.behaviour = behaviour; }
 
     //Node Converter
     @Override
@@ -131,6 +159,8 @@ public class Entity extends Tile {
         data.addChild(new Node("health", Integer.toString(this.health)));
         data.addChild(new Node("maxHealth", Integer.toString(this.maxHealth)));
         data.addChild(new Node("level", Integer.toString(this.level)));
+        Node behaviour = this.behaviour == null ? null : this.behaviour.toNode();
+        if (behaviour != null) data.addChild(behaviour);
         return data;
     }
 }
@@ -0,0 +1,69 @@
+package com.jacoboaks.wandermobile.game.gameitem;
+
+import com.jacoboaks.wandermobile.game.AreaGrid;
+import com.jacoboaks.wandermobile.game.navigation.FlowField;
+import com.jacoboaks.wandermobile.util.Node;
+
+import java.util.Random;
+
+/**
+ * A Behaviour which steps along a FlowField towards its target, stopping once next to it. Loaded
+ * from a node it has no field yet, and stays put until the Area it joins gives it the Area's field
+ * (see Area.getFollowField()).
+ */
+public class FollowFlowBehaviour implements Behaviour {
+
+    //Static Data
+    public static final String TYPE = "follow"; //type of this behaviour in nodes
+
+    //Data
+    private final FlowField field; //the field to follow (null if not given one yet)
+
+    /**
+     * Constructs this FollowFlowBehaviour without a field to follow.
+     */
+    public FollowFlowBehaviour() {
+        this(null);
+    }
+
+    /**
+     * Constructs this FollowFlowBehaviour.
+     * @param field the field to follow
+     */
+    public FollowFlowBehaviour(FlowField field) {
+        this.field = field;
+    }
+
+    @Override
+    public byte decide(Entity entity, int gx, int gy, AreaGrid grid, Random random) {
+        if (this.field == null) return FlowField.NONE;
+        byte direction = this.field.getDirection(gx, gy);
+        if (direction == FlowField.TARGET) return FlowField.NONE;
+        int nx = gx + FlowField.getStepX(direction), ny = gy + FlowField.getStepY(direction);
+        if (this.field.getDirection(nx, ny) == FlowField.TARGET) return FlowField.NONE; //the target's cell is taken by the target
+        return direction;
+    }
+
+    /**
+     * @return 1, as the field may change every round
+     */
+    @Override
+    public int nextDecision(Random random) {
+        return 1;
+    }
+
+    //Accessors
+    public FlowField getField() { return this.field; }
+
+    //Node Converter
+    /**
+     * @return a node giving only the type of this Behaviour, as the field it follows is rebuilt
+     * rather than saved
+     */
+    @Override
+    public Node toNode() {
+        Node node = new Node("behaviour");
+        node.addChild("type", FollowFlowBehaviour.TYPE);
+        return node;
+    }
+}
@@ -72,6 +72,8 @@ public class GameItem {
     public boolean isVisible() { return this.visible; }
     public float getX() { return this.x; }
     public float getY() { return this.y; }
+    public float getVx() { return this.vx; }
+    public float getVy() { return this.vy; }
     public Model getModel() { return this.model; }
     public float getWidth() { return this.model.getWidth(); };
     public float getHeight() { return this.model.getHeight(); };
@@ -15,7 +15,11 @@ import java.util.ArrayList;
 import java.util.List;
 
 /**
- * Represents a configurable Keyboard for user input.
+ * Represents a configurable Keyboard for user input. The whole keyboard is built up front as a few
+ * batched models relative to its center - one holding every regular key, one every long key (such as
+ * shift and the space bar), and one holding the labels of every key for each shift state - so it
+ * draws in a handful of calls and shifting only swaps which label model is drawn. The key under the
+ * finger is highlighted by drawing its selected texture over it.
  */
 public class Keyboard extends GameItem {
 
@@ -27,9 +31,11 @@ public class Keyboard extends GameItem {
 
     //Static Keyboard Data
     private static Color backgroundColor = new Color(0.4f, 0.4f, 0.4f, 0.8f);
+    private static Color textColor = new Color(0.4f, 0.4f, 0.4f, 1.0f);
     private static final int DELETE_WIDTH = 2;
     private static final int SHIFT_WIDTH = 2;
     private static final int SPACE_BAR_WIDTH = 3;
+    private static final float KEY_PADDING = 0.02f; //padding between a key's label and its edge
     private static final char NON_CHARACTER_SHIFT_VALUE = (char)0;
 
     //Action Codes
@@ -37,7 +43,11 @@ public class Keyboard extends GameItem {
     private static final int SHIFT_ACTION_CODE = 1;
 
     //Instance Data
-    private List<KeyboardButton> buttons;
+    private List<Key> keys;
+    private Model keyModel; //every regular key
+    private Model longKeyModel; //every long key
+    private Model[] labelModels; //the labels of every key, unshifted then shifted
+    private Key selected; //the key under the finger (null if there is none)
     private boolean shifted;
 
     /**
@@ -61,10 +71,10 @@ public class Keyboard extends GameItem {
                                   Texture longButtonTexture, Texture selectedLongButtonTexture, int shiftRow, int deleteRow,
                                   float x, float y, float width, float height, float padding) {
 
-        //create keyboard background and button list
+        //create keyboard background and key list
         super(new Model(Model.getRectangleModelCoords(width, height), Model.STD_SQUARE_TEX_COORDS(),
                 Model.STD_SQUARE_DRAW_ORDER(), new Material(Keyboard.backgroundColor)), x ,y);
-        this.buttons = new ArrayList<>();
+        this.keys = new ArrayList<>();
         this.shifted = false;
 
         //calculate button height
@@ -87,107 +97,141 @@ public class Keyboard extends GameItem {
             buttonWidths.add(buttonWidth);
         }
 
-        //create text color
-        Color textColor = new Color(0.4f, 0.4f, 0.4f, 1.0f);
-
-        //create ButtonItems
-        float yp = this.y + height / 2 - (buttonHeight / 2) - padding;
+        //lay out keys relative to the center of the keyboard
+        float yp = height / 2 - (buttonHeight / 2) - padding;
         boolean shiftAccountedFor = false, deleteAccountedFor = false;
         for (int i = 0; i < amountOfRows; i++) {
 
-            //create buttons for row i
-            float xp = this.x - (width / 2) + (buttonWidths.get(i) / 2) + padding;
+            //lay out keys for row i
+            float xp = -(width / 2) + (buttonWidths.get(i) / 2) + padding;
             for (int j = 0; j < characterSet[i].length(); j++) {
 
-                //create button reference
-                ButtonItem nextButton = null;
-
-                //create delete button if appropriate
+                //create delete key if appropriate
                 if (i == deleteRow && !deleteAccountedFor) {
                     deleteAccountedFor = true;
-                    ButtonItem deleteButton = new ButtonItem("del", font, longButtonTexture, selectedLongButtonTexture,
-                            textColor, textColor, Keyboard.DELETE_ACTION_CODE, 0.02f, buttonWidths.get(i) * Keyboard.DELETE_WIDTH,
-                            buttonHeight);
-                    deleteButton.setX(this.x + (width / 2) - padding - (deleteButton.getWidth() / 2));
-                    deleteButton.setY(yp);
-                    this.buttons.add(new KeyboardButton(deleteButton, NON_CHARACTER_SHIFT_VALUE, NON_CHARACTER_SHIFT_VALUE));
+                    float deleteWidth = buttonWidths.get(i) * Keyboard.DELETE_WIDTH;
+                    this.keys.add(new Key(font, (width / 2) - padding - (deleteWidth / 2), yp, deleteWidth, buttonHeight,
+                            true, "del", "del", Keyboard.DELETE_ACTION_CODE, Keyboard.DELETE_ACTION_CODE));
                 }
 
-                //create shift button if appropriate
-                boolean shift = false;
+                //create shift key if appropriate
+                Key key;
                 if (i == shiftRow && !shiftAccountedFor) {
                     shiftAccountedFor = true;
-                    nextButton = new ButtonItem("shift", font, longButtonTexture, selectedLongButtonTexture,
-                            textColor, textColor, Keyboard.SHIFT_ACTION_CODE, 0.02f, buttonWidths.get(i) * Keyboard.SHIFT_WIDTH,
-                            buttonHeight);
-                    xp += nextButton.getWidth() / 2;
-                    xp -= (buttonWidths.get(i) / 2);
-                    shift = true;
+                    float shiftWidth = buttonWidths.get(i) * Keyboard.SHIFT_WIDTH;
+                    xp += shiftWidth / 2 - (buttonWidths.get(i) / 2);
+                    key = new Key(font, xp, yp, shiftWidth, buttonHeight, true, "shift", "shift",
+                            Keyboard.SHIFT_ACTION_CODE, Keyboard.SHIFT_ACTION_CODE);
                     j--;
                 }
 
-                //create space button if appropriate
+                //create space key if appropriate
                 else if (characterSet[i].charAt(j) == ' ') {
-                    nextButton = new ButtonItem(" ", font, longButtonTexture, selectedLongButtonTexture,
-                            textColor, textColor, characterSet[i].charAt(j), 0.02f, buttonWidths.get(i) * Keyboard.SPACE_BAR_WIDTH,
-                            buttonHeight);
-                    xp += nextButton.getWidth() / 2;
-                    xp -= (buttonWidths.get(i) / 2);
+                    float spaceWidth = buttonWidths.get(i) * Keyboard.SPACE_BAR_WIDTH;
+                    xp += spaceWidth / 2 - (buttonWidths.get(i) / 2);
+                    key = new Key(font, xp, yp, spaceWidth, buttonHeight, true, " ", " ", ' ', ' ');
                 }
 
-                //create any other type of button
+                //create any other type of key
                 else {
-                    nextButton = new ButtonItem(Character.toString(characterSet[i].charAt(j)), font, buttonTexture, selectedButtonTexture,
-                            textColor, textColor, characterSet[i].charAt(j), 0.02f, buttonWidths.get(i),
-                            buttonHeight);
+                    char unshifted = characterSet[i].charAt(j), shifted = characterSet[i + shiftAdd].charAt(j);
+                    key = new Key(font, xp, yp, buttonWidths.get(i), buttonHeight, false,
+                            Character.toString(unshifted), Character.toString(shifted), unshifted, shifted);
                 }
 
-                //set button position and add button
-                nextButton.setX(xp);
-                nextButton.setY(yp);
-                this.buttons.add(new KeyboardButton(nextButton, shift ? NON_CHARACTER_SHIFT_VALUE : characterSet[i].charAt(j),
-                        shift ? NON_CHARACTER_SHIFT_VALUE : characterSet[i + shiftAdd].charAt(j)));
-
-                //increment x position for next button
-                nextButton.setX(xp);
-                nextButton.setY(yp);
-                xp += (nextButton.getWidth() / 2) + padding + (buttonWidths.get(i) / 2);
+                //add key and increment x position for next key
+                this.keys.add(key);
+                xp += (key.width / 2) + padding + (buttonWidths.get(i) / 2);
             }
 
             //increment y position
             yp -= (padding + buttonHeight);
         }
+
+        //batch keys and labels
+        this.keyModel = this.createKeyModel(false, buttonTexture);
+        this.longKeyModel = this.createKeyModel(true, longButtonTexture);
+        this.labelModels = new Model[] { this.createLabelModel(font, false), this.createLabelModel(font, true) };
+        for (Key key : this.keys) key.createHighlight(key.isLong ? selectedLongButtonTexture : selectedButtonTexture);
     }
 
     /**
-     * Updates the selection of each button on the keyboard.
-     * @param e the MotionEvent to respond to
-     * @param touchPos the position of the touch in aspected space.
-     * @return -1 if nothing is selected, the action code of the selected button if one is pressed
+     * @return a model with a quad for every key of the given length
      */
-    public int updateSelections(MotionEvent e, Coord touchPos) {
+    private Model createKeyModel(boolean isLong, Texture texture) {
+        int count = 0;
+        for (Key key : this.keys) if (key.isLong == isLong) count++;
+        float[] modelCoords = new float[count * 12], textureCoords = new float[count * 8];
+        int[] drawOrder = new int[count * 6];
+        int k = 0;
+        for (Key key : this.keys) {
+            if (key.isLong != isLong) continue;
+            Keyboard.writeQuad(key, modelCoords, textureCoords, drawOrder, k++);
+        }
+        return new Model(modelCoords, textureCoords, drawOrder, new Material(texture));
+    }
 
-        //loop through buttons
-        int actionCode = -1;
-        for (KeyboardButton item : this.buttons) {
-            if (actionCode == -1) { //did not press current button in loop
-                actionCode = item.button.updateSelection(e, touchPos);
-            } else if (actionCode == Keyboard.SHIFT_ACTION_CODE) { //pressed shift
-                this.toggleShift();
-                return -1;
-            } else return actionCode; //found pressed button
+    /**
+     * @return a model with the label of every key in the given shift state
+     */
+    private Model createLabelModel(Font font, boolean shifted) {
+        int glyphs = 0;
+        for (Key key : this.keys) glyphs += key.getLabel(shifted).length();
+        float[] modelCoords = new float[glyphs * 12], textureCoords = new float[glyphs * 8];
+        int[] drawOrder = new int[glyphs * 6];
+        int written = 0;
+        for (Key key : this.keys) {
+            String label = key.getLabel(shifted);
+            TextItem.writeGlyphs(font, label, key.labelScale, key.x, key.y, modelCoords, textureCoords, drawOrder, written);
+            written += label.length();
         }
+        return new Model(modelCoords, textureCoords, drawOrder, new Material(font.getFontSheet(), Keyboard.textColor, true));
+    }
 
-        //return the determined action code
-        return actionCode;
+    /**
+     * Writes the quad of a key into arrays for a model.
+     * @param quad how many quads have already been written into the arrays
+     */
+    private static void writeQuad(Key key, float[] modelCoords, float[] textureCoords, int[] drawOrder, int quad) {
+        float[] corners = Model.getRectangleModelCoords(key.width, key.height);
+        for (int i = 0; i < corners.length; i += 3) {
+            modelCoords[quad * 12 + i] = corners[i] + key.x;
+            modelCoords[quad * 12 + i + 1] = corners[i + 1] + key.y;
+        }
+        System.arraycopy(Model.STD_SQUARE_TEX_COORDS(), 0, textureCoords, quad * 8, 8);
+        int[] order = Model.STD_SQUARE_DRAW_ORDER();
+        for (int i = 0; i < order.length; i++) drawOrder[quad * 6 + i] = order[i] + quad * 4;
     }
 
     /**
-     * Toggles the shift variation of this Keyboard.
+     * Updates which key is selected based on the user's input, pressing it if the finger is lifted
+     * over it.
+     * @param e the MotionEvent to respond to
+     * @param touchPos the position of the touch in aspected space.
+     * @return -1 if nothing is pressed, the action code of the pressed key if one is pressed
      */
-    private void toggleShift() {
-        this.shifted = !this.shifted;
-        for (KeyboardButton button : this.buttons) button.toggleShift(this.shifted);
+    public int updateSelections(MotionEvent e, Coord touchPos) {
+
+        //find the key under the finger
+        Key over = null;
+        float lx = touchPos.x - this.x, ly = touchPos.y - this.y;
+        for (Key key : this.keys) {
+            if (key.contains(lx, ly)) {
+                over = key;
+                break;
+            }
+        }
+
+        //press the key if the finger was lifted over it, otherwise select it
+        if (over != null && e.getAction() == MotionEvent.ACTION_UP) {
+            this.selected = null;
+            int actionCode = over.getActionCode(this.shifted);
+            if (actionCode != Keyboard.SHIFT_ACTION_CODE) return actionCode;
+            this.shifted = !this.shifted;
+            return -1;
+        }
+        this.selected = over;
+        return -1;
     }
 
     //Render Method
@@ -203,63 +247,69 @@ public class Keyboard extends GameItem {
         GLES20.glUniform1fv(shaderProgram.getUniformIndex("y"), 1,
                 new float[] { y }, 0);
 
-        //draw model and each button
+        //draw background, keys, highlight and labels
         this.model.render(shaderProgram);
-        for (KeyboardButton item : this.buttons) item.button.render(shaderProgram);
-    }
-
-    /**
-     * Sets the x value of this Keyboard in aspected/world coordinates.
-     * @param x the x value to set this Keyboard to
-     */
-    @Override
-    public void setX(float x) {
-        for (KeyboardButton item : this.buttons) item.button.moveX(x - this.x);
-        super.setX(x);
+        this.keyModel.render(shaderProgram);
+        this.longKeyModel.render(shaderProgram);
+        if (this.selected != null) this.selected.highlight.render(shaderProgram);
+        this.labelModels[this.shifted ? 1 : 0].render(shaderProgram);
     }
 
     /**
-     * Sets the y value of this Keyboard in aspected/world coordinates.
-     * @param y the y value to set this Keyboard to
+     * Represents a key on a Keyboard, placed relative to the Keyboard's center, with its label and
+     * action code for each shift state.
      */
-    @Override
-    public void setY(float y) {
-        for (KeyboardButton item : this.buttons) item.button.moveY(y - this.y);
-        super.setY(y);
-    }
-
-    /**
-     * Represents a button on a Keyboard. Contains a ButtonItem as well as shift data for the
-     * button.
-     */
-    private static class KeyboardButton {
+    private static class Key {
 
         //Data
-        ButtonItem button;
-        char unshifted, shifted;
+        final float x, y, width, height; //center and size of this key relative to the keyboard
+        final boolean isLong; //whether this key uses the long key textures
+        final String unshiftedLabel, shiftedLabel; //text shown on this key in each shift state
+        final int unshiftedCode, shiftedCode; //action code of this key in each shift state
+        final float labelScale; //scale the labels are written at to fit in this key
+        Model highlight; //this key with its selected texture
 
         /**
-         * Constructs this KeyboardButton with the given information.
-         * @param button the ButtonItem to use for this KeyboardButton
-         * @param unshifted the character that appears on this KeyboardButton when not shifted
-         * @param shifted the character that appears on this KeyboardButton when shifted
+         * Constructs this Key with the given information. The label scale is chosen to fit the
+         * unshifted label within the key and is used for both labels.
          */
-        public KeyboardButton(ButtonItem button, char unshifted, char shifted) {
-            this.button = button;
-            this.unshifted = unshifted;
-            this.shifted = shifted;
+        Key(Font font, float x, float y, float width, float height, boolean isLong, String unshiftedLabel,
+            String shiftedLabel, int unshiftedCode, int shiftedCode) {
+            this.x = x;
+            this.y = y;
+            this.width = width;
+            this.height = height;
+            this.isLong = isLong;
+            this.unshiftedLabel = unshiftedLabel;
+            this.shiftedLabel = shiftedLabel;
+            this.unshiftedCode = unshiftedCode;
+            this.shiftedCode = shiftedCode;
+            float sh = (height - (KEY_PADDING * 2)) / Model.STD_SQUARE_SIZE;
+            float sw = (width - (KEY_PADDING * 2)) / TextItem.measure(font, unshiftedLabel, 1f);
+            this.labelScale = Math.min(sh, sw);
         }
 
         /**
-         * Toggles shift for this KeyboardButton.
-         * @param shift whether shift is pressed or not
+         * Creates the model drawn over this key when it is selected.
+         * @param texture the selected texture of this key
          */
-        public void toggleShift(boolean shift) {
-            char toChangeTo = shift ? this.shifted : this.unshifted;
-            if (toChangeTo != NON_CHARACTER_SHIFT_VALUE) {
-                this.button.setText(Character.toString(toChangeTo));
-                this.button.setActionCode(toChangeTo);
-            }
+        void createHighlight(Texture texture) {
+            float[] modelCoords = new float[12], textureCoords = new float[8];
+            int[] drawOrder = new int[6];
+            Keyboard.writeQuad(this, modelCoords, textureCoords, drawOrder, 0);
+            this.highlight = new Model(modelCoords, textureCoords, drawOrder, new Material(texture));
         }
+
+        /**
+         * @return whether the given point relative to the keyboard is over this key
+         */
+        boolean contains(float lx, float ly) {
+            return lx > this.x - this.width / 2 && lx < this.x + this.width / 2
+                    && ly > this.y - this.height / 2 && ly < this.y + this.height / 2;
+        }
+
+        //Accessors
+        String getLabel(boolean shifted) { return shifted ? this.shiftedLabel : this.unshiftedLabel; }
+        int getActionCode(boolean shifted) { return shifted ? this.shiftedCode : this.unshiftedCode; }
     }
 }
@@ -0,0 +1,361 @@
+package com.jacoboaks.wandermobile.game.gameitem;
+
+import android.opengl.GLES20;
+
+import com.jacoboaks.wandermobile.game.Area;
+import com.jacoboaks.wandermobile.game.AreaGrid;
+import com.jacoboaks.wandermobile.game.TileStore;
+import com.jacoboaks.wandermobile.graphics.Material;
+import com.jacoboaks.wandermobile.graphics.Model;
+import com.jacoboaks.wandermobile.graphics.Texture;
+import com.jacoboaks.wandermobile.util.Color;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A HUD item showing the cells around the player as a small map, where each texel of its texture is
+ * one cell of the Area's grid colored by what is in it. The texture covers a square window of cells
+ * around the player and is addressed by grid position modulo its size, so when the player moves only
+ * the texture coordinates change and the cells coming into view take the places of those leaving it.
+ * The color of every texel is kept here as well. Cells the grid or the Area's static tiles report
+ * as changed, and the rows and columns coming into view when the player changes cell, are marked
+ * stale and only their colors are worked out again on the next update. Only texels whose color
+ * actually changed are uploaded, a run of each row at a time, so the whole map is never redrawn and
+ * a frame in which nothing changes costs almost nothing.
+ */
+public class Minimap extends GameItem implements AreaGrid.Listener, TileStore.Listener {
+
+    //Static Data
+    public static final int CELLS = 64; //cells along each side of the map - a power of two, so the texture repeats
+    private static final int MASK = CELLS - 1;
+    private static final int UNEXPLORED = 0x00000080; //color of cells which have never been seen (RGBA)
+    private static final int FLOOR = 0x303030FF; //color of explored cells with nothing in them (RGBA)
+    private static final float EXPLORED_BRIGHTNESS = 0.5f; //brightness of explored cells which can't currently be seen
+
+    //Data
+    private final Area area; //the area to map
+    private final Tile player; //the tile the map follows
+    private final Texture texture; //one texel per cell of the window
+    private final ByteBuffer texels; //color of each texel, row by row, as uploaded
+    private final int[] tiles; //index of the static tile in each texel's cell (-1 if there is none)
+    private final Tile[] occupants; //player or entity occupying each texel's cell (null if there is none)
+    private boolean occupantsStale; //whether occupants must be found again before it is next used
+    private final boolean[] stale, tileStale; //whether each texel's color, and its static tile, must be worked out again
+    private final int[] staleTexels; //texels marked stale, in the order they were marked
+    private int staleCount; //how many texels are marked stale
+    private final int[] dirtyMin, dirtyMax; //columns of each row changed since the last upload
+    private boolean dirty; //whether any texel has changed since the last upload
+    private int originX, originY; //grid position of the bottom left cell of the window
+
+    /**
+     * Constructs this Minimap, filling and uploading its whole texture and listening to the area's
+     * grid and static tiles for changes. Must be called on the GL thread.
+     * @param area the area to map
+     * @param player the tile the map follows
+     * @param size the width and height of the map in aspected space
+     */
+    public Minimap(Area area, Tile player, float size) {
+        super(new Model(Model.getRectangleModelCoords(size, size), Model.STD_SQUARE_TEX_COORDS(),
+                Model.STD_SQUARE_DRAW_ORDER(), new Material(Minimap.createTexture())), 0f, 0f);
+        this.area = area;
+        this.player = player;
+        this.texture = this.model.getMaterial().getTexture();
+        this.texels = ByteBuffer.allocateDirect(CELLS * CELLS * 4);
+        this.tiles = new int[CELLS * CELLS];
+        this.occupants = new Tile[CELLS * CELLS];
+        this.stale = new boolean[CELLS * CELLS];
+        this.tileStale = new boolean[CELLS * CELLS];
+        this.staleTexels = new int[CELLS * CELLS];
+        this.dirtyMin = new int[CELLS];
+        this.dirtyMax = new int[CELLS];
+        Arrays.fill(this.dirtyMin, CELLS);
+        Arrays.fill(this.dirtyMax, -1);
+
+        //fill and upload the whole texture once
+        this.originX = player.getCellX() - CELLS / 2;
+        this.originY = player.getCellY() - CELLS / 2;
+        this.updateTextureCoords();
+        this.refresh();
+        this.recolor();
+        GLES20.glBindTexture(GLES20.GL_TEXTURE_2D, this.texture.getID());
+        GLES20.glTexSubImage2D(GLES20.GL_TEXTURE_2D, 0, 0, 0, CELLS, CELLS, GLES20.GL_RGBA,
+                GLES20.GL_UNSIGNED_BYTE, this.texels);
+        Arrays.fill(this.dirtyMin, CELLS);
+        Arrays.fill(this.dirtyMax, -1);
+        this.dirty = false;
+        area.getGrid().setListener(this);
+        area.getStaticTiles().setListener(this);
+    }
+
+    /**
+     * @return the texture of a minimap, with nearest filtering so cells stay sharp and repeating
+     * wrapping so the window may start anywhere in it
+     */
+    private static Texture createTexture() {
+        Texture texture = new Texture(CELLS, CELLS);
+        GLES20.glBindTexture(GLES20.GL_TEXTURE_2D, texture.getID());
+        GLES20.glTexParameterf(GLES20.GL_TEXTURE_2D, GLES20.GL_TEXTURE_MAG_FILTER, GLES20.GL_NEAREST);
+        GLES20.glTexParameterf(GLES20.GL_TEXTURE_2D, GLES20.GL_TEXTURE_MIN_FILTER, GLES20.GL_NEAREST);
+        GLES20.glTexParameterf(GLES20.GL_TEXTURE_2D, GLES20.GL_TEXTURE_WRAP_S, GLES20.GL_REPEAT);
+        GLES20.glTexParameterf(GLES20.GL_TEXTURE_2D, GLES20.GL_TEXTURE_WRAP_T, GLES20.GL_REPEAT);
+        return texture;
+    }
+
+    //Update Method
+    /**
+     * Moves the window with the player, works out the colors of stale texels again and uploads any
+     * changed texels. Must be called on the GL thread.
+     * @param dt the time since the last update, in milliseconds
+     */
+    @Override
+    public void update(float dt) {
+
+        //move window if the player changed cell
+        int originX = this.player.getCellX() - CELLS / 2, originY = this.player.getCellY() - CELLS / 2;
+        if (originX != this.originX || originY != this.originY) this.moveWindow(originX, originY);
+        if (this.staleCount > 0) this.recolor();
+
+        //upload changed runs of each row
+        if (!this.dirty) return;
+        GLES20.glBindTexture(GLES20.GL_TEXTURE_2D, this.texture.getID());
+        for (int row = 0; row < CELLS; row++) {
+            if (this.dirtyMin[row] > this.dirtyMax[row]) continue;
+            this.texels.position((row * CELLS + this.dirtyMin[row]) * 4);
+            GLES20.glTexSubImage2D(GLES20.GL_TEXTURE_2D, 0, this.dirtyMin[row], row,
+                    this.dirtyMax[row] - this.dirtyMin[row] + 1, 1, GLES20.GL_RGBA, GLES20.GL_UNSIGNED_BYTE, this.texels);
+            this.dirtyMin[row] = CELLS;
+            this.dirtyMax[row] = -1;
+        }
+        this.texels.position(0);
+        this.dirty = false;
+    }
+
+    /**
+     * Moves the window to a new origin. Only the columns and rows coming into view take the places
+     * of those leaving it, so only they are marked stale - unless the window jumped further than its
+     * own size, in which case every texel is found again.
+     */
+    private void moveWindow(int originX, int originY) {
+        int dx = originX - this.originX, dy = originY - this.originY;
+        this.originX = originX;
+        this.originY = originY;
+        this.updateTextureCoords();
+        if (Math.abs(dx) >= CELLS || Math.abs(dy) >= CELLS) {
+            this.refresh();
+            return;
+        }
+
+        //columns coming into view
+        int minX = dx > 0 ? originX + CELLS - dx : originX, maxX = dx > 0 ? originX + CELLS : originX - dx;
+        for (int gx = minX; gx < maxX; gx++) {
+            for (int gy = originY; gy < originY + CELLS; gy++) this.markEntered(gx, gy);
+        }
+
+        //rows coming into view
+        int minY = dy > 0 ? originY + CELLS - dy : originY, maxY = dy > 0 ? originY + CELLS : originY - dy;
+        for (int gy = minY; gy < maxY; gy++) {
+            for (int gx = originX; gx < originX + CELLS; gx++) this.markEntered(gx, gy);
+        }
+        this.occupantsStale = true;
+    }
+
+    /**
+     * Finds the static tile in every cell of the window by going through every static tile once, and
+     * marks every texel stale.
+     */
+    private void refresh() {
+        TileStore store = this.area.getStaticTiles();
+        Arrays.fill(this.tiles, -1);
+        Arrays.fill(this.tileStale, false);
+        for (int i = 0; i < store.getCount(); i++) {
+            if ((store.getFlags(i) & TileStore.FLAG_INVISIBLE) != 0) continue;
+            int gx = store.getGridX(i), gy = store.getGridY(i);
+            if (this.inWindow(gx, gy)) this.tiles[Minimap.texel(gx, gy)] = i;
+        }
+        for (int gy = this.originY; gy < this.originY + CELLS; gy++) {
+            for (int gx = this.originX; gx < this.originX + CELLS; gx++) this.markStale(gx, gy);
+        }
+        this.occupantsStale = true;
+    }
+
+    /**
+     * Works out the color of every stale texel again, first finding the static tile of those whose
+     * tile is stale. Only texels whose color changed are marked to be uploaded.
+     */
+    private void recolor() {
+        TileStore store = this.area.getStaticTiles();
+        for (int k = 0; k < this.staleCount; k++) {
+            int texel = this.staleTexels[k];
+            this.stale[texel] = false;
+            int gx = this.originX + (((texel & MASK) - this.originX) & MASK);
+            int gy = this.originY + (((texel / CELLS) - this.originY) & MASK);
+            if (this.tileStale[texel]) {
+                this.tileStale[texel] = false;
+                int tile = store.find(gx, gy);
+                this.tiles[texel] = tile >= 0 && (store.getFlags(tile) & TileStore.FLAG_INVISIBLE) == 0 ? tile : -1;
+            }
+            this.setTexel(gx, gy, this.colorOf(gx, gy));
+        }
+        this.staleCount = 0;
+    }
+
+    /**
+     * Marks a cell which just came into view stale, along with its static tile.
+     */
+    private void markEntered(int gx, int gy) {
+        this.tileStale[Minimap.texel(gx, gy)] = true;
+        this.markStale(gx, gy);
+    }
+
+    /**
+     * Marks the texel of a cell in the window stale, so its color is worked out again on the next
+     * update. Cells outside of the window are ignored.
+     */
+    private void markStale(int gx, int gy) {
+        if (!this.inWindow(gx, gy)) return;
+        int texel = Minimap.texel(gx, gy);
+        if (this.stale[texel]) return;
+        this.stale[texel] = true;
+        this.staleTexels[this.staleCount++] = texel;
+    }
+
+    @Override
+    public void cellChanged(int gx, int gy) {
+        this.occupantsStale = true; //its occupant may have changed
+        this.markStale(gx, gy);
+    }
+
+    @Override
+    public void chunkChanged(AreaGrid.Chunk chunk) {
+        int minX = Math.max(chunk.getMinX(), this.originX), maxX = Math.min(chunk.getMinX() + AreaGrid.CHUNK_SIZE, this.originX + CELLS);
+        int minY = Math.max(chunk.getMinY(), this.originY), maxY = Math.min(chunk.getMinY() + AreaGrid.CHUNK_SIZE, this.originY + CELLS);
+        for (int gy = minY; gy < maxY; gy++) {
+            for (int gx = minX; gx < maxX; gx++) this.markStale(gx, gy);
+        }
+    }
+
+    @Override
+    public void tileChanged(int gx, int gy) {
+        if (!this.inWindow(gx, gy)) return;
+        this.tileStale[Minimap.texel(gx, gy)] = true;
+        this.markStale(gx, gy);
+    }
+
+    /**
+     * @return the color of the cell at the given grid position, as RGBA
+     */
+    private int colorOf(int gx, int gy) {
+
+        //hide unexplored cells
+        AreaGrid grid = this.area.getGrid();
+        AreaGrid.Chunk chunk = grid.getChunkAt(gx, gy);
+        if (chunk == null ? !grid.isExplored(gx, gy) : !chunk.isExplored(gx, gy)) return UNEXPLORED;
+
+        //show occupants of cells which can be seen
+        boolean visible = chunk != null && chunk.isVisible(gx, gy);
+        if (visible && grid.isOccupied(gx, gy)) {
+            Tile occupant = this.findOccupant(gx, gy);
+            if (occupant != null) return Minimap.pack(occupant.getModel().getMaterial().getColor(), 1f);
+        }
+
+        //show static tile or floor
+        int tile = this.tiles[Minimap.texel(gx, gy)];
+        float brightness = visible ? 1f : EXPLORED_BRIGHTNESS;
+        if (tile < 0) return Minimap.pack(FLOOR, brightness);
+        return Minimap.pack(this.area.getStaticTiles().getType(tile).getModel().getMaterial().getColor(), brightness);
+    }
+
+    /**
+     * @return the tile occupying the cell at the given grid position, or null if it isn't the player
+     * or an entity of the area
+     */
+    private Tile findOccupant(int gx, int gy) {
+        if (this.player.getCellX() == gx && this.player.getCellY() == gy) return this.player;
+        if (this.occupantsStale) this.findOccupants();
+        return this.occupants[Minimap.texel(gx, gy)];
+    }
+
+    /**
+     * Finds the entity occupying every cell of the window by going through the area's entities once.
+     */
+    private void findOccupants() {
+        Arrays.fill(this.occupants, null);
+        List<Entity> entities = this.area.getEntities();
+        for (int i = 0; i < entities.size(); i++) {
+            Entity entity = entities.get(i);
+            int gx = entity.getCellX(), gy = entity.getCellY();
+            if (!this.inWindow(gx, gy)) continue;
+            int texel = Minimap.texel(gx, gy);
+            if (this.occupants[texel] == null) this.occupants[texel] = entity;
+        }
+        this.occupantsStale = false;
+    }
+
+    /**
+     * Sets the color of the texel of a cell, marking it to be uploaded if it changed.
+     */
+    private void setTexel(int gx, int gy, int color) {
+        int column = gx & MASK, row = gy & MASK, offset = (row * CELLS + column) * 4;
+        if (this.texels.getInt(offset) == color) return;
+        this.texels.putInt(offset, color);
+        if (column < this.dirtyMin[row]) this.dirtyMin[row] = column;
+        if (column > this.dirtyMax[row]) this.dirtyMax[row] = column;
+        this.dirty = true;
+    }
+
+    /**
+     * Points the texture coordinates at the window, which may wrap around the edges of the texture.
+     */
+    private void updateTextureCoords() {
+        float u0 = (this.originX & MASK) / (float)CELLS, u1 = u0 + 1f;
+        float v0 = (this.originY & MASK) / (float)CELLS, v1 = v0 + 1f;
+        this.model.setTextureCoords(new float[] {
+                u0, v0, //bottom left
+                u0, v1, //top left
+                u1, v0, //bottom right
+                u1, v1 }); //top right
+    }
+
+    /**
+     * @return whether the cell at the given grid position is within the window
+     */
+    private boolean inWindow(int gx, int gy) {
+        return gx >= this.originX && gy >= this.originY && gx < this.originX + CELLS && gy < this.originY + CELLS;
+    }
+
+    /**
+     * @return the index of the texel of the cell at the given grid position
+     */
+    private static int texel(int gx, int gy) {
+        return ((gy & MASK) * CELLS) + (gx & MASK);
+    }
+
+    /**
+     * @return the given color scaled by the given brightness, as RGBA
+     */
+    private static int pack(Color color, float brightness) {
+        return ((int)(color.getR() * brightness * 255f) & 0xFF) << 24 | ((int)(color.getG() * brightness * 255f) & 0xFF) << 16
+                | ((int)(color.getB() * brightness * 255f) & 0xFF) << 8 | ((int)(color.getA() * 255f) & 0xFF);
+    }
+
+    /**
+     * @return the given RGBA color with its red, green and blue scaled by the given brightness
+     */
+    private static int pack(int color, float brightness) {
+        return ((int)((color >>> 24) * brightness) & 0xFF) << 24 | ((int)(((color >>> 16) & 0xFF) * brightness) & 0xFF) << 16
+                | ((int)(((color >>> 8) & 0xFF) * brightness) & 0xFF) << 8 | (color & 0xFF);
+    }
+
+    //Cleanup Method
+    /**
+     * Stops listening to the area's grid and static tiles and deletes the texture. Must be called on
+     * the GL thread.
+     */
+    public void cleanup() {
+        this.area.getGrid().setListener(null);
+        this.area.getStaticTiles().setListener(null);
+        this.texture.delete();
+    }
+}
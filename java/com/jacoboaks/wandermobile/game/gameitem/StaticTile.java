@@ -7,12 +7,14 @@ import com.jacoboaks.wandermobile.util.Node;
 
 /**
  * Represents a Tile which would not normally move (although it may). Collision with
- * them depends on their maneuverability factor, explained below.
+ * them depends on their maneuverability factor, explained below. Whether they block the player's
+ * sight is set separately, but defaults to whether they block movement.
  */
 public class StaticTile extends Tile {
 
     //Data
     private int maneuverability; //how maneuverable the tile is - 0 -> non-maneuverable, 1 -> maneuverable
+    private boolean blocksSight; //whether the tile hides what is behind it - by default, if non-maneuverable
 
     /**
      * Constructs this StaticTile using a colored character.
@@ -27,6 +29,7 @@ public class StaticTile extends Tile {
     public StaticTile(String name, Font font, char symbol, Color color, int gx, int gy, int maneuverability) {
         super(name, font, symbol, color, gx, gy);
         this.maneuverability = maneuverability;
+        this.blocksSight = maneuverability == 0;
     }
 
     /**
@@ -40,6 +43,7 @@ public class StaticTile extends Tile {
     public StaticTile(String name, Texture texture, int gx, int gy, int maneuverability) {
         super(name, texture, gx, gy);
         this.maneuverability = maneuverability;
+        this.blocksSight = maneuverability == 0;
     }
 
     /**
@@ -49,6 +53,7 @@ public class StaticTile extends Tile {
     public StaticTile(StaticTile other) {
         super(other);
         this.maneuverability = other.maneuverability;
+        this.blocksSight = other.blocksSight;
     }
 
     /**
@@ -59,6 +64,7 @@ public class StaticTile extends Tile {
     public StaticTile(Tile other, int maneuverability) {
         super(other);
         this.maneuverability = maneuverability;
+        this.blocksSight = maneuverability == 0;
     }
 
     /**
@@ -70,6 +76,8 @@ public class StaticTile extends Tile {
     protected StaticTile(Node data, Font font) {
         super(data, font);
         this.maneuverability = Integer.parseInt(data.getChild("maneuverability").getValue());
+        Node blocksSight = data.getChild("blocksSight");
+        this.blocksSight = blocksSight == null ? this.maneuverability == 0 : Boolean.parseBoolean(blocksSight.getValue());
     }
 
     /**
@@ -80,6 +88,8 @@ public class StaticTile extends Tile {
     protected StaticTile(Node data) {
         super(data);
         this.maneuverability = Integer.parseInt(data.getChild("maneuverability").getValue());
+        Node blocksSight = data.getChild("blocksSight");
+        this.blocksSight = blocksSight == null ? this.maneuverability == 0 : Boolean.parseBoolean(blocksSight.getValue());
     }
 
     /**
@@ -96,8 +106,13 @@ public class StaticTile extends Tile {
         }
     }
 
-    //Accessor
+    //Accessors
     public int getManeuverability() { return this.maneuverability; }
+    public boolean blocksMovement() { return this.maneuverability == 0; }
+    public boolean blocksSight() { return this.blocksSight; }
+
+    //Mutators
+    public void setBlocksSight(boolean blocksSight) { this.blocksSight = blocksSight; }
 
     //Node Converter
     @Override
@@ -105,6 +120,7 @@ public class StaticTile extends Tile {
         Node data = super.toNode();
         data.setName("StaticTile");
         data.addChild(new Node("maneuverability", Integer.toString(this.maneuverability)));
+        data.addChild(new Node("blocksSight", Boolean.toString(this.blocksSight)));
         return data;
     }
 }
@@ -3,10 +3,6 @@ package com.jacoboaks.wandermobile.game.gameitem;
 import com.jacoboaks.wandermobile.graphics.Font;
 import com.jacoboaks.wandermobile.graphics.Material;
 import com.jacoboaks.wandermobile.graphics.Model;
-import com.jacoboaks.wandermobile.util.Util;
-
-import java.util.ArrayList;
-import java.util.List;
 
 /**
  * Models text as a GameItem.
@@ -52,80 +48,68 @@ public class TextItem extends GameItem {
      * @param text the text to display
      */
     private void updateModel(String text) {
+        float[] modelCoords = new float[text.length() * 12];
+        float[] textureCoords = new float[text.length() * 8];
+        int[] drawOrder = new int[text.length() * 6];
+        TextItem.writeGlyphs(this.font, text, this.scale, 0f, 0f, modelCoords, textureCoords, drawOrder, 0);
+        this.model = new Model(modelCoords, textureCoords, drawOrder, this.model.getMaterial());
+    }
 
-        //create lists
-        List<Float> modelCoords = new ArrayList<>();
-        List<Float> textureCoords = new ArrayList<>();
-        List<Integer> drawOrder = new ArrayList<>();
-
-        //get character width and height
-        float characterWidth = font.getCharacterWidth();
+    /**
+     * @return the width of the given text when written at the given scale
+     */
+    static float measure(Font font, String text, float scale) {
+        float width = 0f;
+        for (int i = 0; i < text.length(); i++) width += font.getCharacterAdvance(text.charAt(i)) * scale;
+        return width;
+    }
 
-        //add each letter
-        float x = 0;
+    /**
+     * Writes one quad for each character of a line of text, centered on a point, into arrays for
+     * a model. The arrays may hold the quads of other text before and after, so many lines can be
+     * drawn as one model.
+     * @param font the font to write with
+     * @param text the text to write
+     * @param scale the scale to write at
+     * @param cx the x of the center of the line
+     * @param cy the y of the center of the line
+     * @param modelCoords the model coordinates to write into, twelve for each character
+     * @param textureCoords the texture coordinates to write into, eight for each character
+     * @param drawOrder the draw order to write into, six for each character
+     * @param first how many characters have already been written into the arrays
+     */
+    static void writeGlyphs(Font font, String text, float scale, float cx, float cy, float[] modelCoords,
+                            float[] textureCoords, int[] drawOrder, int first) {
+        float x = cx - TextItem.measure(font, text, scale) / 2;
+        float bottom = cy - Model.STD_SQUARE_SIZE * scale / 2, top = cy + Model.STD_SQUARE_SIZE * scale / 2;
         for (int i = 0; i < text.length(); i++) {
 
             //get character and texture coordinates
             char character = text.charAt(i);
-            float[] texCoords = font.getCharacterTextureCoordinates(character, true);
-
-            //top left vertex
-            modelCoords.add(x); //x
-            modelCoords.add(-Model.STD_SQUARE_SIZE * this.scale); //y
-            modelCoords.add(0f); //z
-            textureCoords.add(texCoords[0]); //x
-            textureCoords.add(texCoords[1]); //y
-
-            //bottom left
-            modelCoords.add(x); //x
-            modelCoords.add(0f); //y
-            modelCoords.add(0f); //z
-            textureCoords.add(texCoords[2]); //x
-            textureCoords.add(texCoords[3]); //y
-
-            //figure out model width for character
-            int cutoff = font.getCharacterCutoff(character);
-            float cwidth = characterWidth - (float)(cutoff * 2);
-            float modelcwidth = cwidth / characterWidth * Model.STD_SQUARE_SIZE;
-            x += (modelcwidth * this.scale);
-
-            //top right
-            modelCoords.add(x); //x
-            modelCoords.add(-Model.STD_SQUARE_SIZE * this.scale); //y
-            modelCoords.add(0f); //z
-            textureCoords.add(texCoords[4]); //x
-            textureCoords.add(texCoords[5]); //y
-
-            //bottom right
-            modelCoords.add(x); //x
-            modelCoords.add(0f); //y
-            modelCoords.add(0f); //z
-            textureCoords.add(texCoords[6]); //x
-            textureCoords.add(texCoords[7]); //y
+            float width = font.getCharacterAdvance(character) * scale;
+            int glyph = first + i, m = glyph * 12;
+            font.writeCharacterTextureCoordinates(character, true, textureCoords, glyph * 8);
+
+            //top left, bottom left, top right and bottom right vertices
+            modelCoords[m] = x;
+            modelCoords[m + 1] = bottom;
+            modelCoords[m + 3] = x;
+            modelCoords[m + 4] = top;
+            modelCoords[m + 6] = x + width;
+            modelCoords[m + 7] = bottom;
+            modelCoords[m + 9] = x + width;
+            modelCoords[m + 10] = top;
+            x += width;
 
             //draw order
-            drawOrder.add(i * 4);
-            drawOrder.add(i * 4 + 1);
-            drawOrder.add(i * 4 + 2);
-            drawOrder.add(i * 4 + 2);
-            drawOrder.add(i * 4 + 1);
-            drawOrder.add(i * 4 + 3);
-        }
-
-        //move to middle x
-        float[] modelCoordsArr = new float[modelCoords.size()];
-        for (int i = 0; i < modelCoords.size(); i++) {
-            if (i % 3 == 0) modelCoordsArr[i] = modelCoords.get(i) - x / 2;
-            else if (i % 3 == 1) modelCoordsArr[i] = modelCoords.get(i) + (Model.STD_SQUARE_SIZE * this.scale) / 2;
-            else modelCoordsArr[i] = 0;
+            int d = glyph * 6, v = glyph * 4;
+            drawOrder[d] = v;
+            drawOrder[d + 1] = v + 1;
+            drawOrder[d + 2] = v + 2;
+            drawOrder[d + 3] = v + 2;
+            drawOrder[d + 4] = v + 1;
+            drawOrder[d + 5] = v + 3;
         }
-
-        //convert lists to arrays
-        float[] textureCoordsArr = Util.flistToArray(textureCoords);
-        int[] drawOrderArr = Util.ilistToArray(drawOrder);
-
-        //create and set model
-        this.model = new Model(modelCoordsArr, textureCoordsArr, drawOrderArr, this.model.getMaterial());
     }
 
     //Mutators
@@ -1,5 +1,6 @@
 package com.jacoboaks.wandermobile.game.gameitem;
 
+import com.jacoboaks.wandermobile.game.AreaGrid;
 import com.jacoboaks.wandermobile.graphics.Font;
 import com.jacoboaks.wandermobile.graphics.Material;
 import com.jacoboaks.wandermobile.graphics.Model;
@@ -28,6 +29,11 @@ public class Tile extends GameItem {
     private char symbol; //symbol of the tile
     private boolean isMoving = false; //whether or not the tile is currently undergoing a moving animation
     private boolean symbolTile; //whether or not this tile is a symbol tile (true) or texture (false)
+    private AreaGrid grid; //the grid this tile occupies a cell of and moves across (null if unrestricted)
+    private int cellX, cellY; //the cell this tile occupies in its grid
+    private ActivityScheduler scheduler; //the scheduler which updates this tile (null if updated directly)
+    int activeIndex = -1; //index of this tile in its scheduler's active tiles (-1 if not active)
+    long wakeTime = -1; //time of this tile's wake request in its scheduler (-1 if it made none)
 
     /**
      * Constructs this Tile using a colored character.
@@ -172,11 +178,22 @@ public class Tile extends GameItem {
     }
 
     /**
-     * Begins a movement animation to the given world position.
+     * Begins a movement animation to the given world position. If this Tile moves across a grid,
+     * the move only begins if the destination can be entered, and this Tile occupies the
+     * destination from the moment it begins.
      * @param dgx the amount of grid x to move by (delta x)
      * @param dgy the amount of grid y to move by
+     * @return whether the movement began
      */
-    public void moveGridPos(int dgx, int dgy) {
+    public boolean moveGridPos(int dgx, int dgy) {
+
+        //check and occupy destination
+        if (this.grid != null) {
+            int gx = this.cellX + dgx, gy = this.cellY + dgy;
+            if (!this.grid.canEnter(gx, gy)) return false;
+            this.occupy(gx, gy);
+        }
+        this.wake();
 
         //set target x and target y
         Coord dpos = new Coord(dgx, dgy);
@@ -190,6 +207,7 @@ public class Tile extends GameItem {
 
         //set moving flag to true
         this.isMoving = true;
+        return true;
     }
 
     /**
@@ -201,6 +219,7 @@ public class Tile extends GameItem {
         this.igx = dgx;
         this.igy = dgy;
         this.impendingMovementTime = Tile.IMPENDING_MOVEMENT_TIME;
+        this.wake();
     }
 
     /**
@@ -231,13 +250,70 @@ public class Tile extends GameItem {
         Transformation.gridToWorld(position);
         this.x = position.x;
         this.y = position.y;
+        if (this.grid != null) this.occupy(gx, gy);
+    }
+
+    /**
+     * Sets the grid this Tile moves across, moving its occupancy from the previous grid (if any) to
+     * the cell of the new one at its current position.
+     * @param grid the grid to move across, or null to move without restriction
+     */
+    public void setGrid(AreaGrid grid) {
+        if (this.grid != null) this.grid.removeOccupant(this, this.cellX, this.cellY);
+        this.grid = grid;
+        if (grid != null) {
+            Coord position = this.getGridPosition();
+            this.cellX = (int)position.x;
+            this.cellY = (int)position.y;
+            grid.addOccupant(this, this.cellX, this.cellY);
+        }
+    }
+
+    /**
+     * Asks this Tile's scheduler (if any) to start updating it.
+     */
+    private void wake() {
+        if (this.scheduler != null) this.scheduler.wake(this);
     }
 
+    /**
+     * Moves this Tile's occupancy in its grid to the given cell.
+     */
+    private void occupy(int gx, int gy) {
+        this.grid.removeOccupant(this, this.cellX, this.cellY);
+        this.cellX = gx;
+        this.cellY = gy;
+        this.grid.addOccupant(this, gx, gy);
+    }
+
+    //Mutators
+    @Override
+    public void setVx(float vx) {
+        super.setVx(vx);
+        this.wake();
+    }
+    @Override
+    public void setVy(float vy) {
+        super.setVy(vy);
+        this.wake();
+    }
+    void setScheduler(ActivityScheduler scheduler) { this.scheduler = scheduler; }
+
     //Accessors
     public boolean isMoving() { return this.isMoving; }
+    public boolean isActive() {
+        return this.isMoving || this.impendingMovementTime > 0 || this.vx != 0 || this.vy != 0;
+    }
+    public ActivityScheduler getScheduler() { return this.scheduler; }
     public boolean hasImpendingMovement() { return this.impendingMovementTime > 0.01f; }
     public char getSymbol() { return this.symbol; }
+    public boolean isSymbolTile() { return this.symbolTile; }
     public String getName() { return this.name; }
+    public AreaGrid getGrid() { return this.grid; }
+    public int getGridX() { return Transformation.worldToGrid(this.x); }
+    public int getGridY() { return Transformation.worldToGrid(this.y); }
+    public int getCellX() { return this.cellX; }
+    public int getCellY() { return this.cellY; }
     public Coord getGridPosition() {
         Coord position = new Coord(this.x, this.y);
         Transformation.worldToGrid(position);
@@ -0,0 +1,60 @@
+package com.jacoboaks.wandermobile.game.gameitem;
+
+import com.jacoboaks.wandermobile.game.AreaGrid;
+import com.jacoboaks.wandermobile.game.navigation.FlowField;
+import com.jacoboaks.wandermobile.util.Node;
+
+import java.util.Random;
+
+/**
+ * A Behaviour which now and then steps in a random direction. Rather than rolling for a step every
+ * round, the number of rounds until the next step is drawn up front, so an Entity which rarely
+ * wanders is rarely visited.
+ */
+public class WanderBehaviour implements Behaviour {
+
+    //Static Data
+    public static final String TYPE = "wander"; //type of this behaviour in nodes
+    private static final int MAX_WAIT = 1024; //most rounds to wait between steps
+
+    //Data
+    private final float chance; //chance of stepping each round, from 0 to 1
+
+    /**
+     * Constructs this WanderBehaviour.
+     * @param chance the chance of stepping each round, from 0 to 1
+     */
+    public WanderBehaviour(float chance) {
+        this.chance = chance;
+    }
+
+    @Override
+    public byte decide(Entity entity, int gx, int gy, AreaGrid grid, Random random) {
+        byte direction = (byte)(FlowField.RIGHT + random.nextInt(4));
+        if (!grid.canEnter(gx + FlowField.getStepX(direction), gy + FlowField.getStepY(direction))) return FlowField.NONE;
+        return direction;
+    }
+
+    /**
+     * Draws the rounds until the next step as if rolling for a step each round.
+     */
+    @Override
+    public int nextDecision(Random random) {
+        if (this.chance <= 0f) return 0;
+        if (this.chance >= 1f) return 1;
+        double wait = 1 + Math.floor(Math.log(1.0 - random.nextDouble()) / Math.log(1.0 - this.chance));
+        return (int)Math.min(wait, MAX_WAIT);
+    }
+
+    //Accessors
+    public float getChance() { return this.chance; }
+
+    //Node Converter
+    @Override
+    public Node toNode() {
+        Node node = new Node("behaviour");
+        node.addChild("type", WanderBehaviour.TYPE);
+        node.addChild("chance", Float.toString(this.chance));
+        return node;
+    }
+}
@@ -12,6 +12,7 @@ import com.jacoboaks.wandermobile.game.gameitem.TextItem;
 import com.jacoboaks.wandermobile.graphics.Font;
 import com.jacoboaks.wandermobile.graphics.Material;
 import com.jacoboaks.wandermobile.util.Global;
+import com.jacoboaks.wandermobile.util.Journal;
 import com.jacoboaks.wandermobile.util.Node;
 import com.jacoboaks.wandermobile.util.Util;
 
@@ -32,14 +33,31 @@ public class DeleteSlotLogic implements GameLogic {
     private Bundle savedInstanceData;
     private int slot;
     private boolean yesChosen = false;
+    private boolean preloaded = false;
+    private boolean logicChangeStarted = false; //whether the next logic has started loading
+
+    //Preloading Method
+    @Override
+    public void preload() {
+        this.font = new Font(Global.defaultFontID, Global.defaultFontCuttoffsID, 10, 10, ' ');
+        this.initHUD();
+        this.preloaded = true;
+    }
 
     //Initialization Method
     @Override
     public void init() {
 
-        //set clear color and font
+        //make sure font and hud are loaded and set clear color
+        if (!this.preloaded) this.preload();
+        this.preloaded = false;
         GLES20.glClearColor(0.6f, 0.6f, 0.6f, 1.0f);
-        this.font = new Font(Global.defaultFontID, Global.defaultFontCuttoffsID, 10, 10, ' ');
+    }
+
+    /**
+     * Reads the slot to delete and creates the HUD.
+     */
+    private void initHUD() {
 
         //get transfer data
         this.slot = Integer.parseInt(MainActivity.getLogicTransferData().getChild("slot").getValue());
@@ -110,24 +128,30 @@ public class DeleteSlotLogic implements GameLogic {
         //update hud
         this.hud.update(dt);
 
-        //change logic if fade completed
-        if (this.hud.fadeOutCompleted()) {
-
-            //delete
-            if (this.yesChosen) {
-
-                File saveFolder = new File(MainActivity.appDir, SaveData.getSaveSlotFolderDir(this.slot));
-                Util.deleteDirectory(saveFolder);
-                MainActivity.saveSlots[this.slot] = false;
-                LogicChangeData lcd = new LogicChangeData(Util.SAVE_SLOT_CHOICE_LOGIC_TAG, true, false);
-                MainActivity.initLogicChange(lcd, null);
+        //start loading the next logic when the fade out starts, and switch to it once the fade completes
+        if (this.hud.fadingOut() && !this.logicChangeStarted) this.startLogicChange();
+        if (this.hud.fadeOutCompleted()) MainActivity.readyLogicChange();
+    }
 
-            //do not delete
-            } else {
-                LogicChangeData lcd = new LogicChangeData(Util.SAVE_SLOT_CHOICE_LOGIC_TAG, true, false);
-                MainActivity.initLogicChange(lcd, null);
-            }
+    /**
+     * Deletes the slot if the player chose to, then starts loading the save slot choice logic. The
+     * slot is deleted first so that the next logic is built without it.
+     */
+    private void startLogicChange() {
+
+        //delete
+        if (this.yesChosen) {
+            Journal.awaitCommits(); //so no save of the slot is written after it is deleted
+            File saveFolder = new File(MainActivity.appDir, SaveData.getSaveSlotFolderDir(this.slot));
+            Util.deleteDirectory(saveFolder);
+            MainActivity.saveSlotIndex.remove(this.slot);
+            MainActivity.areaManager.forgetSlot(this.slot);
         }
+
+        //return to save slot choice
+        LogicChangeData lcd = new LogicChangeData(Util.SAVE_SLOT_CHOICE_LOGIC_TAG, true, false);
+        MainActivity.initLogicChange(lcd, null);
+        this.logicChangeStarted = true;
     }
 
     //Render Method
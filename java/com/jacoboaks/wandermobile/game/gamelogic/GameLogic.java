@@ -11,6 +11,14 @@ import com.jacoboaks.wandermobile.util.Node;
  */
 public interface GameLogic {
 
+    /**
+     * Is called before init() to prepare anything that does not need the GL context, such as
+     * parsing files, decoding textures and building the HUD. When switching logic this is called on
+     * a loader thread while the previous logic is still fading out, so it must not make any GL calls. If a logic is
+     * initialized without having been preloaded, init() should call this itself.
+     */
+    void preload();
+
     /**
      * Is called whenever the surface is created. After components (especially graphical ones) have
      * been initialized, any saved data from loadData(Bundle) should be reinstated in this method.
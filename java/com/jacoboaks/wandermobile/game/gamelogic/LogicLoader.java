@@ -0,0 +1,93 @@
+package com.jacoboaks.wandermobile.game.gamelogic;
+
+import android.os.Bundle;
+import android.util.Log;
+
+import com.jacoboaks.wandermobile.MainActivity;
+import com.jacoboaks.wandermobile.graphics.GameRenderer;
+import com.jacoboaks.wandermobile.util.Util;
+
+/**
+ * Builds the next GameLogic on a background thread. A loader is started as soon as the current
+ * logic begins its transition out, and the logic is created, given its saved data and preloaded away
+ * from the render thread so that the current logic can keep updating and rendering its fade out in
+ * the meantime. The GameRenderer switches logic once this loader is done and the current logic has
+ * called MainActivity.readyLogicChange(). Uploads scheduled during preloading are run by the
+ * GameRenderer's GLUploadQueue a few per frame, and this loader is only done once they have all run.
+ * Anything else requiring the GL context is left for init(), which the GameRenderer calls once this
+ * loader is done.
+ */
+public class LogicLoader extends Thread {
+
+    //Data
+    private final LogicChangeData logicChangeData; //the change this loader is carrying out
+    private final Bundle logicData; //the saved data to give the new logic, or null
+    private volatile GameLogic logic; //the loaded logic
+    private volatile RuntimeException error; //the error that stopped loading, if any
+    private volatile boolean done = false; //whether loading has finished
+
+    /**
+     * Constructs this LogicLoader. The saved data of the new logic is retrieved here, on the calling
+     * thread, before the previous logic has a chance to save over it.
+     * @param logicChangeData the logic change to carry out
+     */
+    public LogicLoader(LogicChangeData logicChangeData) {
+        super("LogicLoader");
+        this.logicChangeData = logicChangeData;
+        this.logicData = logicChangeData.doesLoadNewLogicData() ?
+                MainActivity.getPreviousLogicData(logicChangeData.getLogicTag()) : null;
+    }
+
+    /**
+     * Creates, loads and preloads the new logic.
+     */
+    @Override
+    public void run() {
+        try {
+            GameLogic logic = LogicLoader.createLogic(this.logicChangeData.getLogicTag());
+            if (this.logicData != null) logic.loadData(this.logicData);
+            logic.preload();
+            GameRenderer.getUploadQueue().waitForPending();
+            this.logic = logic;
+        } catch (RuntimeException e) {
+            this.error = e;
+        }
+        this.done = true;
+    }
+
+    /**
+     * @return the loaded logic. If loading failed, the error is rethrown here so that it surfaces
+     * on the thread which asked for the logic
+     */
+    public GameLogic getLogic() {
+        if (this.error != null) throw this.error;
+        return this.logic;
+    }
+
+    /**
+     * Creates a logic with the given tag.
+     * @param logicTag the tag of the logic to create
+     * @return the created logic, or a MainMenuLogic if the tag is not recognized
+     */
+    public static GameLogic createLogic(String logicTag) {
+        if (logicTag.equals(Util.MAIN_MENU_LOGIC_TAG)) {
+            return new MainMenuLogic();
+        } else if (logicTag.equals(Util.NEW_GAME_LOGIC_TAG)) {
+            return new NewGameLogic();
+        } else if (logicTag.equals(Util.WORLD_LOGIC_TAG)) {
+            return new WorldLogic();
+        } else if (logicTag.equals(Util.SAVE_SLOT_CHOICE_LOGIC_TAG)) {
+            return new SaveSlotChoiceLogic();
+        } else if (logicTag.equals(Util.DELETE_SLOT_LOGIC_TAG)) {
+            return new DeleteSlotLogic();
+        } else {
+            if (Util.DEBUG) Log.i(Util.getLogTag("LogicLoader.java", "createLogic(String)"),
+                    "unable to discern logic tag: " + logicTag + ", defaulting to MainMenuLogic");
+            return new MainMenuLogic();
+        }
+    }
+
+    //Accessors
+    public boolean isDone() { return this.done; }
+    public LogicChangeData getLogicChangeData() { return this.logicChangeData; }
+}
@@ -28,22 +28,32 @@ public class MainMenuLogic implements GameLogic {
     private HUD hud;
     private Bundle savedInstanceData;
     private int chosenAction;
+    private boolean preloaded = false;
+    private boolean logicChangeStarted = false; //whether the next logic has started loading
 
     //Action Codes
     private static final int NEW_GAME_BUTTON_ACTION_CODE = 1;
     private static final int LOAD_GAME_BUTTON_ACTION_CODE = 2;
     private static final int EXIT_BUTTON_ACTION_CODE = 3;
 
+    //Preloading Method
+    @Override
+    public void preload() {
+        this.font = new Font(Global.defaultFontID, Global.defaultFontCuttoffsID, 10, 10, ' ');
+        this.initHUD();
+        this.preloaded = true;
+    }
+
     //Initialization Method
     @Override
     public void init() {
 
+        //make sure font and hud are loaded
+        if (!this.preloaded) this.preload();
+        this.preloaded = false;
+
         //set clear color
         GLES20.glClearColor(0.6f, 0.6f, 0.6f, 1.0f);
-
-        //create font and hud
-        this.font = new Font(Global.defaultFontID, Global.defaultFontCuttoffsID, 10, 10, ' ');
-        this.initHUD();
     }
 
     /**
@@ -137,19 +147,26 @@ public class MainMenuLogic implements GameLogic {
         //update hud
         this.hud.update(dt);
 
-        //switch logic if fade completed
-        if (this.hud.fadeOutCompleted()) {
-            LogicChangeData lgd = null;
-            Node transferData = new Node("transferData");
-            if (this.chosenAction == MainMenuLogic.NEW_GAME_BUTTON_ACTION_CODE)
-                lgd = new LogicChangeData(Util.NEW_GAME_LOGIC_TAG, true, false);
-            else if (this.chosenAction == MainMenuLogic.LOAD_GAME_BUTTON_ACTION_CODE) {
-                lgd = new LogicChangeData(Util.SAVE_SLOT_CHOICE_LOGIC_TAG, true, false);
-                transferData.addChild("chosenName", "");
-                transferData.addChild("neworload", "load");
-            }
-            MainActivity.initLogicChange(lgd, transferData);
+        //start loading the next logic when the fade out starts, and switch to it once the fade completes
+        if (this.hud.fadingOut() && !this.logicChangeStarted) this.startLogicChange();
+        if (this.hud.fadeOutCompleted()) MainActivity.readyLogicChange();
+    }
+
+    /**
+     * Starts loading the logic for the chosen action.
+     */
+    private void startLogicChange() {
+        LogicChangeData lgd = null;
+        Node transferData = new Node("transferData");
+        if (this.chosenAction == MainMenuLogic.NEW_GAME_BUTTON_ACTION_CODE)
+            lgd = new LogicChangeData(Util.NEW_GAME_LOGIC_TAG, true, false);
+        else if (this.chosenAction == MainMenuLogic.LOAD_GAME_BUTTON_ACTION_CODE) {
+            lgd = new LogicChangeData(Util.SAVE_SLOT_CHOICE_LOGIC_TAG, true, false);
+            transferData.addChild("chosenName", "");
+            transferData.addChild("neworload", "load");
         }
+        MainActivity.initLogicChange(lgd, transferData);
+        this.logicChangeStarted = true;
     }
 
     //Render Method
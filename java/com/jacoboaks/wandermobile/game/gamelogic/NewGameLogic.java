@@ -15,6 +15,7 @@ import com.jacoboaks.wandermobile.graphics.Font;
 import com.jacoboaks.wandermobile.graphics.Material;
 import com.jacoboaks.wandermobile.graphics.Model;
 import com.jacoboaks.wandermobile.graphics.Texture;
+import com.jacoboaks.wandermobile.tools.AreaCompiler;
 import com.jacoboaks.wandermobile.util.Color;
 import com.jacoboaks.wandermobile.util.Global;
 import com.jacoboaks.wandermobile.util.Node;
@@ -29,23 +30,40 @@ public class NewGameLogic implements GameLogic {
     private static final int MAX_NAME_LENGTH = 13; //maximum length for a player name
     private static final int MIN_NAME_LENGTH = 3; //minimum length for a player name
     private static final int DONE_BUTTON_ACTION_CODE = 1000;
+    private static final int ZONE_BUTTON_ACTION_CODE = 1001;
+    private static final int[] STARTING_ZONES = { MainActivity.STARTING_ZONE, R.raw.area_caves }; //zones a new game can start in from debug builds
 
     //Instance Data
     private String chosenName;
+    private int startingZone = 0; //index of the zone in STARTING_ZONES the new game starts in
     private Font font;
     private HUD hud;
     private Bundle savedInstanceData;
+    private Texture[] keyboardTextures;
+    private boolean preloaded = false;
+    private boolean logicChangeStarted = false; //whether the next logic has started loading
+
+    //Preloading Method
+    @Override
+    public void preload() {
+        this.font = new Font(Global.defaultFontID, Global.defaultFontCuttoffsID, 10, 10, ' ');
+        this.keyboardTextures = new Texture[] { new Texture(R.drawable.texture_keyboardbutton),
+                new Texture(R.drawable.texture_keyboardbuttonpress), new Texture(R.drawable.texture_keyboardspacebutton),
+                new Texture(R.drawable.texture_keyboardspacebuttonpress) };
+        this.initHUD();
+        this.preloaded = true;
+    }
 
     //Initialization Method
     @Override
     public void init() {
 
+        //make sure font, textures and hud are loaded
+        if (!this.preloaded) this.preload();
+        this.preloaded = false;
+
         //set clear color
         GLES20.glClearColor(0.6f, 0.6f, 0.6f, 1.0f);
-
-        //create font and hud
-        this.font = new Font(Global.defaultFontID, Global.defaultFontCuttoffsID, 10, 10, ' ');
-        this.initHUD();
     }
 
     //HUD Initialization Method
@@ -53,9 +71,8 @@ public class NewGameLogic implements GameLogic {
         this.hud = new HUD(true);
 
         //create keyboard
-        Keyboard keyboard = new Keyboard(this.font, Keyboard.LETTER_ONLY_CHARACTER_SET, new Texture(R.drawable.texture_keyboardbutton),
-                new Texture(R.drawable.texture_keyboardbuttonpress), new Texture(R.drawable.texture_keyboardspacebutton),
-                new Texture(R.drawable.texture_keyboardspacebuttonpress), 2, 3, 0f, 0f, 1.9f, 0.8f, 0.025f);
+        Keyboard keyboard = new Keyboard(this.font, Keyboard.LETTER_ONLY_CHARACTER_SET, this.keyboardTextures[0],
+                this.keyboardTextures[1], this.keyboardTextures[2], this.keyboardTextures[3], 2, 3, 0f, 0f, 1.9f, 0.8f, 0.025f);
         this.hud.addItem("KEYBOARD", keyboard, HUD.Placement.BOTTOM_MIDDLE, 0.05f);
 
         //create intro text
@@ -84,6 +101,35 @@ public class NewGameLogic implements GameLogic {
         this.hud.addItem("DONE_BUTTON", doneButton, HUD.Placement.TOP_RIGHT, 0.07f);
         doneButton.setY(keyboard.getY() + keyboard.getHeight() / 2 + 0.07f + doneButton.getHeight() / 2);
         doneButton.setX(keyboard.getX() + keyboard.getWidth() / 2 - doneButton.getWidth() / 2);
+
+        //create starting zone button in debug builds, so that zones which can't be walked to yet can be played
+        if (Util.DEBUG) {
+            ButtonTextItem zoneButton = new ButtonTextItem(this.font, this.getZoneLabel(), Global.black,
+                    Global.white, NewGameLogic.ZONE_BUTTON_ACTION_CODE);
+            zoneButton.scale(0.15f);
+            this.hud.addItem("ZONE_BUTTON", zoneButton, HUD.Placement.TOP_LEFT, 0.07f);
+            zoneButton.setY(doneButton.getY());
+            zoneButton.setX(keyboard.getX() - keyboard.getWidth() / 2 + zoneButton.getWidth() / 2);
+        }
+    }
+
+    /**
+     * Relabels the starting zone button after the chosen starting zone changes, keeping its left edge
+     * where it was.
+     */
+    private void updateZoneButton() {
+        TextItem zoneButton = (TextItem)this.hud.getItem("ZONE_BUTTON");
+        float left = zoneButton.getX() - zoneButton.getWidth() / 2;
+        zoneButton.setText(this.getZoneLabel());
+        zoneButton.setX(left + zoneButton.getWidth() / 2);
+    }
+
+    /**
+     * @return the label of the starting zone button, naming the chosen starting zone
+     */
+    private String getZoneLabel() {
+        String filename = MainActivity.getAppResources().getResourceEntryName(STARTING_ZONES[this.startingZone]);
+        return "Start: " + filename.substring(AreaCompiler.SOURCE_PREFIX.length());
     }
 
     //Data Loading Method
@@ -100,6 +146,9 @@ public class NewGameLogic implements GameLogic {
             this.hud.instateSavedInstanceData(this.savedInstanceData);
             String cn = this.savedInstanceData.getString("logic_chosenName");
             this.chosenName = (cn.equals("") ? null : cn);
+            String sz = this.savedInstanceData.getString("logic_startingZone");
+            if (sz != null) this.startingZone = Integer.parseInt(sz);
+            if (Util.DEBUG) this.updateZoneButton();
         }
     }
 
@@ -130,6 +179,11 @@ public class NewGameLogic implements GameLogic {
                     this.hud.getItem("NOTIFICATION_TEXT").setVisibility(true);
                 }
 
+            //check for starting zone button press
+            } else if (actionCode == NewGameLogic.ZONE_BUTTON_ACTION_CODE) {
+                this.startingZone = (this.startingZone + 1) % NewGameLogic.STARTING_ZONES.length;
+                this.updateZoneButton();
+
             //check for other button press
             } else {
 
@@ -162,14 +216,18 @@ public class NewGameLogic implements GameLogic {
         //update hud
         this.hud.update(dt);
 
-        //change logic if fade over
-        if (this.hud.fadeOutCompleted()) {
+        //start loading the next logic when the fade out starts, and switch to it once the fade completes
+        if (this.hud.fadingOut() && !this.logicChangeStarted) {
             LogicChangeData lgd = new LogicChangeData(Util.SAVE_SLOT_CHOICE_LOGIC_TAG, true, false);
             Node transferData = new Node();
             transferData.addChild("chosenName", chosenName);
             transferData.addChild("neworload", "new");
+            transferData.addChild("startingZone", MainActivity.getAppResources()
+                    .getResourceEntryName(NewGameLogic.STARTING_ZONES[this.startingZone]));
             MainActivity.initLogicChange(lgd, transferData);
+            this.logicChangeStarted = true;
         }
+        if (this.hud.fadeOutCompleted()) MainActivity.readyLogicChange();
     }
 
     //Render Method
@@ -185,6 +243,7 @@ public class NewGameLogic implements GameLogic {
         data.addChild(new Node("inputText", ((TextItem)this.hud.getItem("INPUT_TEXT")).getText()));
         data.addChild(new Node("notification", this.hud.getItem("NOTIFICATION_TEXT").isVisible() ? "true" : "false"));
         data.addChild(new Node("chosenName", this.chosenName == null ? "" : this.chosenName));
+        data.addChild(new Node("startingZone", Integer.toString(this.startingZone)));
         data.addChild(this.hud.requestData());
         return data;
     }
@@ -9,6 +9,8 @@ import com.jacoboaks.wandermobile.R;
 import com.jacoboaks.wandermobile.game.Area;
 import com.jacoboaks.wandermobile.game.HUD;
 import com.jacoboaks.wandermobile.game.SaveData;
+import com.jacoboaks.wandermobile.game.SaveSlotHeader;
+import com.jacoboaks.wandermobile.game.SaveSlotIndex;
 import com.jacoboaks.wandermobile.game.gameitem.ButtonTextItem;
 import com.jacoboaks.wandermobile.game.gameitem.Entity;
 import com.jacoboaks.wandermobile.game.gameitem.Player;
@@ -32,6 +34,7 @@ public class SaveSlotChoiceLogic implements GameLogic {
 
     //Instance Data
     private String chosenName;
+    private String startingZone; //filename of the area a new game starts in (null for MainActivity.STARTING_ZONE)
     private Font font;
     private HUD hud;
     private Bundle savedInstanceData;
@@ -39,11 +42,36 @@ public class SaveSlotChoiceLogic implements GameLogic {
     private int deletingSlot = -1;
     private boolean load;
     private boolean returnPressed = false;
+    private boolean preloaded = false;
+    private boolean logicChangeStarted = false; //whether the next logic has started loading
+
+    //Preloading Method
+    @Override
+    public void preload() {
+        this.font = new Font(Global.defaultFontID, Global.defaultFontCuttoffsID, 10, 10, ' ');
+        this.readTransferData();
+        this.initHUD();
+        this.preloaded = true;
+    }
 
     //Initialization Method
     @Override
     public void init() {
 
+        //make sure font and hud are loaded
+        if (!this.preloaded) this.preload();
+        this.preloaded = false;
+
+        //set clear color
+        GLES20.glClearColor(0.6f, 0.6f, 0.6f, 1.0f);
+    }
+
+    /**
+     * Reads the chosen name and whether a game is being loaded, from the transfer data if there is
+     * any and from the saved instance data otherwise.
+     */
+    private void readTransferData() {
+
         //get transfer data
         this.chosenName = "";
         Node transferData = MainActivity.getLogicTransferData();
@@ -54,6 +82,8 @@ public class SaveSlotChoiceLogic implements GameLogic {
                 transferred = true;
                 this.chosenName = chosenNameNode.getValue();
                 this.load = transferData.getChild("neworload").getValue().equals("load") ? true : false;
+                Node startingZoneNode = transferData.getChild("startingZone");
+                if (startingZoneNode != null) this.startingZone = startingZoneNode.getValue();
             }
         }
 
@@ -61,12 +91,8 @@ public class SaveSlotChoiceLogic implements GameLogic {
         if (!transferred) {
             this.chosenName = this.savedInstanceData.getString("logic_chosenName");
             this.load = Boolean.parseBoolean(this.savedInstanceData.getString("logic_load"));
+            this.startingZone = this.savedInstanceData.getString("logic_startingZone");
         }
-
-        //create font, hud, and set clear color
-        GLES20.glClearColor(0.6f, 0.6f, 0.6f, 1.0f);
-        this.font = new Font(Global.defaultFontID, Global.defaultFontCuttoffsID, 10, 10, ' ');
-        this.initHUD();
     }
 
     /**
@@ -98,27 +124,27 @@ public class SaveSlotChoiceLogic implements GameLogic {
         this.hud.addItem("NOTIFICATION", notification, HUD.Placement.BELOW_LAST, 0.15f);
 
         //create hud for each slot
-        for (int i = 0; i < 3; i++) {
+        for (int i = 0; i < SaveSlotIndex.DISPLAYED_SLOTS; i++) {
 
             //create slot title
+            SaveSlotHeader header = MainActivity.saveSlotIndex.getHeader(i);
             ButtonTextItem slotTitle = new ButtonTextItem(this.font, "Slot " + i + " (" +
-                    (MainActivity.saveSlots[i] ? "in use)" : "empty)"), Global.black, Global.yellow, i);
+                    (header != null ? "in use)" : "empty)"), Global.black, Global.yellow, i);
             slotTitle.scale(0.17f);
             this.hud.addItem("SLOT_TITLE_" + i, slotTitle, 0f, 0f + ((i - 1) * 0.3f));
 
             //create extras
-            if (MainActivity.saveSlots[i]) {
+            if (header != null) {
 
                 //player info
-                SaveData data = new SaveData(i, this.font);
-                TextItem playerInfo = new TextItem(this.font, data.getPlayer().getName() + " (lv." +
-                        data.getPlayer().getLevel() + ")", textMaterial, 0f, 0f);
+                TextItem playerInfo = new TextItem(this.font, header.getPlayerName() + " (lv." +
+                        header.getPlayerLevel() + ")", textMaterial, 0f, 0f);
                 playerInfo.scale(0.14f);
                 this.hud.addItem("PLAYER_INFO_" + i, playerInfo, HUD.Placement.BELOW_LAST, 0.02f);
 
                 //delete button
                 ButtonTextItem delete = new ButtonTextItem(this.font, "delete",  new Color(0.5f, 0.1f, 0.1f, 1.0f),
-                        new Color(0.75f, 0.1f, 0.1f, 1.0f), i + 3);
+                        new Color(0.75f, 0.1f, 0.1f, 1.0f), i + SaveSlotIndex.DISPLAYED_SLOTS);
                 delete.scale(0.136f);
                 this.hud.addItem("DELETE_" + i, delete, HUD.Placement.BELOW_LAST, 0.04f);
             }
@@ -149,25 +175,25 @@ public class SaveSlotChoiceLogic implements GameLogic {
         int actionCode = this.hud != null ? this.hud.updateButtonSelections(e) : -1;
 
         //player has selected a slot
-        if (actionCode >= 0 && actionCode <= 2) {
+        if (actionCode >= 0 && actionCode < SaveSlotIndex.DISPLAYED_SLOTS) {
 
             //load game
             if (this.load) {
-                if (MainActivity.saveSlots[actionCode]) this.loadGame(actionCode);
+                if (MainActivity.saveSlotIndex.isInUse(actionCode)) this.loadGame(actionCode);
 
             //new game in occupied slot
-            } else if (MainActivity.saveSlots[actionCode]) {
+            } else if (MainActivity.saveSlotIndex.isInUse(actionCode)) {
                 this.hud.getItem("NOTIFICATION").setVisibility(true);
 
             //new game in free slot
             } else this.newGame(actionCode);
 
         //player has chosen to delete a slot
-        } else if (actionCode >= 3 && actionCode <= 5) {
+        } else if (actionCode >= SaveSlotIndex.DISPLAYED_SLOTS && actionCode < SaveSlotIndex.DISPLAYED_SLOTS * 2) {
 
             //fade out and flag for deletion
             this.hud.fadeOut();
-            this.deletingSlot = actionCode - 3;
+            this.deletingSlot = actionCode - SaveSlotIndex.DISPLAYED_SLOTS;
 
         //player has chosen to return
         } else if (actionCode == SaveSlotChoiceLogic.RETURN_BUTTON_ACTION_CODE) {
@@ -193,7 +219,7 @@ public class SaveSlotChoiceLogic implements GameLogic {
         SaveData saveData = new SaveData(player, saveSlot);
 
         //create area and set player position to spawn
-        Area area = Area.loadArea(MainActivity.STARTING_ZONE, this.font);
+        Area area = MainActivity.areaManager.getArea(saveSlot, SaveData.findArea(this.startingZone), this.font);
         Coord spawn = area.getSpawn();
         player.setGridPosition((int)spawn.x, (int)spawn.y);
 
@@ -201,7 +227,6 @@ public class SaveSlotChoiceLogic implements GameLogic {
         saveData.save(area);
         this.transferData = new Node("transferdata");
         this.transferData.addChild(saveData.toNode(area));
-        MainActivity.saveSlots[saveSlot] = true;
         this.hud.fadeOut();
     }
 
@@ -210,7 +235,7 @@ public class SaveSlotChoiceLogic implements GameLogic {
      * @param saveSlot the save slot to load the previous game from.
      */
     private void loadGame(int saveSlot) {
-        Node saveDataNode = Node.readNode(SaveData.getSaveSlotDir(saveSlot));
+        Node saveDataNode = SaveData.readSaveData(saveSlot);
         this.transferData = new Node("transferdata");
         this.transferData.addChild(saveDataNode);
         this.hud.fadeOut();
@@ -227,29 +252,36 @@ public class SaveSlotChoiceLogic implements GameLogic {
     public void update(float dt) {
         this.hud.update(dt);
 
-        //switch logic if fade completed
-        if (this.hud.fadeOutCompleted()) {
+        //start loading the next logic when the fade out starts, and switch to it once the fade completes
+        if (this.hud.fadingOut() && !this.logicChangeStarted) this.startLogicChange();
+        if (this.hud.fadeOutCompleted()) MainActivity.readyLogicChange();
+    }
 
-            //if player chose to return
-            if (this.returnPressed) {
-                LogicChangeData lcd = new LogicChangeData(Util.MAIN_MENU_LOGIC_TAG, true, false);
-                MainActivity.initLogicChange(lcd, null);
-            }
+    /**
+     * Starts loading the logic for whatever the player chose.
+     */
+    private void startLogicChange() {
 
-            //if player chose to delete
-            else if (this.deletingSlot >= 0) {
-                Node tData = new Node("transferData");
-                tData.addChild("slot", Integer.toString( this.deletingSlot));
-                LogicChangeData lcd = new LogicChangeData(Util.DELETE_SLOT_LOGIC_TAG, true, true);
-                MainActivity.initLogicChange(lcd, tData);
-            }
+        //if player chose to return
+        if (this.returnPressed) {
+            LogicChangeData lcd = new LogicChangeData(Util.MAIN_MENU_LOGIC_TAG, true, false);
+            MainActivity.initLogicChange(lcd, null);
+        }
 
-            //if player chose a slot instead
-            else {
-                LogicChangeData lcd = new LogicChangeData(Util.WORLD_LOGIC_TAG, true, false);
-                MainActivity.initLogicChange(lcd, this.transferData);
-            }
+        //if player chose to delete
+        else if (this.deletingSlot >= 0) {
+            Node tData = new Node("transferData");
+            tData.addChild("slot", Integer.toString( this.deletingSlot));
+            LogicChangeData lcd = new LogicChangeData(Util.DELETE_SLOT_LOGIC_TAG, true, true);
+            MainActivity.initLogicChange(lcd, tData);
+        }
+
+        //if player chose a slot instead
+        else {
+            LogicChangeData lcd = new LogicChangeData(Util.WORLD_LOGIC_TAG, true, false);
+            MainActivity.initLogicChange(lcd, this.transferData);
         }
+        this.logicChangeStarted = true;
     }
 
     //Render Method
@@ -264,6 +296,7 @@ public class SaveSlotChoiceLogic implements GameLogic {
         if (this.hud.fadingOut()) node.addChild("chosenSlot", this.transferData.getChild("savedata").getChild("saveSlot").getValue());
         node.addChild("load", Boolean.toString(this.load));
         node.addChild("chosenName", this.chosenName);
+        if (this.startingZone != null) node.addChild("startingZone", this.startingZone);
         node.addChild("notificationVisibility", Boolean.toString(this.hud.getItem("NOTIFICATION").isVisible()));
         return node;
     }
@@ -5,7 +5,6 @@ import android.os.Bundle;
 import android.view.MotionEvent;
 
 import com.jacoboaks.wandermobile.MainActivity;
-import com.jacoboaks.wandermobile.R;
 import com.jacoboaks.wandermobile.game.Area;
 import com.jacoboaks.wandermobile.game.HUD;
 import com.jacoboaks.wandermobile.game.SaveData;
@@ -38,25 +37,42 @@ public class WorldLogic implements GameLogic {
     private Font font;
     private HUD hud;
     private World world;
+    private Area area; //the area loaded by preload(), handed to the world in init()
     private float saveNotificationTime = -1f;
+    private boolean preloaded = false;
+    private boolean logicChangeStarted = false; //whether the next logic has started loading
 
     //Saved Data
     private SaveData saveData;
     private Bundle savedInstanceData;
 
-    //Initialization Method
+    //Preloading Method
     @Override
-    public void init() {
+    public void preload() {
 
         //create font
         this.font = new Font(Global.defaultFontID, Global.defaultFontCuttoffsID, 10, 10, ' ');
 
-        //set save data reference
+        //set save data reference and load area
         this.saveData = new SaveData(MainActivity.getLogicTransferData().getChild("savedata"), this.font);
+        this.area = MainActivity.areaManager.getArea(this.saveData.getSaveSlot(),
+                SaveData.findArea(this.saveData.getAreaFilename()), this.font);
+
+        //build hud
+        this.initHUD();
+        this.preloaded = true;
+    }
+
+    //Initialization Method
+    @Override
+    public void init() {
+
+        //make sure font, save data, area and hud are loaded
+        if (!this.preloaded) this.preload();
+        this.preloaded = false;
 
         //initialize graphics and objects
         this.initGraphics();
-        this.initHUD();
         this.initWorld();
 
         //create controls
@@ -94,6 +110,7 @@ public class WorldLogic implements GameLogic {
         TextItem fpsCounter = new TextItem(this.font, "calculating...", textMaterial, 0f, 0f);
         fpsCounter.scale(0.13f);
         this.hud.addItem("FPS_COUNTER", fpsCounter, HUD.Placement.RIGHT_OF_LAST, 0f);
+        this.hud.setDynamic("FPS_COUNTER", true);
 
         //wander title
         TextItem title = new TextItem(this.font, "v" + MainActivity.WANDER_VERSION
@@ -159,11 +176,9 @@ public class WorldLogic implements GameLogic {
         //create player
         Player player = this.saveData.getPlayer();
 
-        //create area
-        Area area = Area.loadArea(R.raw.area_deepwoods, this.font);
-
         //create world
-        this.world = new World(area, player, this.hud);
+        this.world = new World(this.area, player, this.hud);
+        this.area = null;
     }
 
     //Data Loading Method
@@ -210,8 +225,9 @@ public class WorldLogic implements GameLogic {
     @Override
     public void update(float dt) {
 
-        //fade in
+        //fade in and keep track of play time
         this.hud.update(dt);
+        this.saveData.addPlayTime(dt);
 
         //update notification text
         if (this.saveNotificationTime >= 0f) {
@@ -219,11 +235,13 @@ public class WorldLogic implements GameLogic {
             if (this.saveNotificationTime < 0f) this.hud.getItem("SAVE_NOTIFICATION").setVisibility(false);
         }
 
-        //check for exit
-        if (this.hud.fadeOutCompleted()) {
+        //start loading the main menu when the exit fade starts, and switch to it once the fade completes
+        if (this.hud.fadingOut() && !this.logicChangeStarted) {
             LogicChangeData lcd = new LogicChangeData(Util.MAIN_MENU_LOGIC_TAG, true, false);
             MainActivity.initLogicChange(lcd, null);
+            this.logicChangeStarted = true;
         }
+        if (this.hud.fadeOutCompleted()) MainActivity.readyLogicChange();
 
         //update world
         this.world.update(dt);
@@ -0,0 +1,143 @@
+package com.jacoboaks.wandermobile.game.generation;
+
+import com.jacoboaks.wandermobile.game.AreaGrid;
+import com.jacoboaks.wandermobile.util.Node;
+
+/**
+ * Generates the layout of an Area one chunk at a time as caves. Walls are first scattered at
+ * random, more densely where fractal noise is high so that the world has open and closed regions,
+ * and then smoothed into caves by a few steps of a cellular automaton. Each chunk is generated with
+ * a margin around it as wide as the number of steps, so the cells of the chunk come out exactly as if
+ * the whole world had been generated at once and neighbouring chunks line up. Entities are then
+ * scattered over the open cells. The layout only depends on the seed and the chunk position.
+ */
+public class ChunkGenerator {
+
+    //Static Data
+    public static final char EMPTY = ' '; //symbol of a cell with nothing in it
+    private static final int STEPS = 4; //how many cellular automaton steps smooth the walls
+    private static final int MARGIN = STEPS; //cells generated around a chunk so its edges come out exact
+    private static final int SPAN = AreaGrid.CHUNK_SIZE + 2 * MARGIN; //cells along each side of a generated region
+    private static final int SPAWN_CLEARING = 2; //cells around the origin which are always left open
+    private static final float NOISE_SCALE = 1f / 24f; //noise cycles per cell
+    private static final float NOISE_INFLUENCE = 0.3f; //how far noise moves the chance of a wall
+    private static final long DENSITY_SALT = 0x5DEECE66DL; //separates the density noise from the wall randoms
+    private static final long ENTITY_SALT = 0x2545F4914F6CDD1DL; //separates the entity randoms from the wall randoms
+
+    //Data
+    private final long seed; //seed of every random value
+    private final char wall; //symbol of the tile walls are made of
+    private final float fill; //chance of a cell starting as a wall, before noise
+    private final char[] entities; //symbols of the entities to scatter
+    private final float entityChance; //chance of an open cell holding an entity
+
+    /**
+     * Constructs this ChunkGenerator.
+     * @param seed the seed of every random value
+     * @param wall the symbol of the tile walls are made of
+     * @param fill the chance of a cell starting as a wall, before noise
+     * @param entities the symbols of the entities to scatter
+     * @param entityChance the chance of an open cell holding an entity
+     */
+    public ChunkGenerator(long seed, char wall, float fill, char[] entities, float entityChance) {
+        this.seed = seed;
+        this.wall = wall;
+        this.fill = fill;
+        this.entities = entities;
+        this.entityChance = entityChance;
+    }
+
+    //Node Constructor
+    public ChunkGenerator(Node node) {
+        this(Long.parseLong(node.getChild("seed").getValue()), node.getChild("wall").getValue().charAt(0),
+                Float.parseFloat(node.getChild("fill").getValue()),
+                node.getChild("entities") == null ? new char[0] : node.getChild("entities").getValue().toCharArray(),
+                node.getChild("entityChance") == null ? 0f : Float.parseFloat(node.getChild("entityChance").getValue()));
+    }
+
+    /**
+     * Generates the layout of a chunk. May be called from any thread.
+     * @param cx the chunk x
+     * @param cy the chunk y
+     * @return the symbol of each cell of the chunk (EMPTY if nothing is there), where the cell at
+     * (x, y) within the chunk is at index (y << AreaGrid.CHUNK_SHIFT) | x
+     */
+    public char[] generate(int cx, int cy) {
+        int originX = (cx << AreaGrid.CHUNK_SHIFT) - MARGIN, originY = (cy << AreaGrid.CHUNK_SHIFT) - MARGIN;
+
+        //scatter walls
+        boolean[] walls = new boolean[SPAN * SPAN];
+        for (int y = 0; y < SPAN; y++) {
+            for (int x = 0; x < SPAN; x++) {
+                int gx = originX + x, gy = originY + y;
+                float density = Noise.fractal(this.seed ^ DENSITY_SALT, gx * NOISE_SCALE, gy * NOISE_SCALE, 3);
+                float chance = this.fill + (density - 0.5f) * 2 * NOISE_INFLUENCE;
+                walls[y * SPAN + x] = Noise.random(this.seed, gx, gy) < chance && !this.inSpawnClearing(gx, gy);
+            }
+        }
+
+        //smooth walls into caves - a cell becomes a wall if at least five of its neighbours are, and
+        //stays one if four are. Cells on the edge of the region keep their value
+        boolean[] next = new boolean[SPAN * SPAN];
+        for (int step = 0; step < STEPS; step++) {
+            for (int y = 0; y < SPAN; y++) {
+                for (int x = 0; x < SPAN; x++) {
+                    int i = y * SPAN + x;
+                    if (x == 0 || y == 0 || x == SPAN - 1 || y == SPAN - 1) {
+                        next[i] = walls[i];
+                        continue;
+                    }
+                    int neighbours = 0;
+                    for (int dy = -SPAN; dy <= SPAN; dy += SPAN) {
+                        for (int dx = -1; dx <= 1; dx++) if (walls[i + dy + dx]) neighbours++;
+                    }
+                    if (walls[i]) neighbours--;
+                    next[i] = (neighbours >= 5 || (walls[i] && neighbours == 4))
+                            && !this.inSpawnClearing(originX + x, originY + y);
+                }
+            }
+            boolean[] swap = walls;
+            walls = next;
+            next = swap;
+        }
+
+        //write out the chunk's cells, scattering entities over open ones
+        char[] symbols = new char[AreaGrid.CHUNK_SIZE * AreaGrid.CHUNK_SIZE];
+        for (int y = 0; y < AreaGrid.CHUNK_SIZE; y++) {
+            for (int x = 0; x < AreaGrid.CHUNK_SIZE; x++) {
+                int gx = originX + MARGIN + x, gy = originY + MARGIN + y;
+                char symbol = EMPTY;
+                if (walls[(y + MARGIN) * SPAN + x + MARGIN]) symbol = this.wall;
+                else if (this.entities.length > 0 && !this.inSpawnClearing(gx, gy)) {
+                    long hash = Noise.hash(this.seed ^ ENTITY_SALT, gx, gy);
+                    if ((hash >>> 40) / (float)(1 << 24) < this.entityChance) {
+                        symbol = this.entities[(int)((hash & 0xFFFF) % this.entities.length)];
+                    }
+                }
+                symbols[(y << AreaGrid.CHUNK_SHIFT) | x] = symbol;
+            }
+        }
+        return symbols;
+    }
+
+    /**
+     * @return whether the given cell is close enough to the origin to be kept open for spawning
+     */
+    private boolean inSpawnClearing(int gx, int gy) {
+        return Math.abs(gx) <= SPAWN_CLEARING && Math.abs(gy) <= SPAWN_CLEARING;
+    }
+
+    //Accessors
+    public long getSeed() { return this.seed; }
+
+    //Node Converter
+    public Node toNode() {
+        Node node = new Node("generator");
+        node.addChild("seed", Long.toString(this.seed));
+        node.addChild("wall", Character.toString(this.wall));
+        node.addChild("fill", Float.toString(this.fill));
+        if (this.entities.length > 0) node.addChild("entities", new String(this.entities));
+        node.addChild("entityChance", Float.toString(this.entityChance));
+        return node;
+    }
+}
@@ -0,0 +1,161 @@
+package com.jacoboaks.wandermobile.game.generation;
+
+import com.jacoboaks.wandermobile.game.Area;
+import com.jacoboaks.wandermobile.game.AreaGrid;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Keeps the chunks of a generated Area loaded around a point, such as the camera. Chunks within
+ * LOAD_RADIUS chunks of the point are generated on background threads, nearest first, and handed
+ * to the Area on the GL thread by a later update(). Chunks further than UNLOAD_RADIUS away are
+ * unloaded, so however far the point travels only a fixed number of chunks are ever loaded.
+ */
+public class ChunkStreamer {
+
+    //Static Data
+    public static final int LOAD_RADIUS = 2; //chunks loaded in each direction around the point
+    public static final int UNLOAD_RADIUS = LOAD_RADIUS + 1; //chunks further than this are unloaded
+    private static final int MAX_LOADS_PER_UPDATE = 2; //most generated chunks handed to the area each update
+    private static final int WORKER_THREADS = 2; //threads chunks are generated on
+    private static ExecutorService workers; //generates chunks in the background
+
+    //Data
+    private final ChunkGenerator generator; //generates the layout of each chunk
+    private final Area area; //the area to load chunks into
+    private final Set<Long> loaded; //chunks which have been loaded into the area
+    private final Set<Long> pending; //chunks being generated
+    private final Queue<GeneratedChunk> finished; //generated chunks waiting to be loaded
+    private int centerX, centerY; //chunk of the point during the last update
+    private boolean started = false; //whether update() has been called
+
+    /**
+     * Constructs this ChunkStreamer. No chunks are generated until the first call to update().
+     * @param generator the generator of the area's chunks
+     * @param area the area to load chunks into
+     */
+    public ChunkStreamer(ChunkGenerator generator, Area area) {
+        this.generator = generator;
+        this.area = area;
+        this.loaded = new HashSet<>();
+        this.pending = new HashSet<>();
+        this.finished = new ConcurrentLinkedQueue<>();
+    }
+
+    /**
+     * Loads generated chunks into the area, then starts generating any chunks missing around the
+     * point and unloads those too far from it. Must be called on the GL thread.
+     * @param gx the grid x of the point
+     * @param gy the grid y of the point
+     */
+    public void update(int gx, int gy) {
+        int cx = gx >> AreaGrid.CHUNK_SHIFT, cy = gy >> AreaGrid.CHUNK_SHIFT;
+
+        //load generated chunks which are still in range
+        for (int i = 0; i < MAX_LOADS_PER_UPDATE; i++) {
+            GeneratedChunk chunk = this.finished.poll();
+            if (chunk == null) break;
+            Long key = ChunkStreamer.key(chunk.cx, chunk.cy);
+            this.pending.remove(key);
+            if (Math.max(Math.abs(chunk.cx - cx), Math.abs(chunk.cy - cy)) > UNLOAD_RADIUS) continue;
+            this.area.loadChunk(chunk.cx, chunk.cy, chunk.symbols);
+            this.loaded.add(key);
+        }
+
+        //only look for missing and distant chunks when the point changes chunk
+        if (this.started && cx == this.centerX && cy == this.centerY) return;
+        this.started = true;
+        this.centerX = cx;
+        this.centerY = cy;
+
+        //generate missing chunks ring by ring outwards
+        for (int r = 0; r <= LOAD_RADIUS; r++) {
+            for (int y = cy - r; y <= cy + r; y++) {
+                for (int x = cx - r; x <= cx + r; x++) {
+                    if (Math.max(Math.abs(x - cx), Math.abs(y - cy)) != r) continue;
+                    Long key = ChunkStreamer.key(x, y);
+                    if (this.loaded.contains(key) || this.pending.contains(key)) continue;
+                    this.pending.add(key);
+                    this.generate(x, y);
+                }
+            }
+        }
+
+        //unload distant chunks
+        Iterator<Long> it = this.loaded.iterator();
+        while (it.hasNext()) {
+            long key = it.next();
+            int x = (int)(key >> 32), y = (int)key;
+            if (Math.max(Math.abs(x - cx), Math.abs(y - cy)) <= UNLOAD_RADIUS) continue;
+            this.area.unloadChunk(x, y);
+            it.remove();
+        }
+    }
+
+    /**
+     * Generates a chunk in the background, queueing it to be loaded once finished.
+     */
+    private void generate(final int cx, final int cy) {
+        ChunkStreamer.getWorkers().execute(new Runnable() {
+            @Override
+            public void run() {
+                ChunkStreamer.this.finished.add(new GeneratedChunk(cx, cy, ChunkStreamer.this.generator.generate(cx, cy)));
+            }
+        });
+    }
+
+    /**
+     * @return the key of the chunk at the given chunk position in the loaded and pending sets
+     */
+    private static Long key(int cx, int cy) {
+        return ((long)cx << 32) | (cy & 0xFFFFFFFFL);
+    }
+
+    /**
+     * @return the threads chunks are generated on, creating them if they don't exist yet
+     */
+    private static synchronized ExecutorService getWorkers() {
+        if (ChunkStreamer.workers == null) {
+            ChunkStreamer.workers = Executors.newFixedThreadPool(WORKER_THREADS, new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "ChunkStreamer");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return ChunkStreamer.workers;
+    }
+
+    //Accessors
+    public ChunkGenerator getGenerator() { return this.generator; }
+    public int getLoadedCount() { return this.loaded.size(); }
+    public int getPendingCount() { return this.pending.size(); }
+
+    /**
+     * The layout of a chunk which has been generated but not yet loaded.
+     */
+    private static class GeneratedChunk {
+
+        //Data
+        final int cx, cy; //position of the chunk
+        final char[] symbols; //symbol of each cell, as given by ChunkGenerator.generate()
+
+        /**
+         * Constructs this GeneratedChunk.
+         */
+        GeneratedChunk(int cx, int cy, char[] symbols) {
+            this.cx = cx;
+            this.cy = cy;
+            this.symbols = symbols;
+        }
+    }
+}
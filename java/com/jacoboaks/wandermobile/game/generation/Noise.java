@@ -0,0 +1,71 @@
+package com.jacoboaks.wandermobile.game.generation;
+
+/**
+ * Provides seeded noise functions. Every value depends only on the seed and the coordinates
+ * given, so the same world can be generated piece by piece in any order, on any thread.
+ */
+public class Noise {
+
+    /**
+     * Hashes a seed and a pair of integer coordinates (SplitMix64 finalizer).
+     * @return the 64 bit hash
+     */
+    public static long hash(long seed, int x, int y) {
+        long z = seed + x * 0x9E3779B97F4A7C15L + y * 0xC2B2AE3D27D4EB4FL;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * @return a random value from 0 (inclusive) to 1 (exclusive) for the given seed and integer
+     * coordinates
+     */
+    public static float random(long seed, int x, int y) {
+        return (Noise.hash(seed, x, y) >>> 40) / (float)(1 << 24);
+    }
+
+    /**
+     * Calculates value noise: random values at the integer coordinates, smoothly interpolated
+     * between them.
+     * @return the noise at the given coordinates, from 0 to 1
+     */
+    public static float value(long seed, float x, float y) {
+
+        //find surrounding lattice points
+        int x0 = (int)Math.floor(x), y0 = (int)Math.floor(y);
+        float tx = x - x0, ty = y - y0;
+        tx = tx * tx * (3 - 2 * tx);
+        ty = ty * ty * (3 - 2 * ty);
+
+        //interpolate their values
+        float bottom = Noise.lerp(Noise.random(seed, x0, y0), Noise.random(seed, x0 + 1, y0), tx);
+        float top = Noise.lerp(Noise.random(seed, x0, y0 + 1), Noise.random(seed, x0 + 1, y0 + 1), tx);
+        return Noise.lerp(bottom, top, ty);
+    }
+
+    /**
+     * Calculates fractal value noise by adding octaves of value noise, each at double the
+     * frequency and half the amplitude of the last.
+     * @param octaves how many octaves to add
+     * @return the noise at the given coordinates, from 0 to 1
+     */
+    public static float fractal(long seed, float x, float y, int octaves) {
+        float total = 0f, amplitude = 1f, range = 0f;
+        for (int i = 0; i < octaves; i++) {
+            total += Noise.value(seed + i, x, y) * amplitude;
+            range += amplitude;
+            amplitude /= 2;
+            x *= 2;
+            y *= 2;
+        }
+        return total / range;
+    }
+
+    /**
+     * @return the value a fraction t of the way from a to b
+     */
+    private static float lerp(float a, float b, float t) {
+        return a + (b - a) * t;
+    }
+}
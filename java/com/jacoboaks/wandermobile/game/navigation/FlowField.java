@@ -0,0 +1,226 @@
+package com.jacoboaks.wandermobile.game.navigation;
+
+import com.jacoboaks.wandermobile.game.AreaGrid;
+
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Guides any number of movers to a single target. One breadth first search outwards from the
+ * target stores, for every cell of an AreaGrid, the direction of the next step along a shortest path
+ * to the target, so each mover finds its next step with a single array read instead of a search
+ * of its own. The field is only recomputed when the target moves to another cell or the grid's
+ * passability changes. Computation can be done on a background thread: passability is copied on
+ * the calling thread, the search fills a back buffer, and the result is swapped in by a later
+ * update() so that reads never see a half-computed field.
+ */
+public class FlowField {
+
+    //Static Data
+    public static final byte NONE = 0; //the cell is blocked, outside the grid or can't reach the target
+    public static final byte RIGHT = 1; //the next step is to grid x + 1
+    public static final byte LEFT = 2; //the next step is to grid x - 1
+    public static final byte UP = 3; //the next step is to grid y + 1
+    public static final byte DOWN = 4; //the next step is to grid y - 1
+    public static final byte TARGET = 5; //the cell is the target
+    private static final int[] DX = { 0, 1, -1, 0, 0, 0 }; //grid x step of each direction
+    private static final int[] DY = { 0, 0, 0, 1, -1, 0 }; //grid y step of each direction
+    private static final byte[] TOWARDS = { LEFT, RIGHT, DOWN, UP }; //direction back to a cell for each step away from it
+    private static ExecutorService worker; //computes fields in the background
+
+    //Data
+    private final AreaGrid grid; //the grid to guide movers across
+    private final boolean async; //whether fields are computed on the background thread
+    private Field front; //the field read by movers
+    private Field back; //the field being computed
+    private volatile boolean computing = false; //whether the back field is being computed in the background
+    private int requestedX, requestedY, requestedVersion; //target cell and grid version of the latest computation
+    private boolean requested = false; //whether any computation has been started
+
+    /**
+     * Constructs this FlowField. No field is computed until the first call to update().
+     * @param grid the grid to guide movers across
+     * @param async whether to compute fields on a background thread
+     */
+    public FlowField(AreaGrid grid, boolean async) {
+        this.grid = grid;
+        this.async = async;
+        this.front = new Field();
+        this.back = new Field();
+    }
+
+    /**
+     * Brings this field up to date. A finished background computation is swapped in, and a new
+     * computation is started if the target is in another cell or the grid has changed since the
+     * last one. Must be called from the thread which reads this field (the GL thread).
+     * @param targetX the grid x of the target
+     * @param targetY the grid y of the target
+     */
+    public void update(int targetX, int targetY) {
+
+        //wait for any computation in progress to finish, then swap in its result
+        if (this.computing) return;
+        if (this.back.ready) this.swap();
+
+        //check whether anything has changed
+        if (this.requested && targetX == this.requestedX && targetY == this.requestedY
+                && this.requestedVersion == this.grid.getVersion()) return;
+        this.requested = true;
+        this.requestedX = targetX;
+        this.requestedY = targetY;
+        this.requestedVersion = this.grid.getVersion();
+
+        //copy passability and compute the new field
+        final Field field = this.back;
+        field.snapshot(this.grid, targetX, targetY);
+        if (this.async) {
+            this.computing = true;
+            FlowField.getWorker().execute(new Runnable() {
+                @Override
+                public void run() {
+                    field.compute();
+                    FlowField.this.computing = false;
+                }
+            });
+        } else {
+            field.compute();
+            this.swap();
+        }
+    }
+
+    /**
+     * Makes the computed back field the front field.
+     */
+    private void swap() {
+        Field field = this.front;
+        this.front = this.back;
+        this.back = field;
+        this.front.ready = false;
+    }
+
+    /**
+     * @return the direction of the next step from the given cell towards the target (one of the
+     * direction constants of this class)
+     */
+    public byte getDirection(int gx, int gy) {
+        Field field = this.front;
+        int x = gx - field.originX, y = gy - field.originY;
+        if (x < 0 || y < 0 || x >= field.width || y >= field.height) return NONE;
+        return field.directions[y * field.width + x];
+    }
+
+    /**
+     * @return the grid x step of the given direction
+     */
+    public static int getStepX(byte direction) { return DX[direction]; }
+
+    /**
+     * @return the grid y step of the given direction
+     */
+    public static int getStepY(byte direction) { return DY[direction]; }
+
+    /**
+     * @return the thread fields are computed on, creating it if it doesn't exist yet
+     */
+    private static synchronized ExecutorService getWorker() {
+        if (FlowField.worker == null) {
+            FlowField.worker = Executors.newSingleThreadExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "FlowField");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return FlowField.worker;
+    }
+
+    //Accessors
+    public int getTargetX() { return this.front.targetX; }
+    public int getTargetY() { return this.front.targetY; }
+    public boolean isComputing() { return this.computing; }
+
+    /**
+     * A single buffer of directions along with the passability it was computed from. Its arrays
+     * are only resized when the grid's bounds change.
+     */
+    private static class Field {
+
+        //Data
+        byte[] directions = new byte[0]; //direction of each cell by index within the bounds
+        long[] blocked = new long[0]; //one bit per cell, set if the cell blocks movement
+        int[] queue = new int[0]; //breadth first search queue
+        final long[] chunkBits = new long[AreaGrid.WORDS_PER_LAYER]; //blocked bits of the chunk being copied
+        int originX, originY, width, height; //bounds of the grid when computed, in cells
+        int targetX, targetY; //the target cell
+        volatile boolean ready = false; //whether this field has been computed and not yet swapped in
+
+        /**
+         * Copies the bounds and passability of the grid and records the target. Must be called on
+         * the thread which changes the grid.
+         */
+        void snapshot(AreaGrid grid, int targetX, int targetY) {
+
+            //size arrays for the grid's bounds
+            this.originX = grid.getMinX();
+            this.originY = grid.getMinY();
+            this.width = grid.getWidth();
+            this.height = grid.getHeight();
+            this.targetX = targetX;
+            this.targetY = targetY;
+            int cells = this.width * this.height;
+            if (this.directions.length != cells) {
+                this.directions = new byte[cells];
+                this.blocked = new long[(cells + 63) >> 6];
+                this.queue = new int[cells];
+            }
+
+            //copy the blocked bits of every chunk position within the bounds into cell order
+            Arrays.fill(this.blocked, 0L);
+            long[] bits = this.chunkBits;
+            for (int cy = this.originY >> AreaGrid.CHUNK_SHIFT; cy < (this.originY + this.height) >> AreaGrid.CHUNK_SHIFT; cy++) {
+                for (int cx = this.originX >> AreaGrid.CHUNK_SHIFT; cx < (this.originX + this.width) >> AreaGrid.CHUNK_SHIFT; cx++) {
+                    grid.getBlockedBits(cx, cy, bits);
+                    int minX = (cx << AreaGrid.CHUNK_SHIFT) - this.originX, minY = (cy << AreaGrid.CHUNK_SHIFT) - this.originY;
+                    for (int i = 0; i < AreaGrid.CHUNK_SIZE * AreaGrid.CHUNK_SIZE; i++) {
+                        if ((bits[i >> 6] & (1L << i)) == 0) continue;
+                        int cell = (minY + (i >> AreaGrid.CHUNK_SHIFT)) * this.width + minX + (i & AreaGrid.CHUNK_MASK);
+                        this.blocked[cell >> 6] |= 1L << cell;
+                    }
+                }
+            }
+        }
+
+        /**
+         * Fills the directions with a breadth first search outwards from the target, then marks this
+         * field as ready. Only reads the copied passability, so it may run on any thread.
+         */
+        void compute() {
+            Arrays.fill(this.directions, NONE);
+            int x0 = this.targetX - this.originX, y0 = this.targetY - this.originY;
+            if (x0 >= 0 && y0 >= 0 && x0 < this.width && y0 < this.height) {
+                int target = y0 * this.width + x0;
+                this.directions[target] = TARGET;
+                this.queue[0] = target;
+                int head = 0, tail = 1;
+                while (head < tail) {
+                    int cell = this.queue[head++];
+                    int x = cell % this.width, y = cell / this.width;
+                    for (int d = 0; d < 4; d++) {
+                        int nx = x + DX[d + 1], ny = y + DY[d + 1];
+                        if (nx < 0 || ny < 0 || nx >= this.width || ny >= this.height) continue;
+                        int neighbour = ny * this.width + nx;
+                        if (this.directions[neighbour] != NONE) continue;
+                        if ((this.blocked[neighbour >> 6] & (1L << neighbour)) != 0) continue;
+                        this.directions[neighbour] = TOWARDS[d];
+                        this.queue[tail++] = neighbour;
+                    }
+                }
+            }
+            this.ready = true;
+        }
+    }
+}
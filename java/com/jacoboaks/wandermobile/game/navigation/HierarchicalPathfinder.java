@@ -0,0 +1,655 @@
+package com.jacoboaks.wandermobile.game.navigation;
+
+import com.jacoboaks.wandermobile.game.AreaGrid;
+
+import java.util.Arrays;
+
+/**
+ * Finds paths across an AreaGrid using hierarchical A* (HPA*), so that long routes across large
+ * areas don't have to expand every cell in between. The grid is divided into sectors matching its
+ * chunks. Wherever the open cells along the border of two sectors line up, portals are placed, and
+ * the distances between all portals of a sector are precomputed. A route is found by searching
+ * this much smaller graph of portals and then refined into single cell steps one sector at a time.
+ * When passability changes, only the sectors of changed chunks and their neighbours are rebuilt.
+ * Paths found this way are close to, but not always exactly, the shortest. The Pathfinder should be
+ * preferred for short routes where an exact path matters.
+ */
+public class HierarchicalPathfinder {
+
+    //Static Data
+    private static final int SIZE = AreaGrid.CHUNK_SIZE; //cells along each side of a sector
+    private static final int CELLS = SIZE * SIZE; //cells in a sector
+    private static final int MAX_NODES = 32; //at most eight portals along each of the four borders
+    private static final int NODE_BITS = 5; //bits of a node id used for the node within its sector
+    private static final int LONG_ENTRANCE = 6; //entrances this long get a portal at each end
+    private static final int TIE_BITS = 11; //bits of a priority used to break ties between estimates
+    private static final int TIE_MASK = (1 << TIE_BITS) - 1;
+    private static final int MAX_ESTIMATE = Integer.MAX_VALUE >> TIE_BITS; //highest estimate a priority can hold
+    private static final int GOAL = Integer.MAX_VALUE; //node id of the target during a search
+    private static final int[] DX = { 1, -1, 0, 0 };
+    private static final int[] DY = { 0, 0, 1, -1 };
+
+    //Data
+    private final AreaGrid grid; //the grid to find paths across
+    private Sector[] sectors; //sectors by sector position relative to the grid's bounds
+    private int sectorMinX, sectorMinY, sectorWidth, sectorHeight; //bounds of the sectors in sectors
+    private int gridVersion; //version of the grid the sectors were built for
+    private boolean[] dirty; //sectors whose portals need rebuilding during a sync
+    private KeyHeap open; //open set of portals by estimated total cost
+    private int stamp; //identifies the current abstract search
+    private int goalCost, goalParent; //best known cost to the target and the node it was reached from
+    private int[] startCost, targetCost; //cost from the start and to the target of each end sector's portals
+    private int[] localDist, localParent, localQueue; //breadth first search state within one sector
+    private long[] localBlocked; //which cells of the searched sector block movement
+    private int[] componentStack; //portals left to label while labeling components
+    private int[] path; //the refined path being built
+    private int pathLength;
+
+    /**
+     * Constructs this HierarchicalPathfinder. The abstraction is built by the first search.
+     * @param grid the grid to find paths across
+     */
+    public HierarchicalPathfinder(AreaGrid grid) {
+        this.grid = grid;
+        this.sectors = new Sector[0];
+        this.dirty = new boolean[0];
+        this.open = new KeyHeap();
+        this.startCost = new int[MAX_NODES];
+        this.targetCost = new int[MAX_NODES];
+        this.localDist = new int[CELLS];
+        this.localParent = new int[CELLS];
+        this.localQueue = new int[CELLS];
+        this.localBlocked = new long[AreaGrid.WORDS_PER_LAYER];
+        this.componentStack = new int[64];
+        this.path = new int[64];
+        this.gridVersion = -1;
+    }
+
+    /**
+     * Finds a path between two cells.
+     * @param sx the grid x to start at
+     * @param sy the grid y to start at
+     * @param tx the grid x to reach
+     * @param ty the grid y to reach
+     * @return the cells of the path after the start as { x1, y1, x2, y2, ... } ending with the
+     * target, an empty array if the start is the target, or null if the target can't be reached
+     */
+    public int[] findPath(int sx, int sy, int tx, int ty) {
+
+        //make sure the abstraction matches the grid
+        this.sync();
+
+        //check that both ends are on the grid and the target is open
+        Sector start = this.getSector(sx >> AreaGrid.CHUNK_SHIFT, sy >> AreaGrid.CHUNK_SHIFT);
+        Sector target = this.getSector(tx >> AreaGrid.CHUNK_SHIFT, ty >> AreaGrid.CHUNK_SHIFT);
+        if (start == null || target == null || this.grid.isBlocked(tx, ty)) return null;
+        if (sx == tx && sy == ty) return new int[0];
+        this.pathLength = 0;
+
+        //try a path within the sector if both ends share one
+        if (start == target) {
+            this.searchSector(start, sx, sy);
+            if (this.localDist[start.toLocal(tx, ty)] >= 0) {
+                this.appendLocalPath(start, tx, ty);
+                return Arrays.copyOf(this.path, this.pathLength);
+            }
+        }
+
+        //search portals, then refine into cells
+        if (!this.searchPortals(start, sx, sy, target, tx, ty)) return null;
+        this.refine(this.collectRoute(), start, sx, sy, tx, ty);
+        return Arrays.copyOf(this.path, this.pathLength);
+    }
+
+    /**
+     * Finds the portals a path between two cells passes through without refining it into single
+     * cell steps, which is much quicker for long routes. Consecutive waypoints are either adjacent
+     * or within the same chunk, so each leg can be found cheaply with a Pathfinder as it is reached.
+     * @param sx the grid x to start at
+     * @param sy the grid y to start at
+     * @param tx the grid x to reach
+     * @param ty the grid y to reach
+     * @return the waypoints of the route as { x1, y1, x2, y2, ... } ending with the target, an empty
+     * array if the start is the target, or null if the target can't be reached
+     */
+    public int[] findRoute(int sx, int sy, int tx, int ty) {
+
+        //make sure the abstraction matches the grid
+        this.sync();
+
+        //check that both ends are on the grid and the target is open
+        Sector start = this.getSector(sx >> AreaGrid.CHUNK_SHIFT, sy >> AreaGrid.CHUNK_SHIFT);
+        Sector target = this.getSector(tx >> AreaGrid.CHUNK_SHIFT, ty >> AreaGrid.CHUNK_SHIFT);
+        if (start == null || target == null || this.grid.isBlocked(tx, ty)) return null;
+        if (sx == tx && sy == ty) return new int[0];
+
+        //go straight to the target if both ends share a sector and it can be reached within it
+        if (start == target) {
+            this.searchSector(start, sx, sy);
+            if (this.localDist[start.toLocal(tx, ty)] >= 0) return new int[] { tx, ty };
+        }
+
+        //search portals and list them
+        if (!this.searchPortals(start, sx, sy, target, tx, ty)) return null;
+        int[] route = this.collectRoute();
+        int[] waypoints = new int[route.length * 2 + 2];
+        for (int i = 0; i < route.length; i++) {
+            Sector sector = this.sectors[route[i] >> NODE_BITS];
+            int node = route[i] & (MAX_NODES - 1);
+            waypoints[i * 2] = sector.nodeX[node];
+            waypoints[i * 2 + 1] = sector.nodeY[node];
+        }
+        waypoints[route.length * 2] = tx;
+        waypoints[route.length * 2 + 1] = ty;
+        return waypoints;
+    }
+
+    /**
+     * Runs A* over the portals, starting from every portal reachable from the start within its
+     * sector and finishing at the target through any portal of its sector which can reach it.
+     * @return whether the target was reached - if so, goalParent holds the last portal of the route
+     */
+    private boolean searchPortals(Sector start, int sx, int sy, Sector target, int tx, int ty) {
+
+        //find costs between the ends and the portals of their sectors
+        this.searchSector(target, tx, ty);
+        for (int i = 0; i < target.nodeCount; i++) {
+            this.targetCost[i] = this.localDist[target.toLocal(target.nodeX[i], target.nodeY[i])];
+        }
+        this.searchSector(start, sx, sy);
+        for (int i = 0; i < start.nodeCount; i++) {
+            this.startCost[i] = this.localDist[start.toLocal(start.nodeX[i], start.nodeY[i])];
+        }
+
+        //give up early if the ends' portals are never connected
+        if (!this.connected(start, target)) return false;
+
+        //open every portal reachable from the start
+        this.nextStamp();
+        this.open.clear();
+        this.goalCost = Integer.MAX_VALUE;
+        this.goalParent = -1;
+        for (int i = 0; i < start.nodeCount; i++) {
+            if (this.startCost[i] >= 0) this.relax(start, i, this.startCost[i], -1, tx, ty);
+        }
+
+        //expand portals in order of estimated total cost
+        while (!this.open.isEmpty()) {
+            int id = (int)this.open.pop();
+            if (id == GOAL) return true;
+            Sector sector = this.sectors[id >> NODE_BITS];
+            int node = id & (MAX_NODES - 1);
+            if (sector.closed[node] == this.stamp) continue; //stale entry
+            sector.closed[node] = this.stamp;
+            int g = sector.g[node];
+
+            //reach the target if this portal is in its sector
+            if (sector == target && this.targetCost[node] >= 0 && g + this.targetCost[node] < this.goalCost) {
+                this.goalCost = g + this.targetCost[node];
+                this.goalParent = id;
+                this.open.push(HierarchicalPathfinder.priority(this.goalCost, this.goalCost), GOAL);
+            }
+
+            //move to the other portals of this sector
+            for (int j = 0; j < sector.nodeCount; j++) {
+                int d = sector.dist[node * sector.nodeCount + j];
+                if (j != node && d >= 0) this.relax(sector, j, g + d, id, tx, ty);
+            }
+
+            //move across the border to the paired portal
+            Border border = sector.nodeBorder[node];
+            int index = sector.nodeIndex[node];
+            if (sector.nodeSide[node]) this.relax(border.b, border.bNode[index], g + 1, id, tx, ty);
+            else this.relax(border.a, border.aNode[index], g + 1, id, tx, ty);
+        }
+        return false;
+    }
+
+    /**
+     * @return whether any portal reachable from the start is in the same component as any portal
+     * which can reach the target
+     */
+    private boolean connected(Sector start, Sector target) {
+        for (int i = 0; i < start.nodeCount; i++) {
+            if (this.startCost[i] < 0) continue;
+            for (int j = 0; j < target.nodeCount; j++) {
+                if (this.targetCost[j] >= 0 && start.component[i] == target.component[j]) return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Opens a portal if the given cost improves on the best known cost to it.
+     * @param parent the id of the portal it was reached from, or -1 if it was reached from the start
+     */
+    private void relax(Sector sector, int node, int g, int parent, int tx, int ty) {
+        if (sector.closed[node] == this.stamp) return;
+        if (sector.opened[node] == this.stamp && g >= sector.g[node]) return;
+        sector.opened[node] = this.stamp;
+        sector.g[node] = g;
+        sector.parent[node] = parent;
+        int h = Math.abs(sector.nodeX[node] - tx) + Math.abs(sector.nodeY[node] - ty);
+        this.open.push(HierarchicalPathfinder.priority(g + h, g), (sector.index << NODE_BITS) | node);
+    }
+
+    /**
+     * @return the open set priority of a portal with the given estimated total cost and cost so far.
+     * Portals with equal estimates are ordered by cost so far, highest first, so that the search
+     * follows one of many equally good routes to its end instead of widening across all of them.
+     * Estimates above MAX_ESTIMATE are clamped to it so that the priority can't overflow into a
+     * negative number and jump to the top of the open set
+     */
+    private static int priority(int f, int g) {
+        return (Math.min(f, MAX_ESTIMATE) << TIE_BITS) | (TIE_MASK - Math.min(g, TIE_MASK));
+    }
+
+    /**
+     * @return the ids of the portals along the route found by searchPortals(), from the start end
+     */
+    private int[] collectRoute() {
+        int count = 0;
+        for (int id = this.goalParent; id != -1; id = this.sectors[id >> NODE_BITS].parent[id & (MAX_NODES - 1)]) count++;
+        int[] route = new int[count];
+        for (int id = this.goalParent, i = count - 1; i >= 0; i--) {
+            route[i] = id;
+            id = this.sectors[id >> NODE_BITS].parent[id & (MAX_NODES - 1)];
+        }
+        return route;
+    }
+
+    /**
+     * Turns a route of portals into single cell steps, appending them to path.
+     */
+    private void refine(int[] route, Sector start, int sx, int sy, int tx, int ty) {
+
+        //walk from the start through each portal to the target
+        Sector sector = start;
+        int x = sx, y = sy;
+        for (int id : route) {
+            Sector next = this.sectors[id >> NODE_BITS];
+            int node = id & (MAX_NODES - 1);
+            int nx = next.nodeX[node], ny = next.nodeY[node];
+            if (next == sector) { //within a sector
+                this.searchSector(sector, x, y);
+                this.appendLocalPath(sector, nx, ny);
+            } else this.appendStep(nx, ny); //across a border
+            sector = next;
+            x = nx;
+            y = ny;
+        }
+        this.searchSector(sector, x, y);
+        this.appendLocalPath(sector, tx, ty);
+    }
+
+    /**
+     * Runs a breadth first search from a cell, staying within one sector. Afterwards, localDist
+     * holds the distance to each cell of the sector (-1 if unreachable) and localParent the cell
+     * each was reached from.
+     */
+    private void searchSector(Sector sector, int fromX, int fromY) {
+        Arrays.fill(this.localDist, -1);
+        this.grid.getBlockedBits(sector.cx, sector.cy, this.localBlocked);
+        int from = sector.toLocal(fromX, fromY);
+        this.localDist[from] = 0;
+        this.localQueue[0] = from;
+        int head = 0, tail = 1;
+        while (head < tail) {
+            int cell = this.localQueue[head++];
+            int x = cell & (SIZE - 1), y = cell >> AreaGrid.CHUNK_SHIFT;
+            for (int d = 0; d < 4; d++) {
+                int nx = x + DX[d], ny = y + DY[d];
+                if (nx < 0 || ny < 0 || nx >= SIZE || ny >= SIZE) continue;
+                int neighbour = (ny << AreaGrid.CHUNK_SHIFT) | nx;
+                if (this.localDist[neighbour] >= 0) continue;
+                if ((this.localBlocked[neighbour >> 6] & (1L << neighbour)) != 0) continue;
+                this.localDist[neighbour] = this.localDist[cell] + 1;
+                this.localParent[neighbour] = cell;
+                this.localQueue[tail++] = neighbour;
+            }
+        }
+    }
+
+    /**
+     * Appends the cells leading to the given cell from the origin of the last searchSector().
+     */
+    private void appendLocalPath(Sector sector, int toX, int toY) {
+        int to = sector.toLocal(toX, toY);
+        int length = this.localDist[to];
+        this.ensurePathCapacity(length);
+        for (int cell = to, i = length - 1; i >= 0; cell = this.localParent[cell], i--) {
+            this.path[this.pathLength + i * 2] = sector.minX + (cell & (SIZE - 1));
+            this.path[this.pathLength + i * 2 + 1] = sector.minY + (cell >> AreaGrid.CHUNK_SHIFT);
+        }
+        this.pathLength += length * 2;
+    }
+
+    /**
+     * Appends a single cell to the path.
+     */
+    private void appendStep(int x, int y) {
+        this.ensurePathCapacity(1);
+        this.path[this.pathLength++] = x;
+        this.path[this.pathLength++] = y;
+    }
+
+    /**
+     * Grows the path array to fit the given number of additional cells.
+     */
+    private void ensurePathCapacity(int cells) {
+        if (this.pathLength + cells * 2 > this.path.length) {
+            this.path = Arrays.copyOf(this.path, Math.max(this.path.length * 2, this.pathLength + cells * 2));
+        }
+    }
+
+    /**
+     * Brings the abstraction up to date with the grid. If the grid's bounds changed, every sector
+     * is rebuilt. Otherwise, only the sectors around changed chunks are. Afterwards, the connected
+     * components of the portals are labeled again.
+     */
+    private void sync() {
+
+        //check for changes
+        if (this.gridVersion == this.grid.getVersion()) return;
+        this.gridVersion = this.grid.getVersion();
+        int minX = this.grid.getMinX() >> AreaGrid.CHUNK_SHIFT, minY = this.grid.getMinY() >> AreaGrid.CHUNK_SHIFT;
+        int width = this.grid.getWidth() >> AreaGrid.CHUNK_SHIFT, height = this.grid.getHeight() >> AreaGrid.CHUNK_SHIFT;
+        if (minX != this.sectorMinX || minY != this.sectorMinY || width != this.sectorWidth || height != this.sectorHeight) {
+            this.rebuild(minX, minY, width, height);
+        } else this.update();
+        this.labelComponents();
+    }
+
+    /**
+     * Rebuilds the sectors whose chunk changed, along with the neighbours that share their borders.
+     */
+    private void update() {
+
+        //rebuild borders of changed sectors
+        Arrays.fill(this.dirty, false);
+        for (Sector sector : this.sectors) {
+            if (sector.version == this.getChunkVersion(sector)) continue;
+            this.dirty[sector.index] = true;
+            this.buildBorder(sector.right);
+            this.buildBorder(sector.up);
+            Sector left = this.getSector(sector.cx - 1, sector.cy);
+            Sector down = this.getSector(sector.cx, sector.cy - 1);
+            if (left != null) {
+                this.buildBorder(left.right);
+                this.dirty[left.index] = true;
+            }
+            if (down != null) {
+                this.buildBorder(down.up);
+                this.dirty[down.index] = true;
+            }
+            if (sector.right != null) this.dirty[sector.right.b.index] = true;
+            if (sector.up != null) this.dirty[sector.up.b.index] = true;
+        }
+
+        //rebuild portals of changed sectors and their neighbours
+        for (Sector sector : this.sectors) if (this.dirty[sector.index]) this.buildNodes(sector);
+    }
+
+    /**
+     * Rebuilds every sector for the given bounds.
+     */
+    private void rebuild(int minX, int minY, int width, int height) {
+
+        //create sectors
+        this.sectorMinX = minX;
+        this.sectorMinY = minY;
+        this.sectorWidth = width;
+        this.sectorHeight = height;
+        this.sectors = new Sector[width * height];
+        this.dirty = new boolean[width * height];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int index = y * width + x;
+                this.sectors[index] = new Sector(index, minX + x, minY + y);
+            }
+        }
+
+        //create and build borders, then portals
+        for (Sector sector : this.sectors) {
+            Sector right = this.getSector(sector.cx + 1, sector.cy);
+            Sector up = this.getSector(sector.cx, sector.cy + 1);
+            if (right != null) this.buildBorder(sector.right = new Border(sector, right, 1, 0));
+            if (up != null) this.buildBorder(sector.up = new Border(sector, up, 0, 1));
+        }
+        for (Sector sector : this.sectors) this.buildNodes(sector);
+        this.stamp = 0;
+    }
+
+    /**
+     * Labels each portal with the connected component of portals it belongs to, so that a search
+     * for an unreachable target can fail without visiting every portal it can reach.
+     */
+    private void labelComponents() {
+        for (Sector sector : this.sectors) Arrays.fill(sector.component, -1);
+        int label = 0;
+        for (Sector first : this.sectors) {
+            for (int firstNode = 0; firstNode < first.nodeCount; firstNode++) {
+                if (first.component[firstNode] != -1) continue;
+
+                //flood the component containing this portal
+                first.component[firstNode] = label;
+                int size = 0;
+                this.componentStack[size++] = (first.index << NODE_BITS) | firstNode;
+                while (size > 0) {
+                    int id = this.componentStack[--size];
+                    Sector sector = this.sectors[id >> NODE_BITS];
+                    int node = id & (MAX_NODES - 1);
+                    if (this.componentStack.length < size + MAX_NODES + 1) {
+                        this.componentStack = Arrays.copyOf(this.componentStack, this.componentStack.length * 2);
+                    }
+                    for (int j = 0; j < sector.nodeCount; j++) {
+                        if (sector.component[j] == -1 && sector.dist[node * sector.nodeCount + j] >= 0) {
+                            sector.component[j] = label;
+                            this.componentStack[size++] = (sector.index << NODE_BITS) | j;
+                        }
+                    }
+                    Border border = sector.nodeBorder[node];
+                    int index = sector.nodeIndex[node];
+                    Sector other = sector.nodeSide[node] ? border.b : border.a;
+                    int otherNode = sector.nodeSide[node] ? border.bNode[index] : border.aNode[index];
+                    if (other.component[otherNode] == -1) {
+                        other.component[otherNode] = label;
+                        this.componentStack[size++] = (other.index << NODE_BITS) | otherNode;
+                    }
+                }
+                label++;
+            }
+        }
+    }
+
+    /**
+     * Finds the portals along a border. Each run of open cells facing open cells across the border
+     * is an entrance. Short entrances get one portal pair in their middle and long ones get a pair
+     * at each end.
+     */
+    private void buildBorder(Border border) {
+        if (border == null) return;
+        border.count = 0;
+        int x = border.a.minX + (border.dx == 1 ? SIZE - 1 : 0);
+        int y = border.a.minY + (border.dy == 1 ? SIZE - 1 : 0);
+        int runStart = -1;
+        for (int i = 0; i <= SIZE; i++) {
+            boolean entrance = i < SIZE && !this.grid.isBlocked(x + border.dy * i, y + border.dx * i)
+                    && !this.grid.isBlocked(x + border.dy * i + border.dx, y + border.dx * i + border.dy);
+            if (entrance && runStart == -1) runStart = i;
+            else if (!entrance && runStart != -1) {
+                int length = i - runStart;
+                if (length >= LONG_ENTRANCE) {
+                    border.add(x + border.dy * runStart, y + border.dx * runStart);
+                    border.add(x + border.dy * (i - 1), y + border.dx * (i - 1));
+                } else {
+                    int middle = runStart + length / 2;
+                    border.add(x + border.dy * middle, y + border.dx * middle);
+                }
+                runStart = -1;
+            }
+        }
+    }
+
+    /**
+     * Collects the portals of a sector from its four borders and precomputes the distance between
+     * each pair of them within the sector.
+     */
+    private void buildNodes(Sector sector) {
+
+        //collect portals
+        sector.nodeCount = 0;
+        sector.addNodes(sector.right, true);
+        sector.addNodes(sector.up, true);
+        Sector left = this.getSector(sector.cx - 1, sector.cy);
+        Sector down = this.getSector(sector.cx, sector.cy - 1);
+        if (left != null) sector.addNodes(left.right, false);
+        if (down != null) sector.addNodes(down.up, false);
+
+        //find distances between portals
+        int n = sector.nodeCount;
+        if (sector.dist.length < n * n) sector.dist = new int[n * n];
+        for (int i = 0; i < n; i++) {
+            this.searchSector(sector, sector.nodeX[i], sector.nodeY[i]);
+            for (int j = 0; j < n; j++) {
+                sector.dist[i * n + j] = this.localDist[sector.toLocal(sector.nodeX[j], sector.nodeY[j])];
+            }
+        }
+        sector.version = this.getChunkVersion(sector);
+    }
+
+    /**
+     * @return the version of the chunk covering a sector, or 0 if it has no chunk
+     */
+    private int getChunkVersion(Sector sector) {
+        AreaGrid.Chunk chunk = this.grid.getChunk(sector.cx, sector.cy);
+        return chunk == null ? 0 : chunk.getVersion();
+    }
+
+    /**
+     * @return the sector at the given sector position, or null if it is outside the grid
+     */
+    private Sector getSector(int cx, int cy) {
+        int x = cx - this.sectorMinX, y = cy - this.sectorMinY;
+        if (x < 0 || y < 0 || x >= this.sectorWidth || y >= this.sectorHeight) return null;
+        return this.sectors[y * this.sectorWidth + x];
+    }
+
+    /**
+     * Advances the search stamp, clearing every sector's stamps when it wraps around.
+     */
+    private void nextStamp() {
+        this.stamp++;
+        if (this.stamp == Integer.MAX_VALUE) {
+            for (Sector sector : this.sectors) {
+                Arrays.fill(sector.opened, 0);
+                Arrays.fill(sector.closed, 0);
+            }
+            this.stamp = 1;
+        }
+    }
+
+    /**
+     * One chunk of the grid along with its portals, their precomputed distances and the state of
+     * the current abstract search.
+     */
+    private static class Sector {
+
+        //Data
+        final int index, cx, cy, minX, minY; //index in sectors, chunk position and lowest cell
+        Border right, up; //borders with the next sectors along x and y (null at the grid's edge)
+        int version = -1; //version of the chunk the portals were built for
+        int nodeCount; //how many portals this sector has
+        final int[] nodeX, nodeY; //cell of each portal
+        final Border[] nodeBorder; //border of each portal
+        final int[] nodeIndex; //index of each portal within its border
+        final boolean[] nodeSide; //whether each portal is on the near (a) side of its border
+        int[] dist; //distance between each pair of portals within this sector (-1 if unreachable)
+        final int[] component; //connected component of each portal
+        final int[] g, parent, opened, closed; //abstract search state of each portal
+
+        /**
+         * Constructs this Sector.
+         */
+        Sector(int index, int cx, int cy) {
+            this.index = index;
+            this.cx = cx;
+            this.cy = cy;
+            this.minX = cx << AreaGrid.CHUNK_SHIFT;
+            this.minY = cy << AreaGrid.CHUNK_SHIFT;
+            this.nodeX = new int[MAX_NODES];
+            this.nodeY = new int[MAX_NODES];
+            this.nodeBorder = new Border[MAX_NODES];
+            this.nodeIndex = new int[MAX_NODES];
+            this.nodeSide = new boolean[MAX_NODES];
+            this.dist = new int[0];
+            this.component = new int[MAX_NODES];
+            this.g = new int[MAX_NODES];
+            this.parent = new int[MAX_NODES];
+            this.opened = new int[MAX_NODES];
+            this.closed = new int[MAX_NODES];
+        }
+
+        /**
+         * Adds this sector's side of every portal along a border to its portals.
+         * @param near whether this sector is the near (a) side of the border
+         */
+        void addNodes(Border border, boolean near) {
+            if (border == null) return;
+            for (int i = 0; i < border.count; i++) {
+                int node = this.nodeCount++;
+                this.nodeX[node] = border.x[i] + (near ? 0 : border.dx);
+                this.nodeY[node] = border.y[i] + (near ? 0 : border.dy);
+                this.nodeBorder[node] = border;
+                this.nodeIndex[node] = i;
+                this.nodeSide[node] = near;
+                if (near) border.aNode[i] = node;
+                else border.bNode[i] = node;
+            }
+        }
+
+        /**
+         * @return the index within this sector of the cell at the given grid position
+         */
+        int toLocal(int gx, int gy) {
+            return ((gy - this.minY) << AreaGrid.CHUNK_SHIFT) | (gx - this.minX);
+        }
+    }
+
+    /**
+     * The portals along the border between two neighbouring sectors. Each portal is a pair of
+     * facing cells, one in each sector.
+     */
+    private static class Border {
+
+        //Data
+        final Sector a, b; //the near sector and the next sector along x or y
+        final int dx, dy; //the step from a's side of a portal to b's side
+        int count; //how many portals this border has
+        final int[] x, y; //cell of each portal on a's side
+        final int[] aNode, bNode; //node index of each portal within a and b
+
+        /**
+         * Constructs this Border with no portals.
+         */
+        Border(Sector a, Sector b, int dx, int dy) {
+            this.a = a;
+            this.b = b;
+            this.dx = dx;
+            this.dy = dy;
+            this.x = new int[SIZE / 2];
+            this.y = new int[SIZE / 2];
+            this.aNode = new int[SIZE / 2];
+            this.bNode = new int[SIZE / 2];
+        }
+
+        /**
+         * Adds a portal whose cell on a's side is at the given grid position.
+         */
+        void add(int gx, int gy) {
+            this.x[this.count] = gx;
+            this.y[this.count] = gy;
+            this.count++;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.jacoboaks.wandermobile.game.navigation;
+
+import java.util.Arrays;
+
+/**
+ * A binary min-heap of primitive keys used as the open set of the path searches. Each key packs a
+ * non-negative priority into its high 32 bits and a non-negative value into its low 32 bits, so
+ * keys compare by priority first and pushing or popping never allocates once the heap has grown.
+ */
+class KeyHeap {
+
+    //Data
+    private long[] keys; //the heap
+    private int size; //how many keys are in the heap
+
+    /**
+     * Constructs this KeyHeap.
+     */
+    KeyHeap() {
+        this.keys = new long[64];
+        this.size = 0;
+    }
+
+    /**
+     * Adds a value with the given priority.
+     */
+    void push(int priority, int value) {
+        if (this.size == this.keys.length) this.keys = Arrays.copyOf(this.keys, this.size * 2);
+        long key = ((long)priority << 32) | value;
+        int i = this.size++;
+        while (i > 0) {
+            int parent = (i - 1) >> 1;
+            if (this.keys[parent] <= key) break;
+            this.keys[i] = this.keys[parent];
+            i = parent;
+        }
+        this.keys[i] = key;
+    }
+
+    /**
+     * Removes the key with the lowest priority.
+     * @return the removed key - its low 32 bits are the value
+     */
+    long pop() {
+        long top = this.keys[0];
+        long last = this.keys[--this.size];
+        int i = 0;
+        while (true) {
+            int child = (i << 1) + 1;
+            if (child >= this.size) break;
+            if (child + 1 < this.size && this.keys[child + 1] < this.keys[child]) child++;
+            if (this.keys[child] >= last) break;
+            this.keys[i] = this.keys[child];
+            i = child;
+        }
+        this.keys[i] = last;
+        return top;
+    }
+
+    //Accessors
+    boolean isEmpty() { return this.size == 0; }
+
+    //Mutators
+    void clear() { this.size = 0; }
+}
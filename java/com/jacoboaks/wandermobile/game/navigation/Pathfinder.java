@@ -0,0 +1,184 @@
+package com.jacoboaks.wandermobile.game.navigation;
+
+import com.jacoboaks.wandermobile.game.AreaGrid;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Finds shortest paths across an AreaGrid using A*, moving one cell at a time in the four cardinal
+ * directions as Tiles do. Cells are identified by int indices into the grid's bounds and the search
+ * uses a heap of primitive keys and generation-stamped score arrays, so a search allocates
+ * nothing but the returned path. Recently found paths are cached until the grid's passability
+ * changes.
+ */
+public class Pathfinder {
+
+    //Static Data
+    private static final int CACHE_SIZE = 32; //how many paths to remember
+    private static final int[] DX = { 1, -1, 0, 0 };
+    private static final int[] DY = { 0, 0, 1, -1 };
+
+    //Data
+    private final AreaGrid grid; //the grid to find paths across
+    private Map<Long, int[]> cache; //recently found paths by start and target cell
+    private int[] gScore; //cost from the start to each cell, valid if opened[cell] == stamp
+    private int[] parent; //the cell each cell was reached from, valid if opened[cell] == stamp
+    private int[] opened; //the stamp of the last search to reach each cell
+    private int[] closed; //the stamp of the last search to finish each cell
+    private KeyHeap open; //open set of cells by estimated total cost
+    private int stamp; //identifies the current search
+    private int originX, originY, width, height; //bounds of the grid the arrays were sized for
+    private int gridVersion; //version of the grid the cache is valid for
+
+    /**
+     * Constructs this Pathfinder.
+     * @param grid the grid to find paths across
+     */
+    public Pathfinder(AreaGrid grid) {
+        this.grid = grid;
+        this.cache = new LinkedHashMap<Long, int[]>(CACHE_SIZE * 2, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, int[]> eldest) {
+                return this.size() > CACHE_SIZE;
+            }
+        };
+        this.open = new KeyHeap();
+        this.gridVersion = -1;
+    }
+
+    /**
+     * Finds the shortest path between two cells. The returned array is shared with the cache and
+     * must not be modified.
+     * @param sx the grid x to start at
+     * @param sy the grid y to start at
+     * @param tx the grid x to reach
+     * @param ty the grid y to reach
+     * @return the cells of the path after the start as { x1, y1, x2, y2, ... } ending with the
+     * target, an empty array if the start is the target, or null if the target can't be reached
+     */
+    public int[] findPath(int sx, int sy, int tx, int ty) {
+
+        //make sure arrays and cache match the grid
+        this.sync();
+
+        //check that both ends are on the grid and the target is open
+        int start = this.toCell(sx, sy), target = this.toCell(tx, ty);
+        if (start < 0 || target < 0 || this.grid.isBlocked(tx, ty)) return null;
+        if (start == target) return new int[0];
+
+        //check cache
+        Long key = ((long)start << 32) | target;
+        if (this.cache.containsKey(key)) return this.cache.get(key);
+
+        //search and cache result
+        int[] path = this.search(start, target);
+        this.cache.put(key, path);
+        return path;
+    }
+
+    /**
+     * Resizes the search arrays and clears the cache if the grid has changed since the last search.
+     */
+    private void sync() {
+        if (this.gridVersion == this.grid.getVersion()) return;
+        this.cache.clear();
+        this.gridVersion = this.grid.getVersion();
+        if (this.width != this.grid.getWidth() || this.height != this.grid.getHeight() || this.gScore == null) {
+            int cells = this.grid.getWidth() * this.grid.getHeight();
+            this.gScore = new int[cells];
+            this.parent = new int[cells];
+            this.opened = new int[cells];
+            this.closed = new int[cells];
+            this.stamp = 0;
+        }
+        this.originX = this.grid.getMinX();
+        this.originY = this.grid.getMinY();
+        this.width = this.grid.getWidth();
+        this.height = this.grid.getHeight();
+    }
+
+    /**
+     * Runs A* between two cells.
+     * @return the path (as described in findPath()) or null if there is none
+     */
+    private int[] search(int start, int target) {
+
+        //start a new search
+        this.nextStamp();
+        this.open.clear();
+        int targetX = target % this.width, targetY = target / this.width;
+        this.gScore[start] = 0;
+        this.parent[start] = -1;
+        this.opened[start] = this.stamp;
+        this.open.push(this.heuristic(start, targetX, targetY), start);
+
+        //expand cells in order of estimated total cost
+        while (!this.open.isEmpty()) {
+            int cell = (int)this.open.pop();
+            if (this.closed[cell] == this.stamp) continue; //stale entry
+            this.closed[cell] = this.stamp;
+            if (cell == target) return this.buildPath(target);
+
+            //relax neighbours
+            int x = cell % this.width, y = cell / this.width;
+            for (int d = 0; d < 4; d++) {
+                int nx = x + DX[d], ny = y + DY[d];
+                if (nx < 0 || ny < 0 || nx >= this.width || ny >= this.height) continue;
+                int neighbour = ny * this.width + nx;
+                if (this.closed[neighbour] == this.stamp) continue;
+                if (this.grid.isBlocked(this.originX + nx, this.originY + ny)) continue;
+                int g = this.gScore[cell] + 1;
+                if (this.opened[neighbour] != this.stamp || g < this.gScore[neighbour]) {
+                    this.opened[neighbour] = this.stamp;
+                    this.gScore[neighbour] = g;
+                    this.parent[neighbour] = cell;
+                    this.open.push(g + this.heuristic(neighbour, targetX, targetY), neighbour);
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the path from the start of the current search to the given cell
+     */
+    private int[] buildPath(int target) {
+        int length = this.gScore[target];
+        int[] path = new int[length * 2];
+        for (int cell = target, i = length - 1; i >= 0; cell = this.parent[cell], i--) {
+            path[i * 2] = this.originX + cell % this.width;
+            path[i * 2 + 1] = this.originY + cell / this.width;
+        }
+        return path;
+    }
+
+    /**
+     * @return the Manhattan distance from the given cell to the target
+     */
+    private int heuristic(int cell, int targetX, int targetY) {
+        return Math.abs(cell % this.width - targetX) + Math.abs(cell / this.width - targetY);
+    }
+
+    /**
+     * @return the cell index of the given grid position, or -1 if it is outside the grid
+     */
+    private int toCell(int gx, int gy) {
+        int x = gx - this.originX, y = gy - this.originY;
+        if (x < 0 || y < 0 || x >= this.width || y >= this.height) return -1;
+        return y * this.width + x;
+    }
+
+    /**
+     * Advances the search stamp, clearing the stamp arrays when it wraps around.
+     */
+    private void nextStamp() {
+        this.stamp++;
+        if (this.stamp == Integer.MAX_VALUE) {
+            Arrays.fill(this.opened, 0);
+            Arrays.fill(this.closed, 0);
+            this.stamp = 1;
+        }
+    }
+}
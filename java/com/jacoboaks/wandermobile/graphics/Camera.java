@@ -12,9 +12,13 @@ public class Camera {
     private final static float MIN_ZOOM = 0.07f;
     private final static float MAX_ZOOM = 1.8f;
     private final static float DEFAULT_ZOOM = 0.7f;
+    private final static float FLING_FRICTION = 0.996f; //fraction of fling velocity kept per millisecond
+    private final static float MIN_FLING_SPEED = 0.00005f; //world units per millisecond at which a fling stops
 
     //Data
+    private final Coord delta = new Coord(); //reused when converting screen distances to world distances
     protected float x, y, vx, vy; //position and velocity
+    private float flingVx, flingVy; //fling velocity in world units per millisecond
     private float zoom;
 
     /**
@@ -50,32 +54,52 @@ public class Camera {
     public void update(float dt) {
         this.x += this.vx;
         this.y += this.vy;
+
+        //glide and slow down if flung
+        if (this.isFlinging()) {
+            this.x += this.flingVx * dt;
+            this.y += this.flingVy * dt;
+            float friction = (float)Math.pow(Camera.FLING_FRICTION, dt);
+            this.flingVx *= friction;
+            this.flingVy *= friction;
+            if (Math.abs(this.flingVx) < Camera.MIN_FLING_SPEED && Math.abs(this.flingVy) < Camera.MIN_FLING_SPEED)
+                this.stopFling();
+        }
     }
 
     /**
-     * Pans this Camera based on a deltaX and deltaY defined in screen space.
-     * @param oldPos the old screen position
-     * @param newPos the new screen position the user has dragged to from oldPos
+     * Pans this Camera by a distance the user has dragged across the screen.
+     * @param dx the x distance dragged in screen coordinates
+     * @param dy the y distance dragged in screen coordinates
      */
-    public void pan(Coord oldPos, Coord newPos) {
-
-        //copy coordinates
-        Coord oldp = new Coord(oldPos);
-        Coord newp = new Coord(newPos);
-
-        //convert to world coordinates
-        Transformation.screenToWorld(oldp, this);
-        Transformation.screenToWorld(newp, this);
+    public void pan(float dx, float dy) {
+        Transformation.screenDeltaToWorld(dx, dy, this, this.delta);
+        this.moveX(-this.delta.x);
+        this.moveY(-this.delta.y);
+    }
 
-        //move camera
-        this.moveX(oldp.x - newp.x);
-        this.moveY(-(newp.y - oldp.y));
+    /**
+     * Starts this Camera gliding as if the user let go of it while dragging. The glide slows down
+     * over time and is stopped by panning.
+     * @param vx the x velocity of the drag in screen coordinates per millisecond
+     * @param vy the y velocity of the drag in screen coordinates per millisecond
+     */
+    public void fling(float vx, float vy) {
+        Transformation.screenDeltaToWorld(vx, vy, this, this.delta);
+        this.flingVx = -this.delta.x;
+        this.flingVy = -this.delta.y;
     }
 
+    /**
+     * Stops any fling in progress.
+     */
+    public void stopFling() { this.flingVx = this.flingVy = 0; }
+
     //Accessors
     public float getX() { return this.x; }
     public float getY() { return this.y; }
     public float getZoom() { return this.zoom; }
+    public boolean isFlinging() { return this.flingVx != 0 || this.flingVy != 0; }
 
     //Mutators
     public void setVx(float vx) { this.vx = vx; }
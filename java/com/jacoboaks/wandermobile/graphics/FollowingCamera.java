@@ -1,7 +1,6 @@
 package com.jacoboaks.wandermobile.graphics;
 
 import com.jacoboaks.wandermobile.game.gameitem.GameItem;
-import com.jacoboaks.wandermobile.util.Coord;
 
 /**
  * Extends the Camera class with the ability to lock onto a given GameItem.
@@ -38,18 +37,30 @@ public class FollowingCamera extends Camera {
 
     /**
      * Pans the camera if panning is not locked.
-     * @param oldPos the old world position
-     * @param newPos the new world position to pan to
+     * @param dx the x distance dragged in screen coordinates
+     * @param dy the y distance dragged in screen coordinates
      */
     @Override
-    public void pan(Coord oldPos, Coord newPos) {
-        if (!this.panLocked) super.pan(oldPos, newPos);
+    public void pan(float dx, float dy) {
+        if (!this.panLocked) super.pan(dx, dy);
+        this.stopFling();
         this.recentlyPanned = true;
         this.isRepanning = false;
         this.brokeAway = true;
         this.vx = this.vy = 0;
     }
 
+    /**
+     * Flings the camera if panning is not locked. The return to the followee waits until the fling
+     * has come to a stop.
+     * @param vx the x velocity of the drag in screen coordinates per millisecond
+     * @param vy the y velocity of the drag in screen coordinates per millisecond
+     */
+    @Override
+    public void fling(float vx, float vy) {
+        if (!this.panLocked) super.fling(vx, vy);
+    }
+
     /**
      * Handles the user's finger release. If they have recently panned, will start
      * the countdown to when the camera re-pans over to the followee.
@@ -64,8 +75,8 @@ public class FollowingCamera extends Camera {
     public void update(float dt) {
         super.update(dt);
 
-        //update re-pan countdown
-        if (this.timeUntilReturn > 0f) {
+        //update re-pan countdown (paused while flinging)
+        if (this.timeUntilReturn > 0f && !this.isFlinging()) {
             this.timeUntilReturn -= dt;
 
             //check if re-panning should begin
@@ -3,22 +3,29 @@ package com.jacoboaks.wandermobile.graphics;
 import com.jacoboaks.wandermobile.util.Node;
 import com.jacoboaks.wandermobile.util.Util;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Arrays;
 
 /**
  * Font Class
  * Represents a font_default by having a font_default sheet texture which contains all the characters of the font_default in
- * ASCII order. While they may start at a custom character, they may NOT skip characters.
+ * ASCII order. While they may start at a custom character, they may NOT skip characters. The texture
+ * coordinates, cutoff and advance of every character are worked out once when the font is
+ * constructed and kept in flat tables, so laying text out only looks them up.
  */
 public class Font {
 
+    //Static Data
+    private static final int CHARACTER_COUNT = 128; //characters with a glyph table entry
+
     //Data
-    private Map<Character, Integer> letterCutoffs;
     private Texture fontSheet;
     private int charsPerRow, charsPerColumn;
     private int standardLetterCutoff;
     private char startingChar;
+    private int[] cutoffs; //cutoff of each character, in pixels
+    private float[] advances; //model width of each character at a scale of one
+    private float[] texCoords; //texture coordinates of each character for a standard square model, 8 per character
+    private float[] cutTexCoords; //texture coordinates of each character with its cutoff taken off, 8 per character
 
     /**
      * Constructs this font_default with the given information.
@@ -34,8 +41,8 @@ public class Font {
         this.charsPerRow = charsPerRow;
         this.charsPerColumn = charsPerColumn;
         this.startingChar = (char)Math.min(Math.max(0, startingChar), 127);
-        this.letterCutoffs = new HashMap<>();
         this.initLetterCutoffs(letterCutoffResourceID);
+        this.initGlyphTable();
     }
 
     /**
@@ -47,12 +54,59 @@ public class Font {
         //read data and set default standard cutoff
         Node data = Node.readNode(letterCutoffResourceID);
         this.standardLetterCutoff = 0;
+        for (Node child : data.getChildren()) {
+            if (child.getName().toUpperCase().equals("STANDARD")) this.standardLetterCutoff = Integer.parseInt(child.getValue());
+        }
 
         //parse children
+        this.cutoffs = new int[CHARACTER_COUNT];
+        Arrays.fill(this.cutoffs, this.standardLetterCutoff);
         for (Node child : data.getChildren()) {
-            if (child.getName().toUpperCase().equals("STANDARD")) this.standardLetterCutoff = Integer.parseInt(child.getValue());
-            else if (child.getName().toUpperCase().equals("COLON")) this.letterCutoffs.put(':', Integer.parseInt(child.getValue()));
-            else this.letterCutoffs.put(child.getName().charAt(0), Integer.parseInt(child.getValue()));
+            char character;
+            if (child.getName().toUpperCase().equals("STANDARD")) continue;
+            else if (child.getName().toUpperCase().equals("COLON")) character = ':';
+            else character = child.getName().charAt(0);
+            if (character < CHARACTER_COUNT) this.cutoffs[character] = Integer.parseInt(child.getValue());
+        }
+    }
+
+    /**
+     * Works out the texture coordinates and advance of every character.
+     */
+    private void initGlyphTable() {
+        this.advances = new float[CHARACTER_COUNT];
+        this.texCoords = new float[CHARACTER_COUNT * 8];
+        this.cutTexCoords = new float[CHARACTER_COUNT * 8];
+        float fractionOfRow = 1 / (float)this.charsPerRow;
+        float fractionOfCol = 1 / (float)this.charsPerColumn;
+        float characterWidth = this.getCharacterWidth();
+        for (int c = 0; c < CHARACTER_COUNT; c++) {
+
+            //calculate row and column
+            int character = (c - this.startingChar);
+            int row = character / this.charsPerRow; //zero-indexed
+            int column = character - (row * this.charsPerRow); //zero-indexed
+            float left = (float)column / this.charsPerRow, bottom = (float)row / this.charsPerColumn;
+
+            //calculate texture coordinates
+            int i = c * 8;
+            this.texCoords[i] = left; //top left
+            this.texCoords[i + 1] = bottom + fractionOfCol;
+            this.texCoords[i + 2] = left; //bottom left
+            this.texCoords[i + 3] = bottom;
+            this.texCoords[i + 4] = left + fractionOfRow; //top right
+            this.texCoords[i + 5] = bottom + fractionOfCol;
+            this.texCoords[i + 6] = left + fractionOfRow; //bottom right
+            this.texCoords[i + 7] = bottom;
+
+            //account for cutoff
+            float cutoffFactor = (float)this.cutoffs[c] / (float)this.fontSheet.getWidth();
+            System.arraycopy(this.texCoords, i, this.cutTexCoords, i, 8);
+            this.cutTexCoords[i] += cutoffFactor;
+            this.cutTexCoords[i + 2] += cutoffFactor;
+            this.cutTexCoords[i + 4] -= cutoffFactor;
+            this.cutTexCoords[i + 6] -= cutoffFactor;
+            this.advances[c] = (characterWidth - (float)(this.cutoffs[c] * 2)) / characterWidth * Model.STD_SQUARE_SIZE;
         }
     }
 
@@ -62,46 +116,31 @@ public class Font {
      * @return the texture coordinates for given character if using this font_default (for a standard square model)
      */
     public float[] getCharacterTextureCoordinates(char toGet, boolean cutoff) {
-
-        //check if invalid char
-        if (toGet > 127) throw Util.fatalError("Font.java",
-                "getCharacterTextureCoordinates(char)", "invalid char '" + toGet + "' given");
-
-        //calculate row and column
-        int character = (toGet - this.startingChar);
-        int row = character / this.charsPerRow; //zero-indexed
-        int column = character - (row * this.charsPerRow); //zero-indexed
-        float fractionOfRow = 1 / (float)charsPerRow;
-        float fractionOfCol = 1 / (float)charsPerColumn;
-
-        //calculate texture coordinates
-        float texCoords[] = new float[] {
-                (float)column / charsPerRow, (float)row / charsPerColumn + fractionOfCol, //top left
-                (float)column / charsPerRow, (float)row / charsPerColumn, //bottom left
-                (float)column / charsPerRow + fractionOfRow, (float)row / charsPerColumn + fractionOfCol, //top right
-                (float)column / charsPerRow + fractionOfRow, (float)row / charsPerColumn //bottom right
-        };
-
-        //account for cutoff
-        if (cutoff) {
-            float cutoffFactor = (float)getCharacterCutoff(toGet) / (float)this.fontSheet.getWidth();
-            texCoords[0] += cutoffFactor;
-            texCoords[2] += cutoffFactor;
-            texCoords[4] -= cutoffFactor;
-            texCoords[6] -= cutoffFactor;
-        }
-
-        //return final coordinates
+        float[] texCoords = new float[8];
+        this.writeCharacterTextureCoordinates(toGet, cutoff, texCoords, 0);
         return texCoords;
     }
 
+    /**
+     * Copies the texture coordinates of a character into an array without allocating.
+     * @param toGet the character whose texture coordinates to copy
+     * @param cutoff whether to incorporate cutoff into the texture coordinates
+     * @param out the array to copy into
+     * @param offset where in the array to copy the eight coordinates to
+     */
+    public void writeCharacterTextureCoordinates(char toGet, boolean cutoff, float[] out, int offset) {
+        if (toGet >= CHARACTER_COUNT) throw Util.fatalError("Font.java",
+                "writeCharacterTextureCoordinates(char, boolean, float[], int)", "invalid char '" + toGet + "' given");
+        System.arraycopy(cutoff ? this.cutTexCoords : this.texCoords, toGet * 8, out, offset, 8);
+    }
+
     //Accessors
     public Texture getFontSheet() { return this.fontSheet; }
     public float getCharacterHeight() { return (float)this.fontSheet.getHeight() / (float)this.charsPerColumn; }
     public float getCharacterWidth() { return (float)this.fontSheet.getWidth() / (float)this.charsPerRow; }
-    public int getCharacterCutoff(char c) {
-        Integer cutoff = this.letterCutoffs.get(c);
-        if (cutoff == null) cutoff = this.standardLetterCutoff;
-        return cutoff;
+    public int getCharacterCutoff(char c) { return c < CHARACTER_COUNT ? this.cutoffs[c] : this.standardLetterCutoff; }
+    public float getCharacterAdvance(char c) {
+        return c < CHARACTER_COUNT ? this.advances[c]
+                : (this.getCharacterWidth() - (float)(this.standardLetterCutoff * 2)) / this.getCharacterWidth() * Model.STD_SQUARE_SIZE;
     }
 }
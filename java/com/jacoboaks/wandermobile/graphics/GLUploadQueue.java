@@ -0,0 +1,129 @@
+package com.jacoboaks.wandermobile.graphics;
+
+import android.util.Log;
+
+import com.jacoboaks.wandermobile.util.Util;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Queues GL work (texture uploads, buffer updates, shader compilation) submitted from any thread so
+ * that it can be run on the GL thread a little at a time. Each frame, the GameRenderer calls run(),
+ * which runs queued jobs in order until the time budget is spent. At least one job is run per frame
+ * so that a job larger than the budget still gets done. Every submission returns a Future which
+ * completes once the job has run.
+ */
+public class GLUploadQueue {
+
+    //Static Data
+    public static final long DEFAULT_BUDGET = 4; //default time budget per frame in milliseconds
+
+    //Data
+    private final ConcurrentLinkedQueue<FutureTask<?>> jobs; //jobs waiting to be run
+    private volatile Thread glThread; //the thread which runs the jobs
+    private volatile long budget; //time budget per frame in nanoseconds
+
+    /**
+     * Constructs this GLUploadQueue with the default time budget.
+     */
+    public GLUploadQueue() {
+        this.jobs = new ConcurrentLinkedQueue<>();
+        this.setBudget(GLUploadQueue.DEFAULT_BUDGET);
+    }
+
+    /**
+     * Adds a job to the queue.
+     * @param job the job to run on the GL thread
+     * @return a Future which completes with the job's result once it has run
+     */
+    public <T> Future<T> submit(Callable<T> job) {
+        FutureTask<T> task = new FutureTask<>(job);
+        this.jobs.add(task);
+        return task;
+    }
+
+    /**
+     * Adds a job to the queue.
+     * @param job the job to run on the GL thread
+     * @return a Future which completes once the job has run
+     */
+    public Future<?> submit(Runnable job) {
+        FutureTask<Object> task = new FutureTask<>(job, null);
+        this.jobs.add(task);
+        return task;
+    }
+
+    /**
+     * Adds a job which uploads the given Texture.
+     * @param texture the texture to upload
+     * @return a Future which completes with the texture once it has been uploaded
+     */
+    public Future<Texture> uploadTexture(final Texture texture) {
+        return this.submit(new Callable<Texture>() {
+            @Override
+            public Texture call() {
+                texture.upload();
+                return texture;
+            }
+        });
+    }
+
+    /**
+     * Blocks until every job submitted before this call has run. Must not be called on the GL
+     * thread, as that thread is the one running the jobs.
+     */
+    public void waitForPending() {
+        if (this.isGLThread()) throw Util.fatalError("GLUploadQueue.java", "waitForPending()",
+                "cannot wait for the upload queue on the GL thread");
+        try {
+            this.submit(new Runnable() {
+                @Override
+                public void run() {}
+            }).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw Util.fatalError("GLUploadQueue.java", "waitForPending()", e.getMessage());
+        }
+    }
+
+    /**
+     * Runs queued jobs until the time budget is spent or the queue is empty. Must be called on the
+     * GL thread. A job which throws does not stop the queue - its error is delivered through its
+     * Future.
+     */
+    public void run() {
+        this.glThread = Thread.currentThread();
+        long start = System.nanoTime();
+        int count = 0;
+        FutureTask<?> job;
+        while ((count == 0 || System.nanoTime() - start < this.budget) && (job = this.jobs.poll()) != null) {
+            job.run();
+            count++;
+        }
+        if (Util.DEBUG && count > 1) Log.i(Util.getLogTag("GLUploadQueue.java", "run()"),
+                "ran " + count + " jobs, " + this.jobs.size() + " left");
+    }
+
+    /**
+     * Records the calling thread as the GL thread. Is called by the GameRenderer when the surface is
+     * created so that isGLThread() is correct before the first frame.
+     */
+    public void setGLThread() { this.glThread = Thread.currentThread(); }
+
+    /**
+     * @return whether the calling thread is the GL thread (as of the last call to run())
+     */
+    public boolean isGLThread() { return Thread.currentThread() == this.glThread; }
+
+    //Accessors
+    public long getBudget() { return this.budget / 1000000; }
+    public boolean isEmpty() { return this.jobs.isEmpty(); }
+
+    //Mutator
+    public void setBudget(long millis) { this.budget = millis * 1000000; }
+}
@@ -7,12 +7,8 @@ import android.util.Log;
 import android.view.MotionEvent;
 
 import com.jacoboaks.wandermobile.MainActivity;
-import com.jacoboaks.wandermobile.game.gamelogic.DeleteSlotLogic;
 import com.jacoboaks.wandermobile.game.gamelogic.GameLogic;
-import com.jacoboaks.wandermobile.game.gamelogic.LogicChangeData;
-import com.jacoboaks.wandermobile.game.gamelogic.MainMenuLogic;
-import com.jacoboaks.wandermobile.game.gamelogic.NewGameLogic;
-import com.jacoboaks.wandermobile.game.gamelogic.SaveSlotChoiceLogic;
+import com.jacoboaks.wandermobile.game.gamelogic.LogicLoader;
 import com.jacoboaks.wandermobile.game.gamelogic.WorldLogic;
 import com.jacoboaks.wandermobile.util.Node;
 import com.jacoboaks.wandermobile.util.Util;
@@ -37,8 +33,15 @@ public class GameRenderer implements GLSurfaceView.Renderer {
     private int FPS;
     private int frameCount;
 
+    //GL Upload Queue
+    private static final GLUploadQueue uploadQueue = new GLUploadQueue();
+
+    //Input
+    private final InputQueue inputQueue; //input waiting to be handled on the gl thread
+
     //GameLogic
     private GameLogic logic;
+    private LogicLoader logicLoader; //loads the next logic while the current one keeps running
 
     /**
      * Constructs this GameRenderer and starting it with the given GameLogic.
@@ -47,6 +50,7 @@ public class GameRenderer implements GLSurfaceView.Renderer {
     public GameRenderer(GameLogic logic) {
         this.lastSecond = this.lastCycle = System.currentTimeMillis();
         this.FPS = 0;
+        this.inputQueue = new InputQueue();
         this.logic = logic;
     }
 
@@ -62,6 +66,15 @@ public class GameRenderer implements GLSurfaceView.Renderer {
                 "onSurfaceCreated(GL10, EGLConfig)"),
                 "the surface was created");
 
+        //the upload queue's jobs run on this thread
+        GameRenderer.uploadQueue.setGLThread();
+
+        //any cached shader programs belonged to the previous context
+        ShaderCache.clear();
+
+        //kept areas hold textures of the previous context, so have them loaded again when next used
+        if (MainActivity.areaManager != null) MainActivity.areaManager.contextLost();
+
         //enable gl transparencies
         GLES20.glBlendFunc(GLES20.GL_SRC_ALPHA, GLES20.GL_ONE_MINUS_SRC_ALPHA);
         GLES20.glEnable(GLES20.GL_BLEND);
@@ -74,6 +87,9 @@ public class GameRenderer implements GLSurfaceView.Renderer {
     @Override
     public void onDrawFrame(GL10 unused) {
 
+        //run queued gl uploads
+        GameRenderer.uploadQueue.run();
+
         //update
         this.update();
 
@@ -82,18 +98,43 @@ public class GameRenderer implements GLSurfaceView.Renderer {
     }
 
     /**
-     * Handles any MotionEvents that occur within the GameView.
+     * @return the queue through which GL work can be scheduled from any thread
+     */
+    public static GLUploadQueue getUploadQueue() { return GameRenderer.uploadQueue; }
+
+    /**
+     * Queues any MotionEvents that occur within the GameView. Is called on the UI thread - the
+     * event is handled on the GL thread at the start of the next update.
      * @param e the event to handle
-     * @return whether or not the event was handled
+     * @return whether or not the event was accepted
      */
-    public boolean input(MotionEvent e) { return this.logic.input(e); }
+    public boolean input(MotionEvent e) { return this.inputQueue.offerMotion(e); }
 
     /**
-     * Handles scale events specifically that occur within the GameView.
+     * Queues scale events specifically that occur within the GameView. Is called on the UI thread -
+     * the event is handled on the GL thread at the start of the next update.
      * @param scaleFactor the factor by which the user has scaled
-     * @return whether or not the event was handled
+     * @return whether or not the event was accepted
      */
-    public boolean scaleInput(float scaleFactor) { return this.logic.scaleInput(scaleFactor); }
+    public boolean scaleInput(float scaleFactor) { return this.inputQueue.offerScale(scaleFactor); }
+
+    /**
+     * Passes all queued input to the GameLogic. Input is dropped while switching logic.
+     */
+    private void processInput() {
+        InputQueue.Slot slot;
+        while ((slot = this.inputQueue.peek()) != null) {
+            if (this.logicLoader == null) {
+                if (slot.getType() == InputQueue.TYPE_MOTION) {
+                    this.inputQueue.coalesceMoves();
+                    slot = this.inputQueue.peek();
+                    this.logic.input(slot.getEvent());
+                }
+                else this.logic.scaleInput(slot.getScaleFactor());
+            }
+            this.inputQueue.remove();
+        }
+    }
 
     /**
      * Updates timekeeping and logic components.
@@ -109,11 +150,19 @@ public class GameRenderer implements GLSurfaceView.Renderer {
             this.lastSecond += 1000;
         }
 
-        //check for logic change
-        if (MainActivity.changeLogic) {
-            LogicChangeData logicChangeData = MainActivity.getLogicChangeData();
-            this.changeLogic(logicChangeData.getLogicTag(), logicChangeData.doesLoadNewLogicData(),
-                    logicChangeData.doesSaveOldLogicData());
+        //handle input
+        this.processInput();
+
+        //check for logic change - the next logic loads in the background during the fade out and is swapped in once both are done
+        if (this.logicLoader == null) {
+            if (MainActivity.changeLogic) {
+                this.logicLoader = new LogicLoader(MainActivity.getLogicChangeData());
+                this.logicLoader.start();
+            }
+        } else if (this.logicLoader.isDone() && MainActivity.logicChangeReady) {
+            LogicLoader loader = this.logicLoader;
+            this.logicLoader = null;
+            this.changeLogic(loader.getLogic(), loader.getLogicChangeData().doesSaveOldLogicData());
         }
 
         //update logic
@@ -144,15 +193,11 @@ public class GameRenderer implements GLSurfaceView.Renderer {
     }
 
     /**
-     * Changes the current GameLogic being operated on under this GameRenderer.
-     * @param logicTag the tag of the logic to switch to
-     * @param loadNewLogicData whether or not to load the data from the new logic
+     * Switches to a GameLogic which has already been created and preloaded by a LogicLoader.
+     * @param newLogic the logic to switch to
      * @param savePreviousLogicData whether or not to save the data from the previous logic
      */
-    private void changeLogic(String logicTag, boolean loadNewLogicData, boolean savePreviousLogicData) {
-
-        //get new logic data
-        Bundle newLogicData = loadNewLogicData ? MainActivity.getPreviousLogicData(logicTag) : null;
+    private void changeLogic(GameLogic newLogic, boolean savePreviousLogicData) {
 
         //save previous logic data
         if (savePreviousLogicData) {
@@ -164,27 +209,10 @@ public class GameRenderer implements GLSurfaceView.Renderer {
 
         //switch logic
         this.logic.cleanup();
-        if (logicTag.equals(Util.MAIN_MENU_LOGIC_TAG)) {
-            this.logic = new MainMenuLogic();
-        } else if (logicTag.equals(Util.NEW_GAME_LOGIC_TAG)) {
-            this.logic = new NewGameLogic();
-        } else if (logicTag.equals(Util.WORLD_LOGIC_TAG)) {
-            this.logic = new WorldLogic();
-        } else if (logicTag.equals(Util.SAVE_SLOT_CHOICE_LOGIC_TAG)) {
-            this.logic = new SaveSlotChoiceLogic();
-        } else if (logicTag.equals(Util.DELETE_SLOT_LOGIC_TAG)) {
-            this.logic = new DeleteSlotLogic();
-        } else {
-            if (Util.DEBUG) Log.i(Util.getLogTag("GameRenderer.java", "changeLogic(String, boolean)"),
-                    "unable to discern logic tag: " + logicTag + ", defaulting to MainMenuLogic");
-            this.logic = new MainMenuLogic();
-        }
+        this.logic = newLogic;
         MainActivity.currentLogic = this.logic;
         MainActivity.logicChangeProcessed();
 
-        //load data
-        if (newLogicData != null) this.logic.loadData(newLogicData);
-
         //initialize new logic and instate saved instance data
         this.logic.init();
         this.logic.instateSavedInstanceData();
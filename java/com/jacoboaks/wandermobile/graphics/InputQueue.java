@@ -0,0 +1,158 @@
+package com.jacoboaks.wandermobile.graphics;
+
+import android.util.Log;
+import android.view.MotionEvent;
+
+import com.jacoboaks.wandermobile.util.Util;
+
+/**
+ * Hands input from the UI thread to the GL thread without locking. Touch events are copied into a
+ * fixed ring of preallocated slots by the UI thread (the only producer) and taken out by the GL
+ * thread (the only consumer) at the start of each update, so that input is handled on the same
+ * thread that updates and renders the objects it changes. Each side only ever writes its own index,
+ * and the indices are volatile so that a slot's contents are visible before it is published. Runs
+ * of move events are merged by the consumer so that a logic sees at most one move per run.
+ */
+public class InputQueue {
+
+    //Static Data
+    private static final int CAPACITY = 64; //must be a power of two
+    public static final int TYPE_MOTION = 0;
+    public static final int TYPE_SCALE = 1;
+
+    //Data
+    private final Slot[] slots; //preallocated event slots
+    private volatile int head = 0; //the next slot to read - only written by the consumer
+    private volatile int tail = 0; //the next slot to write - only written by the producer
+
+    /**
+     * Constructs this InputQueue.
+     */
+    public InputQueue() {
+        this.slots = new Slot[CAPACITY];
+        for (int i = 0; i < CAPACITY; i++) this.slots[i] = new Slot();
+    }
+
+    /**
+     * Adds a copy of a MotionEvent to this queue. Must only be called from the producer thread.
+     * @param e the event to copy in - the caller keeps ownership of it
+     * @return whether the event was queued (false if the queue is full)
+     */
+    public boolean offerMotion(MotionEvent e) {
+        Slot slot = this.claimSlot();
+        if (slot == null) return false;
+        slot.type = TYPE_MOTION;
+        slot.event = MotionEvent.obtain(e);
+        this.publishSlot();
+        return true;
+    }
+
+    /**
+     * Adds a scale event to this queue. Must only be called from the producer thread.
+     * @param scaleFactor the factor by which the user scaled
+     * @return whether the event was queued (false if the queue is full)
+     */
+    public boolean offerScale(float scaleFactor) {
+        Slot slot = this.claimSlot();
+        if (slot == null) return false;
+        slot.type = TYPE_SCALE;
+        slot.scaleFactor = scaleFactor;
+        this.publishSlot();
+        return true;
+    }
+
+    /**
+     * @return the slot to be written next, or null if the queue is full
+     */
+    private Slot claimSlot() {
+        if (this.tail - this.head == CAPACITY) {
+            if (Util.DEBUG) Log.i(Util.getLogTag("InputQueue.java", "claimSlot()"),
+                    "input queue full, dropping event");
+            return null;
+        }
+        return this.slots[this.tail & (CAPACITY - 1)];
+    }
+
+    /**
+     * Makes the most recently claimed slot visible to the consumer.
+     */
+    private void publishSlot() { this.tail = this.tail + 1; }
+
+    /**
+     * Returns the next event in this queue without removing it. Must only be called from the
+     * consumer thread.
+     * @return the next slot, or null if the queue is empty
+     */
+    public Slot peek() {
+        if (this.head == this.tail) return null;
+        return this.slots[this.head & (CAPACITY - 1)];
+    }
+
+    /**
+     * Merges the run of single-pointer move events at the front of this queue into one event. The
+     * samples of each later event (including its history) are added to the history of the first,
+     * so the merged event's current position is the latest one and no samples are lost. Must only
+     * be called from the consumer thread after peek() returned a move event.
+     */
+    public void coalesceMoves() {
+        while (this.tail - this.head > 1) {
+
+            //check that the first two events are mergeable moves
+            Slot first = this.slots[this.head & (CAPACITY - 1)];
+            Slot next = this.slots[(this.head + 1) & (CAPACITY - 1)];
+            if (!InputQueue.isSinglePointerMove(first) || !InputQueue.isSinglePointerMove(next)) return;
+
+            //add the next event's samples to the first event
+            MotionEvent into = first.event;
+            MotionEvent from = next.event;
+            for (int h = 0; h < from.getHistorySize(); h++) {
+                into.addBatch(from.getHistoricalEventTime(h), from.getHistoricalX(h), from.getHistoricalY(h),
+                        from.getHistoricalPressure(h), from.getHistoricalSize(h), from.getMetaState());
+            }
+            into.addBatch(from.getEventTime(), from.getX(), from.getY(), from.getPressure(), from.getSize(),
+                    from.getMetaState());
+
+            //move the merged event into the next slot and drop the first
+            next.event = into;
+            first.event = from;
+            this.remove();
+        }
+    }
+
+    /**
+     * @return whether the given slot holds a move event with a single pointer
+     */
+    private static boolean isSinglePointerMove(Slot slot) {
+        return slot.type == TYPE_MOTION && slot.event.getActionMasked() == MotionEvent.ACTION_MOVE
+                && slot.event.getPointerCount() == 1;
+    }
+
+    /**
+     * Removes the next event from this queue, recycling its MotionEvent. Must only be called from
+     * the consumer thread after peek() returned a slot.
+     */
+    public void remove() {
+        Slot slot = this.slots[this.head & (CAPACITY - 1)];
+        if (slot.event != null) {
+            slot.event.recycle();
+            slot.event = null;
+        }
+        this.head = this.head + 1;
+    }
+
+    /**
+     * Represents a single queued input event.
+     */
+    public static class Slot {
+
+        //Data
+        private MotionEvent event; //the copied touch event if this is a motion event
+        private float scaleFactor; //the scale factor if this is a scale event
+        private int type; //the type of event
+
+        //Accessors
+        public int getType() { return this.type; }
+        public MotionEvent getEvent() { return this.event; }
+        public float getScaleFactor() { return this.scaleFactor; }
+    }
+}
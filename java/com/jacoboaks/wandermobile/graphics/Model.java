@@ -131,6 +131,15 @@ public class Model {
         this.calculateWidthAndHeight();
     }
 
+    /**
+     * Replaces the texture coordinates of this Model.
+     * @param textureCoords the new texture coordinates, one pair for each vertex
+     */
+    public void setTextureCoords(float[] textureCoords) {
+        this.textureCoords = textureCoords;
+        this.updateBuffers();
+    }
+
     /**
      * @return whether or not this model is textured
      */
@@ -172,6 +181,13 @@ public class Model {
         this.drawPathBuffer.position(0);
     }
 
+    /**
+     * @return a rough estimate of the memory this Model's arrays and buffers take up, in bytes
+     */
+    public long getMemoryEstimate() {
+        return (long)(this.modelCoords.length + this.textureCoords.length + this.drawPath.length) * 8 + 512;
+    }
+
     //Accessors
     public Material getMaterial() { return this.material; }
     public float getWidth() {
@@ -0,0 +1,95 @@
+package com.jacoboaks.wandermobile.graphics;
+
+import android.opengl.GLES20;
+
+import com.jacoboaks.wandermobile.util.Color;
+
+/**
+ * A screen-sized image which things can be rendered into once and then drawn every frame as a
+ * single quad, for content which rarely changes. Rendering into the layer stores premultiplied
+ * colors, so that translucent edges come out the same as if they were rendered straight onto the
+ * screen. The image is recreated whenever the surface changes size. Must be used on the GL thread.
+ */
+public class ScreenLayer {
+
+    //Data
+    private Texture texture; //the image (null until first rendered into)
+    private int[] framebuffer; //framebuffer the image is attached to (null until first rendered into)
+    private Model quad; //covers the screen with the image
+    private int[] savedViewport = new int[4]; //viewport to restore after rendering into the layer
+    private int[] savedFramebuffer = new int[1]; //framebuffer to restore after rendering into the layer
+    private float[] savedClearColor = new float[4]; //clear color to restore after rendering into the layer
+
+    /**
+     * Binds the layer's framebuffer and clears it, creating or resizing the image first if needed.
+     * Anything rendered until end() is called goes into the layer.
+     */
+    public void begin() {
+
+        //create framebuffer and image
+        if (this.framebuffer == null) {
+            this.framebuffer = new int[1];
+            GLES20.glGenFramebuffers(1, this.framebuffer, 0);
+        }
+        if (this.texture == null || this.texture.getWidth() != GameRenderer.surfaceWidth
+                || this.texture.getHeight() != GameRenderer.surfaceHeight) {
+            if (this.texture != null) this.texture.delete();
+            this.texture = new Texture(GameRenderer.surfaceWidth, GameRenderer.surfaceHeight);
+            float[] coords = Model.getScreenBoxModelCoords();
+            for (int i = 0; i < coords.length; i++) coords[i] *= 4f; //screen box is a quarter of the screen
+            this.quad = new Model(coords, Model.STD_SQUARE_TEX_COORDS(), Model.STD_SQUARE_DRAW_ORDER(),
+                    new Material(this.texture, new Color(), false));
+        }
+
+        //bind framebuffer and clear the image
+        GLES20.glGetIntegerv(GLES20.GL_VIEWPORT, this.savedViewport, 0);
+        GLES20.glGetIntegerv(GLES20.GL_FRAMEBUFFER_BINDING, this.savedFramebuffer, 0);
+        GLES20.glGetFloatv(GLES20.GL_COLOR_CLEAR_VALUE, this.savedClearColor, 0);
+        GLES20.glBindFramebuffer(GLES20.GL_FRAMEBUFFER, this.framebuffer[0]);
+        GLES20.glFramebufferTexture2D(GLES20.GL_FRAMEBUFFER, GLES20.GL_COLOR_ATTACHMENT0, GLES20.GL_TEXTURE_2D,
+                this.texture.getID(), 0);
+        GLES20.glViewport(0, 0, this.texture.getWidth(), this.texture.getHeight());
+        GLES20.glClearColor(0f, 0f, 0f, 0f);
+        GLES20.glClear(GLES20.GL_COLOR_BUFFER_BIT);
+
+        //store premultiplied colors and accumulate coverage in alpha
+        GLES20.glBlendFuncSeparate(GLES20.GL_SRC_ALPHA, GLES20.GL_ONE_MINUS_SRC_ALPHA,
+                GLES20.GL_ONE, GLES20.GL_ONE_MINUS_SRC_ALPHA);
+    }
+
+    /**
+     * Restores the framebuffer, viewport, clear color and blending used before begin().
+     */
+    public void end() {
+        GLES20.glBlendFunc(GLES20.GL_SRC_ALPHA, GLES20.GL_ONE_MINUS_SRC_ALPHA);
+        GLES20.glBindFramebuffer(GLES20.GL_FRAMEBUFFER, this.savedFramebuffer[0]);
+        GLES20.glViewport(this.savedViewport[0], this.savedViewport[1], this.savedViewport[2], this.savedViewport[3]);
+        GLES20.glClearColor(this.savedClearColor[0], this.savedClearColor[1], this.savedClearColor[2], this.savedClearColor[3]);
+    }
+
+    //Render Method
+    /**
+     * Draws the layer over the whole screen. Does nothing if nothing has been rendered into it yet.
+     * @param shaderProgram the bound shader program, with x and y in aspected space
+     */
+    public void render(ShaderProgram shaderProgram) {
+        if (this.quad == null) return;
+        GLES20.glUniform1f(shaderProgram.getUniformIndex("x"), 0f);
+        GLES20.glUniform1f(shaderProgram.getUniformIndex("y"), 0f);
+        GLES20.glBlendFunc(GLES20.GL_ONE, GLES20.GL_ONE_MINUS_SRC_ALPHA);
+        this.quad.render(shaderProgram);
+        GLES20.glBlendFunc(GLES20.GL_SRC_ALPHA, GLES20.GL_ONE_MINUS_SRC_ALPHA);
+    }
+
+    //Cleanup Method
+    /**
+     * Deletes the framebuffer and image, if they were created.
+     */
+    public void cleanup() {
+        if (this.texture != null) this.texture.delete();
+        if (this.framebuffer != null) GLES20.glDeleteFramebuffers(1, this.framebuffer, 0);
+        this.texture = null;
+        this.framebuffer = null;
+        this.quad = null;
+    }
+}
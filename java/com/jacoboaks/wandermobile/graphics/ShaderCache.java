@@ -0,0 +1,233 @@
+package com.jacoboaks.wandermobile.graphics;
+
+import android.opengl.GLES20;
+import android.opengl.GLES30;
+import android.os.Build;
+import android.util.Log;
+
+import com.jacoboaks.wandermobile.MainActivity;
+import com.jacoboaks.wandermobile.util.Node;
+import com.jacoboaks.wandermobile.util.Util;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.security.MessageDigest;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Compiles each ShaderProgram once per GL context and shares it between everything that uses the
+ * same pair of shaders. Shader sources are read once per app run. Where the context is OpenGL ES
+ * 3.0 and so supports retrieving linked program binaries, each linked program is also written to the
+ * app directory, keyed by a hash of its sources and the GL renderer/version, so that later runs can
+ * load it without compiling anything. A binary which fails to load (after a driver update, for
+ * instance) is simply replaced.
+ */
+public class ShaderCache {
+
+    //Static Data
+    private static final String CACHE_DIR = "data/cache/shaders";
+    private static final String BINARY_EXTENSION = ".bin";
+
+    //Data
+    private static final Map<String, ShaderProgram> programs = new HashMap<>(); //programs of the current context
+    private static final Map<Integer, String> sources = new HashMap<>(); //shader sources by resource id
+    private static int binarySupport = -1; //whether binaries can be used in this context (-1 = not checked)
+
+    /**
+     * Returns the linked program made from the given shaders, creating it if this context doesn't
+     * have it yet. Must be called on the GL thread. Callers must not clean up the returned program.
+     * @param vertexID the resource id of the vertex shader
+     * @param fragmentID the resource id of the fragment shader
+     * @return the linked program
+     */
+    public static ShaderProgram getProgram(int vertexID, int fragmentID) {
+
+        //check for a program already made in this context
+        String key = vertexID + "/" + fragmentID;
+        ShaderProgram program = ShaderCache.programs.get(key);
+        if (program != null) return program;
+
+        //try to load a binary of the program
+        String vertexSource = ShaderCache.getSource(vertexID);
+        String fragmentSource = ShaderCache.getSource(fragmentID);
+        String binaryPath = ShaderCache.binariesSupported() ? ShaderCache.getBinaryPath(vertexSource, fragmentSource) : null;
+        if (binaryPath != null) program = ShaderCache.loadBinary(binaryPath);
+
+        //otherwise compile it and save its binary
+        if (program == null) {
+            program = new ShaderProgram();
+            program.loadShader(vertexSource, GLES20.GL_VERTEX_SHADER);
+            program.loadShader(fragmentSource, GLES20.GL_FRAGMENT_SHADER);
+            if (binaryPath != null) program.setBinaryRetrievable();
+            program.link();
+            if (binaryPath != null) ShaderCache.saveBinary(program, binaryPath);
+        }
+
+        //remember and return program
+        ShaderCache.programs.put(key, program);
+        return program;
+    }
+
+    /**
+     * Returns the source code of a shader, reading it from resources only the first time.
+     * @param resourceID the resource id of the shader
+     * @return the source code of the shader
+     */
+    public static synchronized String getSource(int resourceID) {
+        String source = ShaderCache.sources.get(resourceID);
+        if (source == null) {
+            InputStream stream = MainActivity.getAppResources().openRawResource(resourceID);
+            source = Util.inputStreamToString(stream);
+            ShaderCache.sources.put(resourceID, source);
+        }
+        return source;
+    }
+
+    /**
+     * Forgets every program. Is called when a new GL context is created, as the programs of the
+     * previous context went away with it.
+     */
+    public static void clear() {
+        ShaderCache.programs.clear();
+        ShaderCache.binarySupport = -1;
+    }
+
+    /**
+     * @return whether program binaries can be retrieved and loaded in the current context. The
+     * GameView asks for an OpenGL ES 3.0 context and only falls back to 2.0 if the device can't make
+     * one, so a context reporting version 3 really is one and its GLES30 entry points can be used
+     */
+    private static boolean binariesSupported() {
+        if (ShaderCache.binarySupport == -1) {
+            boolean supported = false;
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2) {
+                String version = GLES20.glGetString(GLES20.GL_VERSION);
+                if (version != null && version.startsWith("OpenGL ES 3")) {
+                    int[] formats = new int[1];
+                    GLES20.glGetIntegerv(GLES30.GL_NUM_PROGRAM_BINARY_FORMATS, formats, 0);
+                    supported = formats[0] > 0;
+                }
+            }
+            ShaderCache.binarySupport = supported ? 1 : 0;
+            if (Util.DEBUG) Log.i(Util.getLogTag("ShaderCache.java", "binariesSupported()"),
+                    "program binaries " + (supported ? "supported" : "not supported"));
+        }
+        return ShaderCache.binarySupport == 1;
+    }
+
+    /**
+     * @return the path (relative to the app directory) of the binary for the given sources in the
+     * current context
+     */
+    private static String getBinaryPath(String vertexSource, String fragmentSource) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            digest.update(vertexSource.getBytes("UTF-8"));
+            digest.update((byte)0);
+            digest.update(fragmentSource.getBytes("UTF-8"));
+            digest.update((byte)0);
+            digest.update(String.valueOf(GLES20.glGetString(GLES20.GL_RENDERER)).getBytes("UTF-8"));
+            digest.update((byte)0);
+            digest.update(String.valueOf(GLES20.glGetString(GLES20.GL_VERSION)).getBytes("UTF-8"));
+            StringBuilder hash = new StringBuilder();
+            for (byte b : digest.digest()) hash.append(String.format("%02x", b));
+            return ShaderCache.CACHE_DIR + "/" + hash + ShaderCache.BINARY_EXTENSION;
+        } catch (Exception e) {
+            throw Util.fatalError("ShaderCache.java", "getBinaryPath(String, String)", e.getMessage());
+        }
+    }
+
+    /**
+     * Loads a program from a saved binary.
+     * @param path the path of the binary
+     * @return the loaded program, or null if there is no binary or it could not be loaded
+     */
+    private static ShaderProgram loadBinary(String path) {
+
+        //check for binary
+        File file = new File(MainActivity.appDir, path);
+        if (!file.exists()) return null;
+
+        //read binary
+        int format;
+        ByteBuffer binary;
+        try {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+            try {
+                format = in.readInt();
+                byte[] bytes = new byte[in.readInt()];
+                in.readFully(bytes);
+                binary = ByteBuffer.allocateDirect(bytes.length).order(ByteOrder.nativeOrder());
+                binary.put(bytes).position(0);
+            } finally {
+                in.close();
+            }
+        } catch (Exception e) {
+            if (Util.DEBUG) Log.i(Util.getLogTag("ShaderCache.java", "loadBinary(String)"),
+                    "unable to read program binary " + path + ": " + e.getMessage());
+            file.delete();
+            return null;
+        }
+
+        //load binary into program
+        ShaderProgram program = new ShaderProgram();
+        if (!program.loadBinary(format, binary)) {
+            if (Util.DEBUG) Log.i(Util.getLogTag("ShaderCache.java", "loadBinary(String)"),
+                    "program binary " + path + " was rejected, recompiling");
+            program.cleanup();
+            file.delete();
+            return null;
+        }
+        if (Util.DEBUG) Log.i(Util.getLogTag("ShaderCache.java", "loadBinary(String)"),
+                "loaded program binary " + path);
+        return program;
+    }
+
+    /**
+     * Saves the binary of a linked program. Failing to save only costs a compile next time, so
+     * errors are logged rather than thrown.
+     * @param program the program whose binary to save
+     * @param path the path to save the binary to
+     */
+    private static void saveBinary(ShaderProgram program, String path) {
+
+        //get binary
+        int[] length = new int[1];
+        GLES20.glGetProgramiv(program.getProgramID(), GLES30.GL_PROGRAM_BINARY_LENGTH, length, 0);
+        if (length[0] <= 0) return;
+        ByteBuffer binary = ByteBuffer.allocateDirect(length[0]).order(ByteOrder.nativeOrder());
+        int[] format = new int[1];
+        GLES30.glGetProgramBinary(program.getProgramID(), length[0], length, 0, format, 0, binary);
+        byte[] bytes = new byte[length[0]];
+        binary.position(0);
+        binary.get(bytes);
+
+        //write binary to a temporary file and move it into place
+        try {
+            Node.makeAppropriateDirs(path);
+            File file = new File(MainActivity.appDir, path);
+            File temp = new File(MainActivity.appDir, path + Node.TEMP_SUFFIX);
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)));
+            try {
+                out.writeInt(format[0]);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            } finally {
+                out.close();
+            }
+            if (!temp.renameTo(file)) temp.delete();
+        } catch (Exception e) {
+            if (Util.DEBUG) Log.i(Util.getLogTag("ShaderCache.java", "saveBinary(ShaderProgram, String)"),
+                    "unable to save program binary " + path + ": " + e.getMessage());
+        }
+    }
+}
@@ -1,12 +1,12 @@
 package com.jacoboaks.wandermobile.graphics;
 
 import android.opengl.GLES20;
+import android.opengl.GLES30;
 import android.util.Log;
 
-import com.jacoboaks.wandermobile.MainActivity;
 import com.jacoboaks.wandermobile.util.Util;
 
-import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.nio.IntBuffer;
 import java.util.HashMap;
 import java.util.Map;
@@ -39,12 +39,8 @@ public class ShaderProgram {
      */
     public void loadShader(int resourceID, int type) {
 
-        //read resource data into string
-        InputStream stream = MainActivity.getAppResources().openRawResource(resourceID);
-        String sourceCode = Util.inputStreamToString(stream);
-
-        //pass to other method for compilation
-        this.loadShader(sourceCode, type);
+        //get source code (read only once per run) and pass to other method for compilation
+        this.loadShader(ShaderCache.getSource(resourceID), type);
     }
 
     /**
@@ -95,12 +91,10 @@ public class ShaderProgram {
         GLES20.glLinkProgram(this.programID);
 
         //check link status
-        IntBuffer status = IntBuffer.allocate(1);
-        GLES20.glGetShaderiv(this.programID, GLES20.GL_LINK_STATUS, status);
-        if (status.get(0) == GLES20.GL_FALSE) {
+        if (!this.isLinked()) {
 
             //get info log for linkage
-            String info = GLES20.glGetShaderInfoLog(this.programID);
+            String info = GLES20.glGetProgramInfoLog(this.programID);
 
             //throw failure error if an actual error occured
             if (info.length() > 2) throw Util.fatalError("ShaderProgram.java", "link()",
@@ -112,6 +106,35 @@ public class ShaderProgram {
 
     }
 
+    /**
+     * Asks GL to keep this ShaderProgram's binary retrievable once linked, so that it can be saved
+     * by the ShaderCache. Must be called before link() and only in an OpenGL ES 3.0 context.
+     */
+    public void setBinaryRetrievable() {
+        GLES30.glProgramParameteri(this.programID, GLES30.GL_PROGRAM_BINARY_RETRIEVABLE_HINT, GLES20.GL_TRUE);
+    }
+
+    /**
+     * Loads a previously linked program binary into this ShaderProgram instead of compiling and
+     * linking shaders. Only available in an OpenGL ES 3.0 context.
+     * @param format the format of the binary, as given when it was retrieved
+     * @param binary the binary
+     * @return whether the binary was accepted - if not, the shaders must be compiled as usual
+     */
+    public boolean loadBinary(int format, ByteBuffer binary) {
+        GLES30.glProgramBinary(this.programID, format, binary, binary.remaining());
+        return this.isLinked();
+    }
+
+    /**
+     * @return whether this ShaderProgram has been successfully linked
+     */
+    public boolean isLinked() {
+        IntBuffer status = IntBuffer.allocate(1);
+        GLES20.glGetProgramiv(this.programID, GLES20.GL_LINK_STATUS, status);
+        return status.get(0) != GLES20.GL_FALSE;
+    }
+
     //Bind/Unbind Method
     public void bind() { GLES20.glUseProgram(this.programID); }
     public void unbind() { GLES20.glUseProgram(0); }
@@ -126,6 +149,7 @@ public class ShaderProgram {
     }
 
     //Accessors
+    public int getProgramID() { return this.programID; }
     public int getAttributeIndex(String name) {
         int i = GLES20.glGetAttribLocation(this.programID, name);
         if (i < 0) throw Util.fatalError("ShaderProgram.java", "getAttributeIndex(String)",
@@ -13,26 +13,29 @@ import java.io.IOException;
 import java.io.InputStream;
 
 /**
- * Represents an OpenGL texture user for Materials.
+ * Represents an OpenGL texture user for Materials. The image is decoded when this Texture is
+ * constructed, which may happen on any thread, but it is only uploaded to GL the first time its id
+ * is needed (or upload() is called), which must happen on the GL thread. Textures constructed off
+ * the GL thread are queued for upload on the GameRenderer's GLUploadQueue.
  */
 public class Texture {
 
     //Data
+    private Bitmap bitmap; //the decoded image, kept until it is uploaded
     private int id[];
     private int resourceID;
     private int width, height;
 
     /**
-     * Constructs this texture.
+     * Constructs this texture by decoding its image. The GL texture is created later by upload().
      * @param resourceID the resource ID of the image to use for this texture
      */
     public Texture(int resourceID) {
 
         //load texture into bitmap
         InputStream is = MainActivity.getAppResources().openRawResource(resourceID);
-        Bitmap bmp;
         try {
-            bmp = BitmapFactory.decodeStream(is);
+            this.bitmap = BitmapFactory.decodeStream(is);
         } finally {
             try {
                 is.close();
@@ -43,8 +46,62 @@ public class Texture {
         }
 
         //set width and height
-        this.width = bmp.getWidth();
-        this.height = bmp.getHeight();
+        this.width = this.bitmap.getWidth();
+        this.height = this.bitmap.getHeight();
+
+        //save resource id
+        this.resourceID = resourceID;
+
+        //schedule upload if not on the gl thread
+        GLUploadQueue uploadQueue = GameRenderer.getUploadQueue();
+        if (!uploadQueue.isGLThread()) uploadQueue.uploadTexture(this);
+    }
+
+    /**
+     * Constructs this texture as an empty image to be rendered into, such as through a framebuffer.
+     * Unlike textures decoded from resources, the GL texture is created straight away, so this must
+     * be called on the GL thread.
+     * @param width the width of the image in pixels
+     * @param height the height of the image in pixels
+     */
+    public Texture(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.resourceID = 0;
+
+        //generate gl texture and bind it
+        this.id = new int[1];
+        GLES20.glGenTextures(1, this.id, 0);
+        GLES20.glBindTexture(GLES20.GL_TEXTURE_2D, this.id[0]);
+
+        //smooth filtering and clamping suit images drawn scaled down
+        GLES20.glTexParameterf(GLES20.GL_TEXTURE_2D, GLES20.GL_TEXTURE_MAG_FILTER, GLES20.GL_LINEAR);
+        GLES20.glTexParameterf(GLES20.GL_TEXTURE_2D, GLES20.GL_TEXTURE_MIN_FILTER, GLES20.GL_LINEAR);
+        GLES20.glTexParameterf(GLES20.GL_TEXTURE_2D, GLES20.GL_TEXTURE_WRAP_S, GLES20.GL_CLAMP_TO_EDGE);
+        GLES20.glTexParameterf(GLES20.GL_TEXTURE_2D, GLES20.GL_TEXTURE_WRAP_T, GLES20.GL_CLAMP_TO_EDGE);
+
+        //allocate image
+        GLES20.glTexImage2D(GLES20.GL_TEXTURE_2D, 0, GLES20.GL_RGBA, width, height, 0, GLES20.GL_RGBA,
+                GLES20.GL_UNSIGNED_BYTE, null);
+    }
+
+    /**
+     * Deletes the GL texture, if it was created. Must be called on the GL thread.
+     */
+    public void delete() {
+        if (this.id == null) return;
+        GLES20.glDeleteTextures(1, this.id, 0);
+        this.id = null;
+    }
+
+    /**
+     * Creates the GL texture and uploads the decoded image into it, if that hasn't been done yet.
+     * Must be called on the GL thread.
+     */
+    public void upload() {
+
+        //do nothing if already uploaded
+        if (this.id != null) return;
 
         //generate gl texture and bind it
         this.id = new int[1];
@@ -60,17 +117,25 @@ public class Texture {
         GLES20.glTexParameterf(GLES20.GL_TEXTURE_2D, GLES20.GL_TEXTURE_WRAP_T, GLES20.GL_REPEAT);
 
         //bind bitmap to texture
-        GLUtils.texImage2D(GLES20.GL_TEXTURE_2D, 0, bmp, 0);
+        GLUtils.texImage2D(GLES20.GL_TEXTURE_2D, 0, this.bitmap, 0);
 
         //recycle bitmap
-        bmp.recycle();
-
-        //save resource id
-        this.resourceID = resourceID;
+        this.bitmap.recycle();
+        this.bitmap = null;
     }
 
+    /**
+     * @return a rough estimate of the memory this Texture's image takes up, in bytes - whether still
+     * decoded or already uploaded
+     */
+    public long getMemoryEstimate() { return (long)this.width * this.height * 4; }
+
     //Accessors
-    public int getID() { return this.id[0]; }
+    public int getID() {
+        this.upload();
+        return this.id[0];
+    }
+    public boolean isUploaded() { return this.id != null; }
     public int getWidth() { return this.width; }
     public int getHeight() { return this.height; }
     public int getResourceID() { return this.resourceID; }
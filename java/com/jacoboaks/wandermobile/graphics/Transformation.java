@@ -85,6 +85,27 @@ public class Transformation {
         aspectedToWorld(coords, camera);
     }
 
+    /**
+     * Converts a distance moved across the screen to the distance it covers in the world. Unlike
+     * positions, distances are not affected by the camera's position.
+     * @param dx the x distance in screen coordinates
+     * @param dy the y distance in screen coordinates
+     * @param camera the camera whose zoom to take into account
+     * @param out the coordinate to store the world distance in
+     */
+    public static void screenDeltaToWorld(float dx, float dy, Camera camera, Coord out) {
+
+        //convert to normalized
+        out.x = dx * 2 / GameRenderer.surfaceWidth;
+        out.y = dy * 2 / GameRenderer.surfaceHeight;
+
+        //convert to aspected and then to world
+        if (GameRenderer.surfaceAspectRatio >= 1.0f) out.x *= GameRenderer.surfaceAspectRatio;
+        else out.y /= GameRenderer.surfaceAspectRatio;
+        out.x /= camera.getZoom();
+        out.y /= -camera.getZoom();
+    }
+
     /**
      * Converts screen coordinates to grid coordinates.
      * @param coords the coordinates to convert
@@ -100,12 +121,18 @@ public class Transformation {
      * @param coords the coordinates to convert
      */
     public static void worldToGrid(Coord coords) {
-        if (coords.x < 0) coords.x -= (Model.STD_SQUARE_SIZE / 2);
-        else coords.x += (Model.STD_SQUARE_SIZE / 2);
-        if (coords.y < 0) coords.y -= (Model.STD_SQUARE_SIZE / 2);
-        else coords.y += (Model.STD_SQUARE_SIZE / 2);
-        coords.x = (int)(coords.x / Model.STD_SQUARE_SIZE);
-        coords.y = (int)(coords.y / Model.STD_SQUARE_SIZE);
+        coords.x = Transformation.worldToGrid(coords.x);
+        coords.y = Transformation.worldToGrid(coords.y);
+    }
+
+    /**
+     * Converts a single world coordinate to a grid coordinate without allocating.
+     * @param world the world x or y to convert
+     * @return the grid x or y
+     */
+    public static int worldToGrid(float world) {
+        if (world < 0) return (int)((world - Model.STD_SQUARE_SIZE / 2) / Model.STD_SQUARE_SIZE);
+        return (int)((world + Model.STD_SQUARE_SIZE / 2) / Model.STD_SQUARE_SIZE);
     }
 
     /**
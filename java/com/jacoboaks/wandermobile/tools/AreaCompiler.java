@@ -0,0 +1,297 @@
+package com.jacoboaks.wandermobile.tools;
+
+import com.jacoboaks.wandermobile.util.Node;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Compiles the .wdr area files in the raw resources folder into a compact binary format which can
+ * be loaded without any text parsing. This is not part of the app - it is run on the development
+ * machine whenever an area file changes, and the compiled files are committed with the sources:
+ *
+ *   javac -cp android.jar -d build/tools -sourcepath java java/com/jacoboaks/wandermobile/tools/AreaCompiler.java
+ *   java -cp build/tools:android.jar com.jacoboaks.wandermobile.tools.AreaCompiler res/raw
+ *
+ * Each compiled file records a hash of the source it was compiled from. Release builds trust the
+ * compiled files without reading their sources, so the build should run the compiler with --check
+ * first, which fails if any compiled file doesn't match its source:
+ *
+ *   java -cp build/tools:android.jar com.jacoboaks.wandermobile.tools.AreaCompiler --check res/raw
+ *
+ * Debug builds compare the hash when loading as well, and load the source of an outdated area.
+ *
+ * The compiled format is, in order: a header (MAGIC, VERSION, source hash), the area name, filename and spawn,
+ * a table of every distinct tile type in the area, the origin and size of the area's bounding box
+ * followed by one short per cell holding the index + 1 of the cell's static tile type (0 for
+ * empty), and finally a list of entities as (type index, gx, gy). Entity types end with the
+ * children of their behaviour node (if any) as a count followed by name and value pairs.
+ */
+public class AreaCompiler {
+
+    //Static Data
+    public static final int MAGIC = 0x57444131; //'WDA1'
+    public static final short VERSION = 4;
+    public static final byte KIND_STATIC_TILE = 0;
+    public static final byte KIND_ENTITY = 1;
+    public static final String SOURCE_PREFIX = "area_";
+    public static final String COMPILED_PREFIX = "areabin_";
+    private static final String SOURCE_EXTENSION = ".wdr";
+    private static final String COMPILED_EXTENSION = ".wda";
+
+    /**
+     * Compiles every area in the given directory.
+     * @param args the first argument is the raw resources directory (defaults to res/raw)
+     */
+    public static void main(String[] args) throws IOException {
+        boolean check = args.length > 0 && args[0].equals("--check");
+        int dirArg = check ? 1 : 0;
+        File dir = new File(args.length > dirArg ? args[dirArg] : "res/raw");
+        File[] files = dir.listFiles();
+        if (files == null) throw new IOException("unable to list " + dir);
+        int stale = 0;
+        for (File file : files) {
+            String name = file.getName();
+            if (name.startsWith(SOURCE_PREFIX) && name.endsWith(SOURCE_EXTENSION)) {
+                File out = new File(dir, COMPILED_PREFIX + name.substring(SOURCE_PREFIX.length(),
+                        name.length() - SOURCE_EXTENSION.length()) + COMPILED_EXTENSION);
+                if (check) {
+                    if (!AreaCompiler.isCurrent(file, out)) {
+                        System.out.println("out of date: " + out + " (run AreaCompiler on " + dir + ")");
+                        stale++;
+                    }
+                } else if (AreaCompiler.compile(file, out)) System.out.println("compiled " + file + " -> " + out);
+                else System.out.println("skipped " + file + " (generated)");
+            }
+        }
+        if (stale > 0) System.exit(1);
+    }
+
+    /**
+     * Checks whether a compiled area was compiled from the current version of its source by the
+     * current version of this compiler.
+     * @param source the .wdr file of the area
+     * @param target the compiled file of the area
+     * @return whether the compiled file is current - generated areas are current without one
+     */
+    public static boolean isCurrent(File source, File target) throws IOException {
+        if (!target.exists()) return AreaCompiler.readSource(source).getChild("loadType").getValue().equals("generated");
+        long sourceHash;
+        InputStream sourceIn = new FileInputStream(source);
+        try {
+            sourceHash = AreaCompiler.hash(sourceIn);
+        } finally {
+            sourceIn.close();
+        }
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(target)));
+        try {
+            return in.readInt() == MAGIC && in.readShort() == VERSION && in.readLong() == sourceHash;
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Reads the source of an area.
+     * @param source the .wdr file of the area
+     * @return the root node of the area
+     */
+    private static Node readSource(File source) throws IOException {
+        List<String> lines = new ArrayList<>();
+        BufferedReader in = new BufferedReader(new FileReader(source));
+        try {
+            String line;
+            while ((line = in.readLine()) != null) lines.add(line);
+        } finally {
+            in.close();
+        }
+        return Node.readNode(lines);
+    }
+
+    /**
+     * Compiles a single area.
+     * @param source the .wdr file of the area
+     * @param target the file to write the compiled area to
+     * @return whether the area was compiled - generated areas have no fixed layout to compile and
+     * are skipped
+     */
+    public static boolean compile(File source, File target) throws IOException {
+
+        //read source
+        Node area = AreaCompiler.readSource(source);
+        if (area.getChild("loadType").getValue().equals("generated")) return false;
+
+        //build type table from key
+        Map<Character, Integer> typeIndices = new HashMap<>();
+        List<Node> types = new ArrayList<>();
+        for (Node child : area.getChild("key").getChildren()) {
+            typeIndices.put(child.getValue().charAt(0), types.size());
+            types.add(child);
+        }
+
+        //collect placed tiles
+        List<int[]> placed = new ArrayList<>(); //{ type index, gx, gy }
+        String loadType = area.getChild("loadType").getValue();
+        if (loadType.equals("row listing")) {
+            Node layout = area.getChild("layout");
+            for (int y = 1; layout.getChild("row " + y) != null; y++) {
+                String row = layout.getChild("row " + y).getValue();
+                for (int x = 0; x < row.length(); x++) {
+                    if (row.charAt(x) != ' ') AreaCompiler.place(typeIndices, row.charAt(x), x, -(y - 1), placed);
+                }
+            }
+        } else if (loadType.equals("tile listing")) {
+            Node tiles = area.getChild("tiles");
+            if (tiles != null && tiles.hasChildren()) {
+                for (Node tile : tiles.getChildren()) {
+                    String[] values = tile.getValue().split(" ");
+                    AreaCompiler.place(typeIndices, values[0].charAt(0), Integer.parseInt(values[1]),
+                            Integer.parseInt(values[2]), placed);
+                }
+            }
+        } else throw new IOException(source + ": unknown loadType " + loadType);
+
+        //find bounding box of static tiles
+        int minX = Integer.MAX_VALUE, maxX = Integer.MIN_VALUE, minY = Integer.MAX_VALUE, maxY = Integer.MIN_VALUE;
+        for (int[] tile : placed) {
+            if (AreaCompiler.isEntity(types.get(tile[0]))) continue;
+            minX = Math.min(minX, tile[1]);
+            maxX = Math.max(maxX, tile[1]);
+            minY = Math.min(minY, tile[2]);
+            maxY = Math.max(maxY, tile[2]);
+        }
+        int width = minX > maxX ? 0 : maxX - minX + 1;
+        int height = minY > maxY ? 0 : maxY - minY + 1;
+
+        //fill grid - rows go from top (maxY) to bottom, as in the layout
+        short[] grid = new short[width * height];
+        List<int[]> entities = new ArrayList<>();
+        for (int[] tile : placed) {
+            if (AreaCompiler.isEntity(types.get(tile[0]))) entities.add(tile);
+            else grid[(maxY - tile[2]) * width + (tile[1] - minX)] = (short)(tile[0] + 1);
+        }
+
+        //hash source
+        long sourceHash;
+        InputStream sourceIn = new FileInputStream(source);
+        try {
+            sourceHash = AreaCompiler.hash(sourceIn);
+        } finally {
+            sourceIn.close();
+        }
+
+        //write compiled area
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(target)));
+        try {
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.writeLong(sourceHash);
+            out.writeUTF(area.getChild("name").getValue());
+            out.writeUTF(area.getChild("filename").getValue());
+            Node spawnX = area.getChild("spawnx"), spawnY = area.getChild("spawny");
+            boolean hasSpawn = spawnX != null && spawnY != null;
+            out.writeInt(hasSpawn ? Integer.parseInt(spawnX.getValue()) : 0);
+            out.writeInt(hasSpawn ? Integer.parseInt(spawnY.getValue()) : 0);
+            out.writeShort(types.size());
+            for (Node type : types) AreaCompiler.writeType(out, type);
+            out.writeInt(width == 0 ? 0 : minX);
+            out.writeInt(height == 0 ? 0 : maxY);
+            out.writeInt(width);
+            out.writeInt(height);
+            for (short cell : grid) out.writeShort(cell);
+            out.writeInt(entities.size());
+            for (int[] entity : entities) {
+                out.writeShort(entity[0]);
+                out.writeInt(entity[1]);
+                out.writeInt(entity[2]);
+            }
+        } finally {
+            out.close();
+        }
+        return true;
+    }
+
+    /**
+     * Hashes the bytes of an area's source, as stored in the header of its compiled version.
+     * @param in the stream of the source, read to its end but not closed
+     * @return the CRC-32 of the source
+     */
+    public static long hash(InputStream in) throws IOException {
+        CRC32 crc = new CRC32();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) != -1) crc.update(buffer, 0, read);
+        return crc.getValue();
+    }
+
+    /**
+     * Records a tile placement, ignoring symbols not defined in the key as the runtime loader does.
+     */
+    private static void place(Map<Character, Integer> typeIndices, char symbol, int gx, int gy, List<int[]> placed) {
+        Integer type = typeIndices.get(symbol);
+        if (type == null) System.out.println("warning: symbol not defined in key: " + symbol);
+        else placed.add(new int[] { type, gx, gy });
+    }
+
+    /**
+     * @return whether the given key entry describes an Entity
+     */
+    private static boolean isEntity(Node type) {
+        return type.getName().equals("Entity");
+    }
+
+    /**
+     * Writes a single entry of the tile type table. Plain Tiles are written as StaticTiles with a
+     * maneuverability of 0, which is how the runtime loader treats them. Static tiles which don't
+     * say whether they block sight are written as blocking it if they block movement.
+     */
+    private static void writeType(DataOutputStream out, Node type) throws IOException {
+        boolean entity = AreaCompiler.isEntity(type);
+        boolean symbolTile = Boolean.parseBoolean(type.getChild("symbolTile").getValue());
+        out.writeByte(entity ? KIND_ENTITY : KIND_STATIC_TILE);
+        out.writeUTF(type.getChild("name").getValue());
+        out.writeBoolean(symbolTile);
+        if (symbolTile) {
+            out.writeChar(type.getChild("symbol").getValue().charAt(0));
+            Node color = type.getChild("color");
+            out.writeFloat(Float.parseFloat(color.getChild("r").getValue()));
+            out.writeFloat(Float.parseFloat(color.getChild("g").getValue()));
+            out.writeFloat(Float.parseFloat(color.getChild("b").getValue()));
+            out.writeFloat(Float.parseFloat(color.getChild("a").getValue()));
+        } else out.writeInt(Integer.parseInt(type.getChild("texture").getValue()));
+        if (entity) {
+            out.writeInt(Integer.parseInt(type.getChild("health").getValue()));
+            out.writeInt(Integer.parseInt(type.getChild("maxHealth").getValue()));
+            out.writeInt(Integer.parseInt(type.getChild("level").getValue()));
+            Node behaviour = type.getChild("behaviour");
+            boolean hasBehaviour = behaviour != null && behaviour.hasChildren();
+            out.writeShort(hasBehaviour ? behaviour.getChildCount() : 0);
+            if (hasBehaviour) {
+                for (Node field : behaviour.getChildren()) {
+                    out.writeUTF(field.getName());
+                    out.writeUTF(field.getValue());
+                }
+            }
+        } else {
+            Node maneuverability = type.getChild("maneuverability");
+            int value = maneuverability == null ? 0 : Integer.parseInt(maneuverability.getValue());
+            Node blocksSight = type.getChild("blocksSight");
+            out.writeInt(value);
+            out.writeBoolean(blocksSight == null ? value == 0 : Boolean.parseBoolean(blocksSight.getValue()));
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package com.jacoboaks.wandermobile.util;
+
+import android.util.Log;
+
+import com.jacoboaks.wandermobile.MainActivity;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Writes a group of Nodes to their files as one all-or-nothing operation. Committing hands the
+ * Nodes to a single background thread, so the caller never waits on the disk. There, a journal
+ * holding the path and contents of every Node is written and synced - one sync for the whole group -
+ * after which the group is considered saved. Each Node is then written to a temporary file next to
+ * its target and renamed into place, the targets and their directories are synced together, and the
+ * journal is removed. If the app is killed or the device loses power partway through, recover() will
+ * write every file again from the journal if it made it to disk, or throw the temporary files away
+ * if it did not. Commits are written in the order they were made, and awaitCommits() waits for them
+ * to finish before anything reads or deletes the files.
+ */
+public class Journal {
+
+    //Static Data
+    private static final String FILE_NODE_NAME = "file";
+    private static ExecutorService writer; //writes commits in order, off the committing thread
+
+    //Data
+    private List<Node> nodes; //the nodes to write
+    private List<String> paths; //the paths to write each node to
+    private String journalPath; //the path of the journal file
+
+    /**
+     * Constructs this Journal.
+     * @param journalPath the path (relative to the app directory) to keep the journal at
+     */
+    public Journal(String journalPath) {
+        this.journalPath = journalPath;
+        this.nodes = new ArrayList<>();
+        this.paths = new ArrayList<>();
+    }
+
+    /**
+     * Adds a Node to be written when this Journal is committed. The Node must not be changed
+     * afterwards, as it is written on another thread.
+     * @param node the Node to write
+     * @param path the path to write the Node to
+     */
+    public void add(Node node, String path) {
+        this.nodes.add(node);
+        this.paths.add(path);
+    }
+
+    /**
+     * Writes every added Node to its path on the background thread. Either all of the files will be
+     * updated or, if the app dies before the journal is written, none of them will be.
+     */
+    public void commit() {
+        final List<Node> nodes = new ArrayList<>(this.nodes);
+        final List<String> paths = new ArrayList<>(this.paths);
+        final String journalPath = this.journalPath;
+        Journal.getWriter().execute(new Runnable() {
+            @Override
+            public void run() {
+                Journal.write(nodes, paths, journalPath);
+            }
+        });
+    }
+
+    /**
+     * Writes a group of Nodes through a journal holding all of their contents.
+     * @param nodes the nodes to write
+     * @param paths the path to write each node to
+     * @param journalPath the path of the journal file
+     */
+    private static void write(List<Node> nodes, List<String> paths, String journalPath) {
+        try {
+
+            //write the journal with every node in it - once it exists the save is considered done
+            Node journal = new Node("journal");
+            for (int i = 0; i < nodes.size(); i++) {
+                Node file = new Node(Journal.FILE_NODE_NAME, paths.get(i));
+                file.addChild(nodes.get(i));
+                journal.addChild(file);
+            }
+            Node.writeNode(journal, journalPath);
+
+            //write every node to its temporary file and move it into place
+            List<FileOutputStream> streams = new ArrayList<>();
+            List<PrintWriter> writers = new ArrayList<>();
+            for (int i = 0; i < nodes.size(); i++) {
+                FileOutputStream stream = Node.openTempFile(paths.get(i));
+                PrintWriter out = new PrintWriter(stream);
+                Node.printNode(out, nodes.get(i));
+                out.flush();
+                if (out.checkError()) throw new IOException("failed to write to temporary file of " + paths.get(i));
+                Node.commitTempFile(paths.get(i));
+                streams.add(stream);
+                writers.add(out);
+            }
+
+            //sync the files and their directories together, then remove the journal
+            for (int i = 0; i < writers.size(); i++) Node.syncAndClose(writers.get(i), streams.get(i));
+            Set<String> dirs = new HashSet<>();
+            for (String path : paths) {
+                if (dirs.add(String.valueOf(new File(path).getParent()))) Node.syncDirectory(path);
+            }
+            new File(MainActivity.appDir, journalPath).delete();
+
+            //catch errors
+        } catch (Exception e) {
+            throw Util.fatalError("Journal.java", "write(List<Node>, List<String>, String)", e.getMessage());
+        }
+    }
+
+    /**
+     * Waits for every commit made so far to be written.
+     */
+    public static void awaitCommits() {
+        ExecutorService writer;
+        synchronized (Journal.class) {
+            writer = Journal.writer;
+        }
+        if (writer == null) return;
+        try {
+            writer.submit(new Runnable() {
+                @Override
+                public void run() {}
+            }).get();
+        } catch (Exception e) {
+            throw Util.fatalError("Journal.java", "awaitCommits()", e.getMessage());
+        }
+    }
+
+    /**
+     * @return the thread commits are written on, creating it if it doesn't exist yet
+     */
+    private static synchronized ExecutorService getWriter() {
+        if (Journal.writer == null) Journal.writer = Executors.newSingleThreadExecutor();
+        return Journal.writer;
+    }
+
+    /**
+     * Finishes or rolls back a commit that was interrupted. If the journal at the given path exists,
+     * every file in it is written again from its contents. Any temporary files left in the given
+     * directory afterwards belong to an unfinished commit and are deleted.
+     * @param journalPath the path of the journal to recover
+     * @param dir the directory whose leftover temporary files to clean up
+     */
+    public static void recover(String journalPath, String dir) {
+
+        //roll forward if the journal was written
+        if (new File(MainActivity.appDir, journalPath).exists()) {
+            Node journal = Node.readNode(journalPath);
+            try {
+                if (journal.hasChildren()) {
+                    for (Node file : journal.getChildren()) {
+                        String path = file.getValue();
+                        if (file.hasChildren()) Node.writeNode(file.getChild(0), path);
+                        else if (Node.getTempFile(path).exists()) Node.commitTempFile(path); //journal of an older version
+                    }
+                }
+            } catch (Exception e) {
+                throw Util.fatalError("Journal.java", "recover(String, String)", e.getMessage());
+            }
+            new File(MainActivity.appDir, journalPath).delete();
+            if (Util.DEBUG) Log.i(Util.getLogTag("Journal.java", "recover(String, String)"),
+                    "completed interrupted commit of " + journalPath);
+        }
+
+        //roll back anything else
+        Journal.deleteTempFiles(new File(MainActivity.appDir, dir));
+    }
+
+    /**
+     * Recursively deletes any temporary files in the given directory.
+     * @param file the directory to clean up
+     */
+    private static void deleteTempFiles(File file) {
+        if (file.isDirectory()) {
+            File[] entries = file.listFiles();
+            if (entries != null) for (File entry : entries) Journal.deleteTempFiles(entry);
+        } else if (file.getName().endsWith(Node.TEMP_SUFFIX)) {
+            file.delete();
+        }
+    }
+}
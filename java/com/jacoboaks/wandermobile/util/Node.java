@@ -1,15 +1,23 @@
 package com.jacoboaks.wandermobile.util;
 
 import android.os.Bundle;
+import android.system.ErrnoException;
+import android.system.Os;
+import android.system.OsConstants;
 
 import com.jacoboaks.wandermobile.MainActivity;
 
 import java.io.BufferedReader;
 import java.io.File;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
 import java.io.FileReader;
+import java.io.IOException;
 import java.io.PrintWriter;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Serves as a medium of data transfer using a tree-like data structure.
@@ -19,11 +27,16 @@ public class Node {
     //Static Data
     private static char DIVIDER_CHAR = ':';
     private static char INDENT_CHAR = '\t';
+    public static final String TEMP_SUFFIX = ".tmp"; //suffix for files which are still being written
+    private static final int CHILD_INDEX_THRESHOLD = 6; /* the amount of children a Node needs before
+        lookups by name use an index instead of a linear search */
 
     //Data
     private List<Node> children;
+    private Map<String, Integer> childIndex; //maps each child name to the index of its first occurrence
     private String name;
     private String value;
+    private int childIndexSize; //the amount of children when the child index was built
 
     /**
      * Constructs this Node by giving it all of its properties upfront.
@@ -72,7 +85,8 @@ public class Node {
     public Node() {}
 
     /**
-     * @return the list of this Node's children
+     * @return the list of this Node's children. Children should be added through addChild() rather
+     * than through this list
      */
     public List<Node> getChildren() { return this.children; }
 
@@ -124,15 +138,41 @@ public class Node {
     }
 
     /**
-     * Retrieves a child of this Node with the given name.
+     * Retrieves a child of this Node with the given name. Nodes with more than a few children build
+     * an index of their children's names the first time this is called so that later lookups don't
+     * need to search through every child.
      * @param name the name of the child to retrieve
      * @return the first child of this Node whose name matches the given name
      */
     public Node getChild(String name) {
-        for (Node child : this.children) if (child.getName().equals(name)) return child;
+
+        //use index if there are enough children
+        if (this.children == null) return null;
+        int size = this.children.size();
+        if (size > Node.CHILD_INDEX_THRESHOLD) {
+            if (this.childIndex == null || this.childIndexSize != size) this.buildChildIndex();
+            Integer index = this.childIndex.get(name);
+            return index == null ? null : this.children.get(index);
+        }
+
+        //otherwise search linearly - names read from files are interned, so usually match by reference
+        for (int i = 0; i < size; i++) {
+            Node child = this.children.get(i);
+            if (child.name == name || (child.name != null && child.name.equals(name))) return child;
+        }
         return null;
     }
 
+    /**
+     * Builds the index mapping each child name to the first child with that name.
+     */
+    private void buildChildIndex() {
+        int size = this.children.size();
+        this.childIndex = new HashMap<>(size * 2);
+        for (int i = size - 1; i >= 0; i--) this.childIndex.put(this.children.get(i).name, i);
+        this.childIndexSize = size;
+    }
+
     /**
      * @return whether or not this Node has any children
      */
@@ -194,6 +234,17 @@ public class Node {
         return node;
     }
 
+    /**
+     * Reads a Node from lines of text which have already been loaded.
+     * @param lines the lines to read the Node from
+     * @return the read Node
+     */
+    public static Node readNode(List<String> lines) {
+        Node node = new Node();
+        readNodeR(node, lines, 0, 0);
+        return node;
+    }
+
     /**
      * Reads a node at the given file path relative to the app's file path.
      * @param path the path to read the Node from
@@ -247,7 +298,7 @@ public class Node {
         //create node and set name
         Node curr = new Node();
         String possibleName = nextLine.substring(0, dividerLocation);
-        if (!possibleName.equals("")) curr.setName(nextLine.substring(0, dividerLocation)); //create node with name
+        if (!possibleName.equals("")) curr.setName(possibleName.intern()); //create node with name
 
         //set node value if there is one
         String possibleValue = nextLine.substring(dividerLocation + 1, nextLine.length()); //grab possible value
@@ -288,20 +339,22 @@ public class Node {
     }
 
     /**
-     * Writes a node to a file
+     * Writes a node to a file. The Node is written to a temporary file first, which is synced to
+     * disk and then renamed over the target so that the target is never left half-written. The
+     * directory is synced after the rename so that the rename itself survives a power loss.
      * @param node the Node to write
      * @param path the path to write the Node to. Will throw an error if doesn't exit or cannot open
      */
     public static void writeNode(Node node, String path) {
 
-        //try to open file to print
+        //try to write the node to a temporary file and then move it into place
         try {
-            Node.makeAppropriateDirs(path);
-            PrintWriter out = new PrintWriter(new File(MainActivity.appDir, path));
-
-            //recursively save node then close file
-            Node.writeNodeR(out, node, new StringBuilder());
-            out.close();
+            FileOutputStream stream = Node.openTempFile(path);
+            PrintWriter out = new PrintWriter(stream);
+            Node.printNode(out, node);
+            Node.syncAndClose(out, stream);
+            Node.commitTempFile(path);
+            Node.syncDirectory(path);
 
             //catch errors
         } catch (Exception e) {
@@ -309,6 +362,75 @@ public class Node {
         }
     }
 
+    /**
+     * Opens the temporary file for the given path, creating any directories needed along the way.
+     * @param path the path whose temporary file to open
+     * @return the stream to write the temporary file with
+     */
+    static FileOutputStream openTempFile(String path) throws IOException {
+        Node.makeAppropriateDirs(path);
+        return new FileOutputStream(Node.getTempFile(path));
+    }
+
+    /**
+     * Recursively prints a Node using the given PrintWriter without closing it.
+     * @param out the PrintWriter to print with
+     * @param node the Node to print
+     */
+    static void printNode(PrintWriter out, Node node) {
+        Node.writeNodeR(out, node, new StringBuilder());
+    }
+
+    /**
+     * Flushes the given writer, forces its contents to disk, and closes it.
+     * @param out the writer to flush and close
+     * @param stream the underlying file stream of the writer
+     */
+    static void syncAndClose(PrintWriter out, FileOutputStream stream) throws IOException {
+        out.flush();
+        if (out.checkError()) throw new IOException("failed to write to temporary file");
+        stream.getFD().sync();
+        out.close();
+    }
+
+    /**
+     * Moves the temporary file for the given path over the path itself. The rename is atomic, so
+     * the target will either hold its old contents or its new contents.
+     * @param path the path whose temporary file to commit
+     */
+    static void commitTempFile(String path) throws IOException {
+        File target = new File(MainActivity.appDir, path);
+        if (!Node.getTempFile(path).renameTo(target))
+            throw new IOException("unable to move temporary file over " + path);
+    }
+
+    /**
+     * Forces the directory containing the given path to disk, so that files renamed into or removed
+     * from it stay that way after a power loss.
+     * @param path the path whose directory to sync
+     */
+    static void syncDirectory(String path) throws IOException {
+        File dir = new File(MainActivity.appDir, path).getParentFile();
+        try {
+            FileDescriptor fd = Os.open(dir.getPath(), OsConstants.O_RDONLY, 0);
+            try {
+                Os.fsync(fd);
+            } finally {
+                Os.close(fd);
+            }
+        } catch (ErrnoException e) {
+            throw new IOException("unable to sync directory " + dir.getPath() + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * @param path the path to find the temporary file for
+     * @return the temporary file used while writing to the given path
+     */
+    static File getTempFile(String path) {
+        return new File(MainActivity.appDir, path + Node.TEMP_SUFFIX);
+    }
+
     /**
      * Makes the appropriate directories for a given path
      * @param path the path whose directories to make
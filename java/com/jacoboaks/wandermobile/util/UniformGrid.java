@@ -0,0 +1,136 @@
+package com.jacoboaks.wandermobile.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Finds which of a set of items lie under a point, with each item covering a rectangle given by
+ * its Bounds. The space the items cover is split into square cells of a fixed size, and each cell
+ * lists the items overlapping it, so a query only tests the items of one cell. The cells are built
+ * the first time they are queried after items are added.
+ * @param <T> the type of item held
+ */
+public class UniformGrid<T> {
+
+    //Data
+    private final float cellSize; //width and height of each cell
+    private final List<T> items; //every item, in the order added
+    private final List<Bounds> bounds; //bounds of each item
+    private float minX, minY; //bottom left corner of the cells
+    private int columns, rows; //how many cells there are along each side
+    private int[] cellStart; //index in cellItems of the first item of each cell, with one extra end index
+    private int[] cellItems; //indices of the items of every cell, cell by cell
+    private boolean built = false; //whether the cells are up to date with the items
+
+    /**
+     * Constructs this UniformGrid with no items.
+     * @param cellSize the width and height of each cell
+     */
+    public UniformGrid(float cellSize) {
+        this.cellSize = cellSize;
+        this.items = new ArrayList<>();
+        this.bounds = new ArrayList<>();
+    }
+
+    /**
+     * Adds an item.
+     * @param item the item to add
+     * @param bounds the rectangle the item covers
+     */
+    public void add(T item, Bounds bounds) {
+        this.items.add(item);
+        this.bounds.add(bounds);
+        this.built = false;
+    }
+
+    /**
+     * Removes every item.
+     */
+    public void clear() {
+        this.items.clear();
+        this.bounds.clear();
+        this.built = false;
+    }
+
+    /**
+     * Finds the items whose bounds contain a point.
+     * @param point the point to look under
+     * @param out the list to add the found items to, in the order they were added
+     */
+    public void query(Coord point, List<T> out) {
+        if (!this.built) this.build();
+        if (this.columns == 0) return;
+        int column = (int)Math.floor((point.x - this.minX) / this.cellSize);
+        int row = (int)Math.floor((point.y - this.minY) / this.cellSize);
+        if (column < 0 || row < 0 || column >= this.columns || row >= this.rows) return;
+        int cell = row * this.columns + column;
+        for (int i = this.cellStart[cell]; i < this.cellStart[cell + 1]; i++) {
+            int item = this.cellItems[i];
+            if (this.bounds.get(item).intersects(point)) out.add(this.items.get(item));
+        }
+    }
+
+    /**
+     * Sizes the cells to cover every item and lists the items overlapping each cell.
+     */
+    private void build() {
+        this.built = true;
+        this.columns = this.rows = 0;
+        if (this.items.isEmpty()) return;
+
+        //cover the bounds of every item
+        float minX = Float.MAX_VALUE, minY = Float.MAX_VALUE, maxX = -Float.MAX_VALUE, maxY = -Float.MAX_VALUE;
+        for (Bounds bounds : this.bounds) {
+            Coord bottomLeft = bounds.bottomLeft(), topRight = bounds.topRight();
+            minX = Math.min(minX, bottomLeft.x);
+            minY = Math.min(minY, bottomLeft.y);
+            maxX = Math.max(maxX, topRight.x);
+            maxY = Math.max(maxY, topRight.y);
+        }
+        this.minX = minX;
+        this.minY = minY;
+        this.columns = (int)Math.floor((maxX - minX) / this.cellSize) + 1;
+        this.rows = (int)Math.floor((maxY - minY) / this.cellSize) + 1;
+
+        //count the items of each cell, then fill them in
+        int cells = this.columns * this.rows;
+        this.cellStart = new int[cells + 1];
+        for (int pass = 0; pass < 2; pass++) {
+            int[] next = pass == 0 ? null : Arrays.copyOf(this.cellStart, cells);
+            for (int i = 0; i < this.items.size(); i++) {
+                Coord bottomLeft = this.bounds.get(i).bottomLeft(), topRight = this.bounds.get(i).topRight();
+                int c0 = this.column(bottomLeft.x), c1 = this.column(topRight.x);
+                int r0 = this.row(bottomLeft.y), r1 = this.row(topRight.y);
+                for (int r = r0; r <= r1; r++) {
+                    for (int c = c0; c <= c1; c++) {
+                        int cell = r * this.columns + c;
+                        if (pass == 0) this.cellStart[cell + 1]++;
+                        else this.cellItems[next[cell]++] = i;
+                    }
+                }
+            }
+            if (pass == 0) {
+                for (int cell = 0; cell < cells; cell++) this.cellStart[cell + 1] += this.cellStart[cell];
+                this.cellItems = new int[this.cellStart[cells]];
+            }
+        }
+    }
+
+    /**
+     * @return the column of the cell containing the given x, clamped to the cells
+     */
+    private int column(float x) {
+        return Math.min(Math.max((int)Math.floor((x - this.minX) / this.cellSize), 0), this.columns - 1);
+    }
+
+    /**
+     * @return the row of the cell containing the given y, clamped to the cells
+     */
+    private int row(float y) {
+        return Math.min(Math.max((int)Math.floor((y - this.minY) / this.cellSize), 0), this.rows - 1);
+    }
+
+    //Accessors
+    public int size() { return this.items.size(); }
+}